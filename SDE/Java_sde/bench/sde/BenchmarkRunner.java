@@ -0,0 +1,198 @@
+package sde;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * ׻׼ԿܣԤֺʱ֣ÿβƽʱ
+ * ÿķֵۼӵsinkУֹJITѼ㵱
+ * ʱ -Dbench.json=ļ printResultsͬʱѽдJSONڲ֮ͬȽǷ˻
+ * @author Administrator
+ *
+ */
+public class BenchmarkRunner {
+
+	/**
+	 * һrun()ִopsPerRunβ
+	 */
+	public interface Task {
+		double run();
+	}
+
+	/**
+	 * Ĳ
+	 */
+	public static class Result {
+		public final String name;
+		public final long opsPerRun;
+		public final double[] nsPerOp;
+
+		public Result(String name, long opsPerRun, double[] nsPerOp) {
+			this.name = name;
+			this.opsPerRun = opsPerRun;
+			this.nsPerOp = nsPerOp;
+		}
+
+		public double mean() {
+			double sum = 0;
+			for (int i = 0; i < nsPerOp.length; i++) {
+				sum += nsPerOp[i];
+			}
+			return sum / nsPerOp.length;
+		}
+
+		public double stddev() {
+			double mean = mean();
+			double sum = 0;
+			for (int i = 0; i < nsPerOp.length; i++) {
+				sum += (nsPerOp[i] - mean) * (nsPerOp[i] - mean);
+			}
+			return Math.sqrt(sum / nsPerOp.length);
+		}
+
+		public double min() {
+			double min = Double.POSITIVE_INFINITY;
+			for (int i = 0; i < nsPerOp.length; i++) {
+				min = Math.min(min, nsPerOp[i]);
+			}
+			return min;
+		}
+	}
+
+	static volatile double sink;
+
+	private final int warmup;
+	private final int iterations;
+	private final List<Result> results = new ArrayList<Result>();
+
+	public BenchmarkRunner(int warmup, int iterations) {
+		this.warmup = warmup;
+		this.iterations = iterations;
+	}
+
+	/**
+	 * ִһ񲢼¼
+	 * @param name 
+	 * @param opsPerRun һrun()Ĳÿβʱ
+	 * @param task
+	 * @return
+	 */
+	public Result run(String name, long opsPerRun, Task task) {
+		double acc = 0;
+		for (int i = 0; i < warmup; i++) {
+			acc += task.run();
+		}
+		double[] nsPerOp = new double[iterations];
+		for (int i = 0; i < iterations; i++) {
+			long start = System.nanoTime();
+			acc += task.run();
+			nsPerOp[i] = (double)(System.nanoTime() - start) / opsPerRun;
+		}
+		sink += acc;
+		Result result = new Result(name, opsPerRun, nsPerOp);
+		results.add(result);
+		return result;
+	}
+
+	/**
+	 * ȡٷλȷ
+	 * @param sorted е
+	 * @param p ٷλ0~100
+	 * @return
+	 */
+	public static long percentile(long[] sorted, double p) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		int rank = (int)Math.ceil(p / 100 * sorted.length);
+		return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+	}
+
+	public List<Result> getResults() {
+		return results;
+	}
+
+	public void printResults() {
+		System.out.println(String.format("%-40s %14s %12s", "Benchmark", "ns/op", "stddev"));
+		for (Result r : results) {
+			System.out.println(String.format("%-40s %14.3f %12.3f", r.name, r.mean(), r.stddev()));
+		}
+		String json = System.getProperty("bench.json");
+		if (json != null) {
+			try {
+				writeJson(new File(json));
+				System.out.println("д" + json);
+			} catch (IOException e) {
+				System.out.println("д" + json + "ʧܣ" + e);
+			}
+		}
+	}
+
+	/**
+	 * ѽдJSONлÿƽֵ׼Сֵ͸ֺʱλ/
+	 * @param file
+	 * @throws IOException
+	 */
+	public void writeJson(File file) throws IOException {
+		Writer out = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		try {
+			out.write(toJson());
+		} finally {
+			out.close();
+		}
+	}
+
+	public String toJson() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("{\n");
+		sb.append("  \"timestamp\": ").append(System.currentTimeMillis()).append(",\n");
+		sb.append("  \"java\": ").append(quote(System.getProperty("java.version"))).append(",\n");
+		sb.append("  \"os\": ").append(quote(System.getProperty("os.name") + " " + System.getProperty("os.arch"))).append(",\n");
+		sb.append("  \"processors\": ").append(Runtime.getRuntime().availableProcessors()).append(",\n");
+		sb.append("  \"warmup\": ").append(warmup).append(",\n");
+		sb.append("  \"iterations\": ").append(iterations).append(",\n");
+		sb.append("  \"results\": [");
+		for (int i = 0; i < results.size(); i++) {
+			Result r = results.get(i);
+			sb.append(i == 0 ? "\n" : ",\n");
+			sb.append("    {\"name\": ").append(quote(r.name));
+			sb.append(", \"opsPerRun\": ").append(r.opsPerRun);
+			sb.append(", \"unit\": \"ns/op\"");
+			sb.append(", \"mean\": ").append(number(r.mean()));
+			sb.append(", \"stddev\": ").append(number(r.stddev()));
+			sb.append(", \"min\": ").append(number(r.min()));
+			sb.append(", \"samples\": [");
+			for (int j = 0; j < r.nsPerOp.length; j++) {
+				sb.append(j == 0 ? "" : ", ").append(number(r.nsPerOp[j]));
+			}
+			sb.append("]}");
+		}
+		sb.append("\n  ]\n}\n");
+		return sb.toString();
+	}
+
+	private static String number(double v) {
+		return Double.isNaN(v) || Double.isInfinite(v) ? "null" : String.format(Locale.US, "%.3f", v);
+	}
+
+	private static String quote(String s) {
+		StringBuilder sb = new StringBuilder("\"");
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c == '"' || c == '\\') {
+				sb.append('\\').append(c);
+			} else if (c < 0x20) {
+				sb.append(String.format("\\u%04x", (int)c));
+			} else {
+				sb.append(c);
+			}
+		}
+		return sb.append('"').toString();
+	}
+}
@@ -0,0 +1,71 @@
+package sde;
+
+import java.util.Random;
+
+/**
+ * ׼õĳг⳵λֲ80%ĵ㰴ֲ̬ڼȵ㸽ȷֲΧ
+ * @author Administrator
+ *
+ */
+public class CityPoints {
+
+	/**
+	 * 人ڡ
+	 */
+	public static final CityPoints WUHAN = new CityPoints("wuhan", 114.0, 30.3, 114.6, 30.8,
+			new double[][] { { 114.27, 30.59 }, { 114.31, 30.54 }, { 114.40, 30.50 } });
+
+	/**
+	 * Ͼ½ֿڡ
+	 */
+	public static final CityPoints NANJING = new CityPoints("nanjing", 118.5, 31.8, 119.1, 32.3,
+			new double[][] { { 118.78, 32.04 }, { 118.73, 32.01 }, { 118.72, 32.14 } });
+
+	/**
+	 * ȵı׼λ
+	 */
+	private static final double SIGMA = 0.03;
+
+	public final String name;
+	public final double minX;
+	public final double minY;
+	public final double maxX;
+	public final double maxY;
+	private final double[][] hotspots;
+
+	public CityPoints(String name, double minX, double minY, double maxX, double maxY, double[][] hotspots) {
+		this.name = name;
+		this.minX = minX;
+		this.minY = minY;
+		this.maxX = maxX;
+		this.maxY = maxY;
+		this.hotspots = hotspots;
+	}
+
+	/**
+	 * n㣬Χ
+	 * @param n
+	 * @param seed ӣͬӽͬ
+	 * @return {lons, lats}
+	 */
+	public double[][] generate(int n, long seed) {
+		Random random = new Random(seed);
+		double[] lons = new double[n];
+		double[] lats = new double[n];
+		for (int i = 0; i < n; i++) {
+			if (random.nextInt(5) == 0) {
+				lons[i] = minX + random.nextDouble() * (maxX - minX);
+				lats[i] = minY + random.nextDouble() * (maxY - minY);
+			} else {
+				double[] h = hotspots[random.nextInt(hotspots.length)];
+				lons[i] = Math.max(minX, Math.min(maxX, h[0] + random.nextGaussian() * SIGMA));
+				lats[i] = Math.max(minY, Math.min(maxY, h[1] + random.nextGaussian() * SIGMA));
+			}
+		}
+		return new double[][] { lons, lats };
+	}
+
+	public String toString() {
+		return name;
+	}
+}
@@ -0,0 +1,83 @@
+package sde;
+
+import com.esri.sde.sdk.client.SeCoordinateReference;
+import com.esri.sde.sdk.client.SeException;
+
+/**
+ * SpatialDataSourceԣ롢500׾βѯ10ڲѯ
+ * ĬʹýڵMemoryDataSourceArcSDE񣻲ΪsdeʱSdeConnection.getPool()ʵͼִͬĲѯ
+ * Уjava -cp bin sde.DataSourceBenchmark [memory|sde] []
+ * @author Administrator
+ *
+ */
+public class DataSourceBenchmark {
+
+	private static final String TABLE = "taxi_point_cloud";
+	private static final String ID_COLUMN = "OBJECTID";
+
+	public static void main(String[] args) throws SeException {
+		boolean live = args.length > 0 && "sde".equalsIgnoreCase(args[0]);
+		int n = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+		final int queries = 1000;
+
+		double[][] points = CityPoints.WUHAN.generate(n, 20140101L);
+		final double[] lons = points[0];
+		final double[] lats = points[1];
+		double[][] targets = CityPoints.WUHAN.generate(queries, 20140102L);
+		final double[] qLons = targets[0];
+		final double[] qLats = targets[1];
+
+		final SpatialDataSource source;
+		if (live) {
+			source = new JsdeDataSource(SdeConnection.getPool());
+		} else {
+			MemoryDataSource memory = new MemoryDataSource(250);
+			SeCoordinateReference cref = new SeCoordinateReference();
+			cref.setXY(-400, -400, 1000000000);
+			memory.createTable(TABLE, ID_COLUMN, cref, 30.55);
+			long start = System.nanoTime();
+			memory.insert(TABLE, lons, lats);
+			System.out.println(String.format("insert%dУ%.0f/", n, n / ((System.nanoTime() - start) / 1e9)));
+			source = memory;
+		}
+		System.out.println(source.stats(TABLE, ID_COLUMN));
+
+		BenchmarkRunner runner = new BenchmarkRunner(live ? 0 : 3, live ? 1 : 5);
+		final int[] hits = new int[1];
+		final SpatialDataSource.FeatureVisitor counter = new SpatialDataSource.FeatureVisitor() {
+			public void visit(long id, double x, double y) {
+				hits[0]++;
+			}
+		};
+		runner.run("envelopeQuery 500m", queries, new BenchmarkRunner.Task() {
+			public double run() {
+				try {
+					for (int i = 0; i < queries; i++) {
+						double[] box = LatLngUtil.envelope(qLons[i], qLats[i], 500);
+						source.envelopeQuery(TABLE, ID_COLUMN, box[0], box[1], box[2], box[3], counter);
+					}
+				} catch (SeException e) {
+					throw new IllegalStateException(e);
+				}
+				return hits[0];
+			}
+		});
+		runner.run("NearestNeighbors k=10", queries, new BenchmarkRunner.Task() {
+			public double run() {
+				double sum = 0;
+				try {
+					for (int i = 0; i < queries; i++) {
+						sum += NearestNeighbors.search(source, TABLE, ID_COLUMN, qLons[i], qLats[i], 10, 5000).getRadius();
+					}
+				} catch (SeException e) {
+					throw new IllegalStateException(e);
+				}
+				return sum;
+			}
+		});
+		runner.printResults();
+		if (live) {
+			SdeConnection.getPool().close();
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package sde;
+
+import java.util.Random;
+
+/**
+ * DistanceStrategy㷨ľȼʱ
+ * پȣȡ人ϾֲԼγȡ60ڵ㣬λͷֶڶȵľȡյ㣬
+ * ͳƸ㷨HAVERSINEgetMaxRelativeErrorķֶαFAILԷ״̬˳
+ * ںʱͬһdistanceһԶdistancesĺʱ
+ * Уjava -Dbench.json=distance.json -cp bin sde.DistanceStrategyBenchmark []
+ * @author Administrator
+ *
+ */
+public class DistanceStrategyBenchmark {
+
+	/**
+	 * ȼľֶΣλ
+	 */
+	private static final double[][] RANGES = { { 1, 1000 }, { 1000, 10000 }, { 10000, 100000 }, { 100000, 1000000 } };
+
+	public static void main(String[] args) {
+		final int n = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		DistanceStrategy[] strategies = DistanceStrategy.values();
+
+		boolean ok = true;
+		System.out.println("HAVERSINEʵ/ޣ");
+		for (int r = 0; r < RANGES.length; r++) {
+			double[][] pairs = pairs(n, RANGES[r][0], RANGES[r][1], 20140101L + r);
+			StringBuilder line = new StringBuilder();
+			line.append(String.format("%8.0f-%-8.0fm", RANGES[r][0], RANGES[r][1]));
+			for (DistanceStrategy s : strategies) {
+				double max = 0;
+				for (int i = 0; i < n; i++) {
+					double exact = LatLngUtil.sphereDistance(pairs[0][i], pairs[1][i], pairs[2][i], pairs[3][i]);
+					double d = s.distance(pairs[0][i], pairs[1][i], pairs[2][i], pairs[3][i]);
+					max = Math.max(max, Math.abs(d - exact) / exact);
+				}
+				double bound = s.getMaxRelativeError(RANGES[r][1]);
+				boolean pass = max <= bound;
+				ok &= pass;
+				line.append(String.format("  %s %.2e/%.1e%s", s.getName(), max, bound, pass ? "" : " FAIL"));
+			}
+			System.out.println(line);
+		}
+
+		//ʱ人ֲ
+		double[][] points = CityPoints.WUHAN.generate(n + 1, 20140101L);
+		final double[] lons = points[0];
+		final double[] lats = points[1];
+		final double[] out = new double[n + 1];
+		BenchmarkRunner runner = new BenchmarkRunner(5, 10);
+		for (final DistanceStrategy s : strategies) {
+			runner.run(s.getName() + " distance", n, new BenchmarkRunner.Task() {
+				public double run() {
+					double sum = 0;
+					for (int i = 0; i < n; i++) {
+						sum += s.distance(lons[i], lats[i], lons[i + 1], lats[i + 1]);
+					}
+					return sum;
+				}
+			});
+			runner.run(s.getName() + " distances 1:n", n + 1, new BenchmarkRunner.Task() {
+				public double run() {
+					s.distances(lons[0], lats[0], lons, lats, out);
+					return out[n];
+				}
+			});
+		}
+		runner.printResults();
+		if (!ok) {
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * nԣ[min,max)ڶȷֲ
+	 * @return {㾭, γ, յ㾭, յγ}
+	 */
+	private static double[][] pairs(int n, double min, double max, long seed) {
+		Random random = new Random(seed);
+		double[][] city = (seed & 1) == 0 ? CityPoints.WUHAN.generate(n, seed) : CityPoints.NANJING.generate(n, seed);
+		double[][] pairs = new double[4][n];
+		for (int i = 0; i < n; i++) {
+			double lon;
+			double lat;
+			if (i % 2 == 0) {
+				lon = city[0][i];
+				lat = city[1][i];
+			} else {
+				lon = -180 + random.nextDouble() * 360;
+				lat = -60 + random.nextDouble() * 120;
+			}
+			double meters = min * Math.pow(max / min, random.nextDouble());
+			double bearing = random.nextDouble() * 2 * Math.PI;
+			//
+			double delta = meters / LatLngUtil.RADIUS;
+			double phi1 = lat * Math.PI / 180.0;
+			double phi2 = Math.asin(Math.sin(phi1) * Math.cos(delta) + Math.cos(phi1) * Math.sin(delta) * Math.cos(bearing));
+			double lambda = Math.atan2(Math.sin(bearing) * Math.sin(delta) * Math.cos(phi1),
+					Math.cos(delta) - Math.sin(phi1) * Math.sin(phi2));
+			pairs[0][i] = lon;
+			pairs[1][i] = lat;
+			pairs[2][i] = lon + lambda * 180.0 / Math.PI;
+			pairs[3][i] = phi2 * 180.0 / Math.PI;
+		}
+		return pairs;
+	}
+}
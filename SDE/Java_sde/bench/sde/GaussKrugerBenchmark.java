@@ -0,0 +1,105 @@
+package sde;
+
+/**
+ * ˹ͶӰӿڵı/ں˶ԱȣԼGaussKruger㡢켣BlToGsĶԱ
+ * Уjava -cp bin sde.GaussKrugerBenchmark []
+ * @author Administrator
+ *
+ */
+public class GaussKrugerBenchmark {
+
+	public static void main(String[] args) {
+		final int n = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+
+		double[][] points = CityPoints.WUHAN.generate(n, 20140101L);
+		final double[] lons = points[0];
+		final double[] lats = points[1];
+		final double[] xs = new double[n];
+		final double[] ys = new double[n];
+		final double[] out = new double[n];
+
+		BenchmarkRunner runner = new BenchmarkRunner(10, 20);
+		for (int pass = 0; pass < 2; pass++) {
+			final boolean fast = pass == 1;
+			String suffix = fast ? "fast" : "scalar";
+			runner.run("BlToGs[] " + suffix, n, new BenchmarkRunner.Task() {
+				public double run() {
+					LatLngUtil.FAST_KERNEL = fast;
+					LatLngUtil.BlToGs(lons, lats, xs, ys);
+					return xs[xs.length - 1];
+				}
+			});
+			runner.run("GetDistance 1:n " + suffix, n, new BenchmarkRunner.Task() {
+				public double run() {
+					LatLngUtil.FAST_KERNEL = fast;
+					LatLngUtil.GetDistance(114.3, 30.6, lons, lats, out);
+					return out[out.length - 1];
+				}
+			});
+			runner.run("gps2m 1:n " + suffix, n, new BenchmarkRunner.Task() {
+				public double run() {
+					LatLngUtil.FAST_KERNEL = fast;
+					LatLngUtil.gps2m(114.3, 30.6, lons, lats, out);
+					return out[out.length - 1];
+				}
+			});
+		}
+		LatLngUtil.FAST_KERNEL = true;
+
+		final double[] lonLats = new double[2 * n];
+		for (int i = 0; i < n; i++) {
+			lonLats[2 * i] = lons[i];
+			lonLats[2 * i + 1] = lats[i];
+		}
+		final double[] xys = new double[2 * n];
+		final double[] back = new double[2 * n];
+		final int zone = GaussKruger.zoneOf(lonLats, 0, n);
+		runner.run("BlToGs per point", n, new BenchmarkRunner.Task() {
+			public double run() {
+				double sum = 0;
+				for (int i = 0; i < n; i++) {
+					sum += LatLngUtil.BlToGs(new LatLngUtil(lats[i], lons[i])).y;
+				}
+				return sum;
+			}
+		});
+		runner.run("GaussKruger.forward batch zone", n, new BenchmarkRunner.Task() {
+			public double run() {
+				GaussKruger.forward(lonLats, 0, n, xys, 0, zone);
+				return xys[xys.length - 1];
+			}
+		});
+		runner.run("GaussKruger.forward per point zone", n, new BenchmarkRunner.Task() {
+			public double run() {
+				GaussKruger.forward(lonLats, 0, n, xys, 0, GaussKruger.PER_POINT);
+				return xys[xys.length - 1];
+			}
+		});
+		runner.run("GaussKruger.inverse", n, new BenchmarkRunner.Task() {
+			public double run() {
+				GaussKruger.inverse(xys, 0, n, back, 0);
+				return back[back.length - 1];
+			}
+		});
+		//㵱һ켣һ
+		final LatLngUtil[] track = new LatLngUtil[n];
+		for (int i = 0; i < n; i++) {
+			track[i] = new LatLngUtil(lats[i], lons[i]);
+		}
+		runner.run("track length GetDistance per point", n - 1, new BenchmarkRunner.Task() {
+			public double run() {
+				double sum = 0;
+				for (int i = 1; i < n; i++) {
+					sum += LatLngUtil.GetDistance(track[i - 1], track[i]);
+				}
+				return sum;
+			}
+		});
+		runner.run("track length GaussKruger", n - 1, new BenchmarkRunner.Task() {
+			public double run() {
+				return GaussKruger.trajectoryLength(lonLats, 0, n);
+			}
+		});
+		runner.printResults();
+	}
+}
@@ -0,0 +1,109 @@
+package sde;
+
+import java.util.Arrays;
+
+/**
+ * kڲѯӳٷֲ人⳵ϽRTreeIndex
+ * k=1..50ֱѯɴΣÿβѯʱp50/p90/p99/maxλ΢룩
+ * ʱǰȰǰCHECK_QUERIESβѯĽȫɨȶԣ벻һʱFAILԷ״̬˳
+ * Уjava -cp bin sde.KnnBenchmark [] [ѯ]
+ * @author Administrator
+ *
+ */
+public class KnnBenchmark {
+
+	private static final int[] KS = {1, 5, 10, 20, 30, 40, 50};
+
+	/**
+	 * 뱩ɨȶԵĲѯ
+	 */
+	private static final int CHECK_QUERIES = 100;
+
+	private static final double MAX_METERS = 5000;
+
+	public static void main(String[] args) {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int queries = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+
+		double[][] points = CityPoints.WUHAN.generate(n, 20140101L);
+		double[] lons = points[0];
+		double[] lats = points[1];
+		long[] ids = new long[n];
+		for (int i = 0; i < n; i++) {
+			ids[i] = i + 1;
+		}
+		long start = System.nanoTime();
+		RTreeIndex index = RTreeIndex.build(lons, lats, ids);
+		System.out.println("" + n + "㣬" + (System.nanoTime() - start) / 1000000 + "ms");
+
+		double[][] targets = CityPoints.WUHAN.generate(queries, 20140102L);
+		double[] qLons = targets[0];
+		double[] qLats = targets[1];
+
+		boolean ok = check(index, lons, lats, ids, qLons, qLats, Math.min(CHECK_QUERIES, queries));
+
+		//Ԥ
+		double sink = 0;
+		for (int i = 0; i < queries; i++) {
+			sink += NearestNeighbors.search(index, qLons[i], qLats[i], 10, MAX_METERS).getRadius();
+		}
+
+		System.out.println(String.format("%4s %10s %10s %10s %10s %8s", "k", "p50(us)", "p90(us)", "p99(us)", "max(us)", "rounds"));
+		long[] micros = new long[queries];
+		for (int k : KS) {
+			long rounds = 0;
+			for (int i = 0; i < queries; i++) {
+				long t = System.nanoTime();
+				NearestNeighbors result = NearestNeighbors.search(index, qLons[i], qLats[i], k, MAX_METERS);
+				micros[i] = (System.nanoTime() - t) / 1000;
+				rounds += result.getRounds();
+				sink += result.getRadius();
+			}
+			Arrays.sort(micros);
+			System.out.println(String.format("%4d %10d %10d %10d %10d %8.2f", k,
+					BenchmarkRunner.percentile(micros, 50), BenchmarkRunner.percentile(micros, 90),
+					BenchmarkRunner.percentile(micros, 99), micros[queries - 1], (double)rounds / queries));
+		}
+		BenchmarkRunner.sink += sink;
+		if (!ok) {
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * ǰcountβѯÿk뱩ɨȶԣͬҰŵľͬ
+	 * @return Ƿȫһ
+	 */
+	private static boolean check(RTreeIndex index, double[] lons, double[] lats, long[] ids, double[] qLons,
+			double[] qLats, int count) {
+		int maxK = KS[KS.length - 1];
+		long[] expectedIds = new long[maxK];
+		double[] expected = new double[maxK];
+		NeighborHeap heap = new NeighborHeap(maxK);
+		int failures = 0;
+		for (int i = 0; i < count; i++) {
+			heap.clear();
+			for (int j = 0; j < lons.length; j++) {
+				double d = LatLngUtil.sphereDistance(qLons[i], qLats[i], lons[j], lats[j]);
+				if (d <= MAX_METERS) {
+					heap.offer(ids[j], d);
+				}
+			}
+			int found = heap.drain(expectedIds, expected);
+			for (int k : KS) {
+				NearestNeighbors result = NearestNeighbors.search(index, qLons[i], qLats[i], k, MAX_METERS);
+				int m = 0;
+				while (m < result.size() && m < found && result.getDistance(m) == expected[m]) {
+					m++;
+				}
+				if (result.size() != Math.min(k, found) || m < result.size()) {
+					failures++;
+					System.out.println(String.format("FAIL ѯ%d k=%dkNNҵ%dɨ%d%dľ벻һ", i, k,
+							result.size(), Math.min(k, found), m + 1));
+				}
+			}
+		}
+		System.out.println("뱩ɨȶԣ" + count + "βѯ" + KS.length + "k" + (failures == 0 ? "ȫһ" : failures + "һ"));
+		return failures == 0;
+	}
+}
@@ -0,0 +1,115 @@
+package sde;
+
+import com.esri.sde.sdk.client.SeCoordinateReference;
+import com.esri.sde.sdk.client.SeException;
+
+/**
+ * LatLngUtilSdeDaoθʱGetDistancegps2mm2gpsenvelopeBlToGsgenerateSeShapegenerateBufferSeShape
+ * ֱ人Ͼĳ⳵λֲϲһξ
+ * Уjava -Dbench.json=latlng.json -cp bin sde.LatLngUtilBenchmark []
+ * @author Administrator
+ *
+ */
+public class LatLngUtilBenchmark {
+
+	public static void main(String[] args) throws SeException {
+		final int n = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		//ɽֻȡǰһֵ
+		final int bufferCount = Math.max(1, n / 100);
+
+		final SeCoordinateReference cref = new SeCoordinateReference();
+		cref.setXY(-400, -400, 1000000000);
+		final double bufferDegrees = LatLngUtil.m2gps(500);
+
+		BenchmarkRunner runner = new BenchmarkRunner(5, 10);
+		CityPoints[] cities = { CityPoints.WUHAN, CityPoints.NANJING };
+		for (CityPoints city : cities) {
+			double[][] points = city.generate(n + 1, 20140101L);
+			final double[] lons = points[0];
+			final double[] lats = points[1];
+			final LatLngUtil[] latLngs = new LatLngUtil[n + 1];
+			final double[] meters = new double[n];
+			for (int i = 0; i <= n; i++) {
+				latLngs[i] = new LatLngUtil(lats[i], lons[i]);
+			}
+			for (int i = 0; i < n; i++) {
+				meters[i] = 100 + (i % 50) * 100;
+			}
+			String suffix = " " + city.name;
+
+			runner.run("GetDistance" + suffix, n, new BenchmarkRunner.Task() {
+				public double run() {
+					double sum = 0;
+					for (int i = 0; i < n; i++) {
+						sum += LatLngUtil.GetDistance(latLngs[i], latLngs[i + 1]);
+					}
+					return sum;
+				}
+			});
+			runner.run("gps2m" + suffix, n, new BenchmarkRunner.Task() {
+				public double run() {
+					double sum = 0;
+					for (int i = 0; i < n; i++) {
+						sum += LatLngUtil.gps2m(lons[i], lats[i], lons[i + 1], lats[i + 1]);
+					}
+					return sum;
+				}
+			});
+			runner.run("m2gps" + suffix, n, new BenchmarkRunner.Task() {
+				public double run() {
+					double sum = 0;
+					for (int i = 0; i < n; i++) {
+						sum += LatLngUtil.m2gps(meters[i]);
+					}
+					return sum;
+				}
+			});
+			final double[] box = new double[4];
+			runner.run("envelope" + suffix, n, new BenchmarkRunner.Task() {
+				public double run() {
+					double sum = 0;
+					for (int i = 0; i < n; i++) {
+						sum += LatLngUtil.envelope(lons[i], lats[i], meters[i], box)[2];
+					}
+					return sum;
+				}
+			});
+			runner.run("BlToGs" + suffix, n, new BenchmarkRunner.Task() {
+				public double run() {
+					double sum = 0;
+					for (int i = 0; i < n; i++) {
+						sum += LatLngUtil.BlToGs(latLngs[i]).x;
+					}
+					return sum;
+				}
+			});
+			runner.run("generateSeShape" + suffix, n, new BenchmarkRunner.Task() {
+				public double run() {
+					double sum = 0;
+					try {
+						for (int i = 0; i < n; i++) {
+							sum += SdeDao.generateSeShape(cref, lons[i], lats[i]).getNumOfPoints();
+						}
+					} catch (SeException e) {
+						throw new IllegalStateException(e);
+					}
+					return sum;
+				}
+			});
+			runner.run("generateBufferSeShape 500m" + suffix, bufferCount, new BenchmarkRunner.Task() {
+				public double run() {
+					double sum = 0;
+					try {
+						for (int i = 0; i < bufferCount; i++) {
+							sum += SdeDao.generateBufferSeShape(cref, lons[i], lats[i], bufferDegrees).getNumOfPoints();
+						}
+					} catch (SeException e) {
+						throw new IllegalStateException(e);
+					}
+					return sum;
+				}
+			});
+		}
+		runner.printResults();
+	}
+}
@@ -0,0 +1,99 @@
+package sde;
+
+import java.util.Random;
+
+/**
+ * ԱȣGridIndexRTreeIndexĹ500뾶ѯԼGridIndexƶģ¶λϱ
+ * 뾶ѯμˣGridIndex.radiusQueryΪͬһרʵ
+ * Уjava -cp bin sde.PointIndexBenchmark []
+ * @author Administrator
+ *
+ */
+public class PointIndexBenchmark {
+
+	public static void main(String[] args) {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		final int queries = 1000;
+
+		double[][] points = CityPoints.WUHAN.generate(n, 20140101L);
+		final double[] lons = points[0];
+		final double[] lats = points[1];
+		final long[] ids = new long[n];
+		for (int i = 0; i < n; i++) {
+			ids[i] = i + 1;
+		}
+		double[][] targets = CityPoints.WUHAN.generate(queries, 20140102L);
+		final double[] qLons = targets[0];
+		final double[] qLats = targets[1];
+
+		BenchmarkRunner runner = new BenchmarkRunner(3, 5);
+		runner.run("RTreeIndex.build", n, new BenchmarkRunner.Task() {
+			public double run() {
+				return RTreeIndex.build(lons, lats, ids).size();
+			}
+		});
+		runner.run("GridIndex.build 250m", n, new BenchmarkRunner.Task() {
+			public double run() {
+				return GridIndex.build(lons, lats, ids, 250).size();
+			}
+		});
+
+		final RTreeIndex rtree = RTreeIndex.build(lons, lats, ids);
+		final GridIndex grid = GridIndex.build(lons, lats, ids, 250);
+		runner.run("RTreeIndex search+sphere 500m", queries, new BenchmarkRunner.Task() {
+			public double run() {
+				double hits = 0;
+				for (int i = 0; i < queries; i++) {
+					hits += radiusCount(rtree, qLons[i], qLats[i], 500);
+				}
+				return hits;
+			}
+		});
+		runner.run("GridIndex search+sphere 500m", queries, new BenchmarkRunner.Task() {
+			public double run() {
+				double hits = 0;
+				for (int i = 0; i < queries; i++) {
+					hits += radiusCount(grid, qLons[i], qLats[i], 500);
+				}
+				return hits;
+			}
+		});
+		runner.run("GridIndex.radiusQuery 500m", queries, new BenchmarkRunner.Task() {
+			public double run() {
+				double hits = 0;
+				for (int i = 0; i < queries; i++) {
+					hits += grid.radiusQuery(qLons[i], qLats[i], 500).length;
+				}
+				return hits;
+			}
+		});
+		final Random moves = new Random(1);
+		runner.run("GridIndex.put (move)", queries, new BenchmarkRunner.Task() {
+			public double run() {
+				for (int i = 0; i < queries; i++) {
+					int k = moves.nextInt(ids.length);
+					grid.put(ids[k], lons[k] + (moves.nextDouble() - 0.5) * 0.01, lats[k] + (moves.nextDouble() - 0.5) * 0.01);
+				}
+				return grid.size();
+			}
+		});
+		runner.printResults();
+	}
+
+	/**
+	 * õİ뾶ѯμ
+	 * @return и
+	 */
+	private static int radiusCount(final PointIndex index, final double lon, final double lat, final double meters) {
+		final int[] hits = new int[1];
+		double[] box = LatLngUtil.envelope(lon, lat, meters);
+		index.search(box[0], box[1], box[2], box[3], new PointIndex.Visitor() {
+			public void visit(int item) {
+				if (LatLngUtil.sphereDistance(lon, lat, index.getX(item), index.getY(item)) <= meters) {
+					hits[0]++;
+				}
+			}
+		});
+		return hits[0];
+	}
+}
@@ -0,0 +1,234 @@
+package com.esri.sde.devhelp;
+
+import com.esri.sde.sdk.client.*;
+import java.io.*;
+import java.util.*;
+
+/**
+* Records the progress of a table copy in a local properties file so that a
+* failed copy can be restarted where it stopped.
+* <P>
+* For every partition the file holds the row id of the last committed row
+* and whether the partition has finished. The copy reads the source ordered by
+* row id and only asks for rows above the checkpoint, so rows that are already
+* in the destination are neither fetched nor inserted again.
+* <P>
+* The file is rewritten after every commit: the new content is written and
+* forced to disk in a temporary file, the old file is renamed to a
+* <code>.bak</code> file and the temporary file takes its place, so one complete
+* checkpoint exists at every moment. A process killed between a commit and the
+* rewrite leaves a batch in the destination that the file does not know about;
+* on restart {@link #recover(int, long, long)} moves the checkpoint past the
+* rows found in the destination with {@link #committedAfter}, so that batch is
+* not inserted twice.
+* <pre>
+*   partition.0.where=OBJECTID >= 1 AND OBJECTID < 125001
+*   partition.0.lastRowId=87000
+*   partition.0.rows=87000
+*   partition.1.done=true
+* </pre>
+*/
+public class CopyCheckpoint {
+
+    private final File file;
+    private final Properties props = new Properties();
+    private final boolean resumed;
+
+    /**
+    * Opens a checkpoint, reading it if the file exists.
+    * @param file          the checkpoint file.
+    * @param srcTableName  name of the source table.
+    * @param destTableName name of the destination table.
+    * @throws IllegalStateException if the file was written for another copy.
+    */
+    public CopyCheckpoint(File file, String srcTableName, String destTableName) throws IOException {
+
+        this.file = file;
+
+        /*
+        *   Without the file a save was interrupted between its two renames: the
+        *   temporary file is then complete and newer than the backup.
+        */
+        File bak = backupFile();
+        File tmp = tempFile();
+        File source = file.exists() ? file : ( bak.exists() ? ( tmp.exists() ? tmp : bak ) : null );
+        this.resumed = source != null;
+
+        if( resumed ) {
+            InputStream in = new FileInputStream(source);
+            try {
+                props.load(in);
+            } finally {
+                in.close();
+            }
+            if( !srcTableName.equalsIgnoreCase(props.getProperty("source"))
+                || !destTableName.equalsIgnoreCase(props.getProperty("destination")) )
+                throw new IllegalStateException("Checkpoint " + file + " belongs to the copy of "
+                    + props.getProperty("source") + " to " + props.getProperty("destination"));
+        } else {
+            props.setProperty("source", srcTableName);
+            props.setProperty("destination", destTableName);
+        }
+    }   //  End constructor
+
+    /**
+    * Whether the checkpoint was read from an existing file.
+    */
+    public boolean isResumed() {
+        return resumed;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+    * Checks that a partition is defined as in the run that wrote the checkpoint,
+    * or records its definition on the first run.
+    * @throws IllegalStateException if the partition was defined differently.
+    */
+    public synchronized void verifyPartition(int partition, String where) {
+
+        String key = "partition." + partition + ".where";
+        String stored = props.getProperty(key);
+        if( stored == null )
+            props.setProperty(key, where);
+        else if( !stored.equals(where) )
+            throw new IllegalStateException("Partition " + partition + " was \"" + stored
+                + "\" in checkpoint " + file + ", now \"" + where + "\"");
+    }
+
+    /**
+    * Returns the row id of the last committed row of a partition, or
+    * <code>Long.MIN_VALUE</code> if nothing was committed yet.
+    */
+    public synchronized long getLastRowId(int partition) {
+        String value = props.getProperty("partition." + partition + ".lastRowId");
+        return value == null ? Long.MIN_VALUE : Long.parseLong(value);
+    }
+
+    /**
+    * Returns the number of rows of a partition committed by all runs.
+    */
+    public synchronized long getRows(int partition) {
+        String value = props.getProperty("partition." + partition + ".rows");
+        return value == null ? 0 : Long.parseLong(value);
+    }
+
+    public synchronized boolean isDone(int partition) {
+        return "true".equals(props.getProperty("partition." + partition + ".done"));
+    }
+
+    /**
+    * Records a commit and rewrites the file.
+    * @param rows      rows of the partition committed by all runs.
+    * @param lastRowId row id of the last committed row.
+    */
+    public synchronized void committed(int partition, long rows, long lastRowId) {
+        props.setProperty("partition." + partition + ".lastRowId", String.valueOf(lastRowId));
+        props.setProperty("partition." + partition + ".rows", String.valueOf(rows));
+        save();
+    }
+
+    /**
+    * Takes into account rows found in the destination after the checkpoint of a
+    * partition, which were committed by a run that stopped before rewriting the
+    * file. Moves the checkpoint past them and rewrites the file.
+    * @param rows     number of such rows.
+    * @param maxRowId highest row id among them.
+    * @return whether the checkpoint changed.
+    */
+    public synchronized boolean recover(int partition, long rows, long maxRowId) {
+        if( rows <= 0 || maxRowId <= getLastRowId(partition) )
+            return false;
+        committed(partition, getRows(partition) + rows, maxRowId);
+        return true;
+    }
+
+    /**
+    * Counts the destination rows of a partition with a row id above
+    * <code>after</code> and returns their highest row id. Used on restart
+    * with {@link #recover(int, long, long)}.
+    * @param where       condition selecting the partition, may be empty.
+    * @param after       last row id of the checkpoint, or <code>Long.MIN_VALUE</code>.
+    * @return <code>{ rows, maxRowId }</code>.
+    */
+    public static long[] committedAfter(SeConnection destConn, String destTableName, String rowIdColumn
+                      , String where, long after) throws SeException {
+
+        if( after != Long.MIN_VALUE )
+            where = ( where.length() == 0 ? "" : where + " AND " ) + rowIdColumn + " > " + after;
+        SeSqlConstruct sqlCons = new SeSqlConstruct( destTableName, where );
+        SeQuery query = new SeQuery( destConn, new String[] { rowIdColumn }, sqlCons );
+        try {
+            SeQueryInfo queryInfo = new SeQueryInfo();
+            queryInfo.setColumns(new String[] { rowIdColumn });
+            queryInfo.setConstruct(sqlCons);
+            SeTable.SeTableStats stats = query.calculateTableStatistics(rowIdColumn
+                , SeTable.SeTableStats.SE_COUNT_STATS | SeTable.SeTableStats.SE_MAX_STATS, queryInfo, 0);
+            long rows = stats.getCount();
+            return new long[] { rows, rows == 0 ? after : (long)stats.getMax() };
+        } finally {
+            query.close();
+        }
+    }   //  End method committedAfter
+
+    /**
+    * Marks a partition as finished and rewrites the file.
+    */
+    public synchronized void done(int partition) {
+        props.setProperty("partition." + partition + ".done", "true");
+        save();
+    }
+
+    /**
+    * Deletes the file once the whole copy has succeeded.
+    */
+    public synchronized void delete() {
+        File[] files = { tempFile(), backupFile(), file };
+        for( int i = 0 ; i < files.length ; i++ )
+            if( files[i].exists() && !files[i].delete() )
+                System.out.println("\n Could not delete checkpoint " + files[i]);
+    }
+
+    /**
+    * Writes the checkpoint to a temporary file and forces it to disk, then
+    * renames the old file to the backup file and the temporary file to the
+    * checkpoint file. The old file is never deleted before its replacement is
+    * complete.
+    */
+    public synchronized void save() {
+
+        File tmp = tempFile();
+        File bak = backupFile();
+        try {
+            FileOutputStream out = new FileOutputStream(tmp);
+            try {
+                props.store(out, "Table copy checkpoint");
+                out.flush();
+                out.getFD().sync();
+            } finally {
+                out.close();
+            }
+            if( file.exists() ) {
+                if( bak.exists() && !bak.delete() )
+                    throw new IOException("Cannot delete " + bak);
+                if( !file.renameTo(bak) )
+                    throw new IOException("Cannot rename " + file + " to " + bak);
+            }
+            if( !tmp.renameTo(file) )
+                throw new IOException("Cannot rename " + tmp + " to " + file);
+        } catch ( IOException e ) {
+            throw new IllegalStateException("Cannot write checkpoint " + file, e);
+        }
+    }   //  End method save
+
+    private File tempFile() {
+        return new File(file.getPath() + ".tmp");
+    }
+
+    private File backupFile() {
+        return new File(file.getPath() + ".bak");
+    }
+
+}   //  End class CopyCheckpoint
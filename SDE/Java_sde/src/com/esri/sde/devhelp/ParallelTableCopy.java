@@ -0,0 +1,624 @@
+package com.esri.sde.devhelp;
+
+import com.esri.sde.sdk.client.*;
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import sde.ConnectionPool;
+
+/**
+* Copies the rows of an ArcSDE table or layer using several connections at once.
+* <P>
+* The source table is split into partitions, either by ranges of its ArcSDE
+* maintained row id column ({@link #PARTITION_BY_ROWID}) or by tiles of the
+* layer extent ({@link #PARTITION_BY_TILE}). Each partition is copied by its own
+* query/insert pair, on connections borrowed from the source and destination
+* pools, and commits every <code>batchSize</code> rows. Within a partition the
+* fetch and insert calls run on two threads connected by a {@link RowPipe}.
+* Progress, throughput and pipe statistics of every partition are printed
+* while the copy runs.
+* <P>
+* With a checkpoint file set, every partition is read in row id order and its
+* last committed row id is recorded after each commit; running the same copy
+* again after a failure skips finished partitions and resumes the others after
+* their checkpoint (see {@link CopyCheckpoint}).
+* <P>
+* The destination table must already exist, see {@link Util#createCopyTarget}.
+* <pre>
+*   ParallelTableCopy copy = new ParallelTableCopy(srcPool, destPool, "taxi_point_cloud", "taxi_copy");
+*   copy.setPartitions(16);
+*   copy.setThreads(4);
+*   copy.copy();
+* </pre>
+*/
+public class ParallelTableCopy {
+
+    /**
+    * Split the source by ranges of the registered row id column.
+    */
+    public static final int PARTITION_BY_ROWID = 0;
+
+    /**
+    * Split the source by tiles of the layer extent. A feature belongs to the
+    * tile containing the lower left corner of its envelope; neighbouring tiles
+    * share their edge coordinates, so every corner falls in exactly one tile.
+    * Features with a null or nil shape are not found by a spatial filter and
+    * are copied by an extra last partition that reads the whole table and keeps
+    * only them. The source must be a layer.
+    */
+    public static final int PARTITION_BY_TILE = 1;
+
+    /**
+    * Describes one partition of the source table and tracks its progress.
+    */
+    public static class Partition {
+
+        private final int index;
+        private final String where;
+        private final SeExtent tile;
+        private final boolean lastColumn;
+        private final boolean lastRow;
+        private final boolean noShape;
+
+        volatile long rows = 0;
+        long resumedRows = 0;
+        volatile PipelinedCopy pipeline = null;
+        volatile long startTime = 0;
+        volatile long endTime = 0;
+        volatile Exception error = null;
+
+        Partition(int index, String where, SeExtent tile, boolean lastColumn, boolean lastRow) {
+            this.index = index;
+            this.where = where;
+            this.tile = tile;
+            this.lastColumn = lastColumn;
+            this.lastRow = lastRow;
+            this.noShape = false;
+        }
+
+        /**
+        * Creates the partition copying the features without a shape in tile mode.
+        */
+        Partition(int index) {
+            this.index = index;
+            this.where = "";
+            this.tile = null;
+            this.lastColumn = false;
+            this.lastRow = false;
+            this.noShape = true;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public String getWhere() {
+            return where;
+        }
+
+        public SeExtent getTile() {
+            return tile;
+        }
+
+        public long getRows() {
+            PipelinedCopy running = pipeline;
+            return running != null && endTime == 0 ? resumedRows + running.getRowsCommitted() : rows;
+        }
+
+        /**
+        * Returns the definition of the partition recorded in a checkpoint.
+        */
+        String describe() {
+            if( noShape )
+                return "no shape";
+            if( tile == null )
+                return where;
+            return "tile " + tile.getMinX() + " " + tile.getMinY() + " " + tile.getMaxX() + " " + tile.getMaxY();
+        }
+
+        /**
+        * Returns the fetch/insert pipeline of the partition, null before it starts.
+        */
+        public PipelinedCopy getPipeline() {
+            return pipeline;
+        }
+
+        public Exception getError() {
+            return error;
+        }
+
+        public boolean isDone() {
+            return endTime != 0;
+        }
+
+        /**
+        * Whether the partition holds only the features without a shape.
+        */
+        public boolean isNoShape() {
+            return noShape;
+        }
+
+        /**
+        * Whether a feature with the given shape is copied by this partition.
+        */
+        boolean owns(SeShape shape) throws SeException {
+            boolean empty = shape == null || shape.isNil();
+            if( noShape )
+                return empty;
+            if( tile == null )
+                return true;
+            if( empty )
+                return false;
+            SeExtent extent = shape.getExtent();
+            double x = extent.getMinX();
+            double y = extent.getMinY();
+            return x >= tile.getMinX() && ( x < tile.getMaxX() || lastColumn )
+                && y >= tile.getMinY() && ( y < tile.getMaxY() || lastRow );
+        }
+
+        /**
+        * Returns the average copy rate of the partition in rows per second.
+        */
+        public double getRowsPerSecond() {
+            if( startTime == 0 )
+                return 0;
+            long end = endTime != 0 ? endTime : System.currentTimeMillis();
+            return getRows() * 1000.0 / Math.max(1, end - startTime);
+        }
+
+        public String toString() {
+            String state = error != null ? "failed" : ( isDone() ? "done" : ( startTime == 0 ? "waiting" : "running" ) );
+            PipelinedCopy running = pipeline;
+            return "partition " + index + " [" + state + "] rows=" + getRows()
+                + " rows/s=" + String.format("%.1f", getRowsPerSecond())
+                + ( running != null ? " " + running.getPipe() : "" );
+        }
+    }
+
+    private final ConnectionPool<SeConnection> srcPool;
+    private final ConnectionPool<SeConnection> destPool;
+    private final String srcTableName;
+    private final String destTableName;
+
+    private int partitionMode = PARTITION_BY_ROWID;
+    private int numPartitions = 8;
+    private int numThreads = 4;
+    private int batchSize = 1000;
+    private int bufferSize = PipelinedCopy.DEFAULT_BUFFER_SIZE;
+    private long progressInterval = 10000;
+    private File checkpointFile = null;
+
+    /**
+    * @param srcPool       pool of connections to the source server.
+    * @param destPool      pool of connections to the destination server.
+    * @param srcTableName  name of the source table.
+    * @param destTableName name of the (existing) destination table.
+    */
+    public ParallelTableCopy(ConnectionPool<SeConnection> srcPool, ConnectionPool<SeConnection> destPool
+                      , String srcTableName, String destTableName) {
+        this.srcPool = srcPool;
+        this.destPool = destPool;
+        this.srcTableName = srcTableName;
+        this.destTableName = destTableName;
+    }
+
+    /**
+    * @param partitionMode {@link #PARTITION_BY_ROWID} or {@link #PARTITION_BY_TILE}.
+    */
+    public void setPartitionMode(int partitionMode) {
+        this.partitionMode = partitionMode;
+    }
+
+    public void setPartitions(int numPartitions) {
+        this.numPartitions = numPartitions;
+    }
+
+    /**
+    * Sets the number of partitions copied at the same time. Each running
+    * partition holds one source and one destination connection.
+    */
+    public void setThreads(int numThreads) {
+        this.numThreads = numThreads;
+    }
+
+    /**
+    * Sets the number of rows inserted between two commits.
+    */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+    * Sets the number of rows buffered between the fetch and insert stages of
+    * each partition.
+    */
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+    * Sets the interval, in milliseconds, between two progress reports.
+    */
+    public void setProgressInterval(long progressInterval) {
+        this.progressInterval = progressInterval;
+    }
+
+    /**
+    * Sets the file recording the progress of the copy, null (the default)
+    * for no checkpointing. The source must have a registered row id column.
+    */
+    public void setCheckpointFile(File checkpointFile) {
+        this.checkpointFile = checkpointFile;
+    }
+
+    /**
+    * Copies all partitions and waits for them to finish.
+    * @return the partitions with their final statistics.
+    * @throws Exception the first error raised by a partition, after all
+    * partitions have stopped.
+    */
+    public List<Partition> copy() throws Exception {
+
+        final CopyContext context;
+        final List<Partition> partitions;
+        final CopyCheckpoint checkpoint = checkpointFile == null ? null
+            : new CopyCheckpoint(checkpointFile, srcTableName, destTableName);
+
+        SeConnection srcConn = srcPool.borrow();
+        try {
+            context = new CopyContext(srcConn);
+            if( checkpoint != null )
+                context.resolveRowId(srcConn);
+            partitions = planPartitions(srcConn, context);
+        } finally {
+            srcPool.release(srcConn);
+        }
+
+        if( checkpoint != null ) {
+            for( Partition partition : partitions ) {
+                checkpoint.verifyPartition(partition.index, partition.describe());
+                partition.resumedRows = checkpoint.getRows(partition.index);
+                partition.rows = partition.resumedRows;
+                if( checkpoint.isDone(partition.index) )
+                    partition.startTime = partition.endTime = System.currentTimeMillis();
+            }
+            checkpoint.save();
+        }
+
+        /*
+        *   The destination coordinate reference is read once and shared.
+        */
+        SeConnection destConn = destPool.borrow();
+        try {
+            if( context.shapeIndex >= 0 )
+                context.cref = new SeLayer(destConn, destTableName, "SHAPE").getCoordRef();
+            if( checkpoint != null )
+                for( Partition partition : partitions )
+                    if( !partition.isDone() )
+                        recover(destConn, context, partition, checkpoint);
+        } finally {
+            destPool.release(destConn);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        long start = System.currentTimeMillis();
+        try {
+            for( final Partition partition : partitions ) {
+                if( partition.isDone() )
+                    continue;
+                executor.execute(new Runnable() {
+                    public void run() {
+                        try {
+                            copyPartition(context, partition, checkpoint);
+                        } catch ( Exception e ) {
+                            partition.error = e;
+                            if( e instanceof SeException )
+                                Util.printError((SeException)e);
+                            else
+                                e.printStackTrace();
+                        } finally {
+                            partition.endTime = System.currentTimeMillis();
+                        }
+                    }
+                });
+            }
+            executor.shutdown();
+            while( !executor.awaitTermination(progressInterval, TimeUnit.MILLISECONDS) )
+                printProgress(partitions, start);
+        } finally {
+            executor.shutdownNow();
+        }
+        printProgress(partitions, start);
+
+        for( Partition partition : partitions )
+            if( partition.error != null )
+                throw partition.error;
+
+        if( checkpoint != null )
+            checkpoint.delete();
+
+        return partitions;
+    }   //  End method copy
+
+
+
+
+    /**
+    * Column layout of the source table, shared by all partitions.
+    */
+    private class CopyContext {
+
+        final SeColumnDefinition[] colDefs;
+        final String[] cols;
+        int shapeIndex = -1;
+        String spatialColumn = null;
+        SeCoordinateReference cref = null;
+        String rowIdColumn = null;
+        int rowIdIndex = -1;
+
+        CopyContext(SeConnection srcConn) throws SeException {
+            colDefs = srcPool.getMetadataCache().getColumns(srcConn, srcTableName);
+            cols = new String[colDefs.length];
+            for( int i = 0 ; i < colDefs.length ; i++ ) {
+                cols[i] = colDefs[i].getName();
+                if( colDefs[i].getType() == SeColumnDefinition.TYPE_SHAPE ) {
+                    shapeIndex = i;
+                    spatialColumn = cols[i];
+                }
+            }
+        }
+
+        /**
+        * Looks up the registered row id column, which orders a checkpointed copy.
+        */
+        void resolveRowId(SeConnection srcConn) throws SeException {
+            rowIdColumn = srcPool.getMetadataCache().getRegistration(srcConn, srcTableName).getRowIdColumnName();
+            for( int i = 0 ; i < cols.length ; i++ )
+                if( cols[i].equalsIgnoreCase(rowIdColumn) )
+                    rowIdIndex = i;
+            if( rowIdIndex < 0 )
+                throw new IllegalStateException(srcTableName + " has no registered row id column");
+        }
+    }
+
+
+
+
+    /**
+    * Splits the source table into partitions.
+    */
+    List<Partition> planPartitions(SeConnection srcConn, CopyContext context) throws SeException {
+
+        List<Partition> partitions = new ArrayList<Partition>();
+
+        if( partitionMode == PARTITION_BY_TILE ) {
+
+            if( context.shapeIndex < 0 )
+                throw new IllegalStateException(srcTableName + " has no spatial column, it cannot be split by tiles");
+
+            SeExtent extent = new SeLayer(srcConn, srcTableName, context.spatialColumn).getExtent();
+            int columns = (int)Math.ceil(Math.sqrt(numPartitions));
+            int rows = (int)Math.ceil((double)numPartitions / columns);
+
+            /*
+            *   Every edge is computed once and shared by the two tiles on either
+            *   side of it, so that their bounds compare exactly.
+            */
+            double[] xs = edges(extent.getMinX(), extent.getMaxX(), columns);
+            double[] ys = edges(extent.getMinY(), extent.getMaxY(), rows);
+
+            for( int r = 0 ; r < rows ; r++ )
+                for( int c = 0 ; c < columns ; c++ )
+                    partitions.add(new Partition(partitions.size(), "", new SeExtent(xs[c], ys[r], xs[c + 1], ys[r + 1])
+                        , c == columns - 1, r == rows - 1));
+
+            partitions.add(new Partition(partitions.size()));
+
+        } else {
+
+            String rowIdColumn = srcPool.getMetadataCache().getRegistration(srcConn, srcTableName).getRowIdColumnName();
+            if( rowIdColumn == null || rowIdColumn.length() == 0 )
+                throw new IllegalStateException(srcTableName + " has no registered row id column");
+
+            SeSqlConstruct sqlCons = new SeSqlConstruct( srcTableName );
+            SeQuery query = new SeQuery( srcConn, new String[] { rowIdColumn }, sqlCons );
+            SeTable.SeTableStats stats;
+            try {
+                SeQueryInfo queryInfo = new SeQueryInfo();
+                queryInfo.setConstruct(sqlCons);
+                stats = query.calculateTableStatistics(rowIdColumn
+                    , SeTable.SeTableStats.SE_MIN_STATS | SeTable.SeTableStats.SE_MAX_STATS, queryInfo, 0);
+            } finally {
+                query.close();
+            }
+
+            long min = (long)stats.getMin();
+            long max = (long)stats.getMax();
+            long step = Math.max(1, ( max - min + numPartitions ) / numPartitions);
+
+            for( long lo = min ; lo <= max ; lo += step ) {
+                long hi = Math.min(lo + step, max + 1);
+                String where = rowIdColumn + " >= " + lo + " AND " + rowIdColumn + " < " + hi;
+                partitions.add(new Partition(partitions.size(), where, null, true, true));
+            }
+        }
+
+        return partitions;
+    }   //  End method planPartitions
+
+    /**
+    * Splits [min, max] into <code>n</code> equal intervals and returns their
+    * <code>n + 1</code> bounds; the last one is <code>max</code> itself.
+    */
+    private static double[] edges(double min, double max, int n) {
+        double[] edges = new double[n + 1];
+        double step = ( max - min ) / n;
+        for( int i = 0 ; i < n ; i++ )
+            edges[i] = min + i * step;
+        edges[n] = max;
+        return edges;
+    }
+
+
+
+
+    /**
+    * Moves the checkpoint of a partition past destination rows committed by a
+    * run that stopped before it could record them, so they are not copied twice.
+    */
+    void recover(SeConnection destConn, CopyContext context, Partition partition, CopyCheckpoint checkpoint)
+                 throws SeException {
+
+        long after = checkpoint.getLastRowId(partition.index);
+        long[] found;
+        if( partition.tile == null && !partition.noShape ) {
+            found = CopyCheckpoint.committedAfter(destConn, destTableName, context.rowIdColumn, partition.where, after);
+        } else {
+            /*
+            *   Tiles and missing shapes are not SQL conditions: scan the
+            *   destination (only the tile, if any) and keep the rows the
+            *   partition owns.
+            */
+            found = new long[] { 0, after };
+            String where = after == Long.MIN_VALUE ? "" : context.rowIdColumn + " > " + after;
+            SeSqlConstruct sqlCons = new SeSqlConstruct( destTableName, where );
+            SeQuery query = new SeQuery( destConn );
+            try {
+                SeQueryInfo queryInfo = new SeQueryInfo();
+                queryInfo.setColumns(new String[] { context.rowIdColumn, context.spatialColumn });
+                queryInfo.setConstruct(sqlCons);
+                query.prepareQueryInfo(queryInfo);
+                if( partition.tile != null ) {
+                    SeShape shape = new SeShape( context.cref );
+                    shape.generateRectangle(partition.tile);
+                    SeFilter[] filters = { new SeShapeFilter(destTableName, context.spatialColumn, shape, SeShapeFilter.METHOD_ENVP) };
+                    query.setSpatialConstraints(SeQuery.SE_OPTIMIZE, false, filters);
+                }
+                query.execute();
+                SeRow row;
+                while( ( row = query.fetch() ) != null ) {
+                    if( !partition.owns(row.getShape(1)) )
+                        continue;
+                    found[0]++;
+                    found[1] = Math.max(found[1], ((Number)row.getObject(0)).longValue());
+                }
+            } finally {
+                query.close();
+            }
+        }
+
+        if( checkpoint.recover(partition.index, found[0], found[1]) ) {
+            System.out.println("\n Partition " + partition.index + ": " + found[0]
+                + " rows committed after the checkpoint, resuming after row id " + found[1]);
+            partition.resumedRows = checkpoint.getRows(partition.index);
+            partition.rows = partition.resumedRows;
+        }
+    }   //  End method recover
+
+
+
+
+    /**
+    * Copies one partition on its own pair of connections, after the rows
+    * recorded in <code>checkpoint</code> if it is not null.
+    */
+    void copyPartition(CopyContext context, final Partition partition, final CopyCheckpoint checkpoint) throws Exception {
+
+        SeConnection srcConn = srcPool.borrow();
+        SeConnection destConn = null;
+        SeQuery query = null;
+        SeInsert insert = null;
+
+        try {
+            destConn = destPool.borrow();
+            partition.startTime = System.currentTimeMillis();
+
+            String where = partition.where;
+            if( checkpoint != null ) {
+                long lastRowId = checkpoint.getLastRowId(partition.index);
+                if( lastRowId != Long.MIN_VALUE )
+                    where = ( where.length() == 0 ? "" : where + " AND " ) + context.rowIdColumn + " > " + lastRowId;
+            }
+
+            SeSqlConstruct sqlCons = new SeSqlConstruct( srcTableName, where );
+            query = new SeQuery( srcConn );
+            SeQueryInfo queryInfo = new SeQueryInfo();
+            queryInfo.setColumns(context.cols);
+            queryInfo.setConstruct(sqlCons);
+            if( checkpoint != null )
+                queryInfo.setByClause(" ORDER BY " + context.rowIdColumn);
+            query.prepareQueryInfo(queryInfo);
+            if( partition.tile != null ) {
+                SeShape shape = new SeShape( srcPool.getMetadataCache().getCoordRef(srcConn, srcTableName) );
+                shape.generateRectangle(partition.tile);
+                SeFilter[] filters = { new SeShapeFilter(srcTableName, context.spatialColumn, shape, SeShapeFilter.METHOD_ENVP) };
+                query.setSpatialConstraints(SeQuery.SE_OPTIMIZE, false, filters);
+            }
+            query.execute();
+
+            insert = new SeInsert(destConn);
+            insert.intoTable(destTableName, context.cols);
+            insert.setWriteMode(true);
+
+            final int shapeIndex = context.shapeIndex;
+            PipelinedCopy pipeline = new PipelinedCopy(query, destConn, insert, context.colDefs, context.cref, bufferSize) {
+                protected boolean accept(SeRow row) throws SeException {
+                    return ( partition.tile == null && !partition.noShape ) || partition.owns(row.getShape(shapeIndex));
+                }
+                protected void committed(long rows, long lastKey) {
+                    if( checkpoint != null )
+                        checkpoint.committed(partition.index, partition.resumedRows + rows, lastKey);
+                }
+            };
+            pipeline.setBatchSize(batchSize);
+            if( checkpoint != null )
+                pipeline.setKeyColumn(context.rowIdIndex);
+            partition.pipeline = pipeline;
+            try {
+                pipeline.run();
+            } finally {
+                partition.rows = partition.resumedRows + pipeline.getRowsCommitted();
+            }
+            if( checkpoint != null )
+                checkpoint.done(partition.index);
+
+        } catch ( Exception e ) {
+            if( destConn != null ) {
+                try {
+                    destConn.rollbackTransaction();
+                } catch ( SeException re ) {
+                    Util.printError(re);
+                }
+            }
+            throw e;
+        } finally {
+            if( insert != null )
+                insert.close();
+            if( query != null )
+                query.close();
+            if( destConn != null )
+                destPool.release(destConn);
+            srcPool.release(srcConn);
+        }
+    }   //  End method copyPartition
+
+
+
+
+    /**
+    * Prints the progress and throughput of every partition.
+    */
+    private static void printProgress(List<Partition> partitions, long start) {
+
+        long total = 0;
+        for( Partition partition : partitions ) {
+            System.out.println(" " + partition);
+            total += partition.getRows();
+        }
+        long elapsed = Math.max(1, System.currentTimeMillis() - start);
+        System.out.println(" total rows=" + total + " elapsed=" + ( elapsed / 1000 ) + "s rows/s="
+            + String.format("%.1f", total * 1000.0 / elapsed));
+    }   //  End method printProgress
+
+}   //  End class ParallelTableCopy
@@ -0,0 +1,272 @@
+package com.esri.sde.devhelp;
+
+import com.esri.sde.sdk.client.*;
+
+/**
+* Copies the rows of an executed query into an insert stream with the fetch
+* and insert calls running on two threads.
+* <P>
+* A reader thread fetches rows from the query and copies their values into a
+* {@link RowPipe}; the calling thread takes them from the pipe, sets them on
+* the insert row and executes the insert. The two connections therefore work
+* at the same time instead of waiting for each other. The pipe is bounded, so a
+* slow destination stops the reader once <code>bufferSize</code> rows are
+* waiting.
+* <P>
+* The source connection is used by the reader thread while {@link #run()} is
+* active, so its concurrency policy must allow calls from another thread.
+* <P>
+* After the copy, the time each stage spent working and waiting on the other
+* is available from the getters and {@link #toString()}: a reader that waits
+* a lot means the destination is the bottleneck, a writer that waits a lot
+* means the source is.
+*/
+public class PipelinedCopy {
+
+    public static final int DEFAULT_BUFFER_SIZE = 512;
+
+    private final SeQuery query;
+    private final SeConnection destConn;
+    private final SeInsert insert;
+    private final SeCoordinateReference cref;
+    private final RowPipe pipe;
+
+    private int batchSize = 0;
+    private int keyIndex = -1;
+
+    private volatile long rowsRead = 0;
+    private volatile long rowsCommitted = 0;
+    private long readNanos = 0;
+    private long writeNanos = 0;
+    private long commitNanos = 0;
+    private long elapsedNanos = 0;
+
+    /**
+    * @param query      executed query on the source connection.
+    * @param destConn   destination connection, used for the commits.
+    * @param insert     insert stream on <code>destConn</code>, with the same columns as the query.
+    * @param colDefs    definitions of the query columns.
+    * @param cref       coordinate reference set on copied shapes.
+    * @param bufferSize number of rows buffered between the two stages.
+    */
+    public PipelinedCopy(SeQuery query, SeConnection destConn, SeInsert insert
+                      , SeColumnDefinition[] colDefs, SeCoordinateReference cref, int bufferSize) {
+        this.query = query;
+        this.destConn = destConn;
+        this.insert = insert;
+        this.cref = cref;
+        this.pipe = new RowPipe(bufferSize, RowDecoder.compile(colDefs));
+    }
+
+    /**
+    * Sets the number of rows inserted between two commits. With the default
+    * of 0 the writer does not manage transactions and only flushes the insert
+    * buffer at the end.
+    */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+    * Sets the column, given by its index in <code>colDefs</code>, whose value of
+    * the last inserted row is passed to {@link #committed(long, long)}. The
+    * column must hold integers.
+    */
+    public void setKeyColumn(int keyIndex) {
+        this.keyIndex = keyIndex;
+    }
+
+    /**
+    * Called by the writer after every commit, does nothing by default.
+    * @param rows    rows committed so far.
+    * @param lastKey key column value of the last committed row, or
+    *                <code>Long.MIN_VALUE</code> without a key column.
+    */
+    protected void committed(long rows, long lastKey) throws SeException {
+    }
+
+    /**
+    * Whether a fetched row is copied. Copies every row by default.
+    */
+    protected boolean accept(SeRow row) throws SeException {
+        return true;
+    }
+
+    /**
+    * Copies all remaining rows of the query.
+    * @return the number of rows inserted.
+    * @throws SeException the error raised by either stage.
+    * @throws InterruptedException if the calling thread is interrupted.
+    */
+    public long run() throws SeException, InterruptedException {
+
+        final Exception[] readError = new Exception[1];
+
+        Thread reader = new Thread("sde-copy-reader") {
+            public void run() {
+                try {
+                    read();
+                } catch ( Exception e ) {
+                    readError[0] = e;
+                } finally {
+                    pipe.close();
+                }
+            }
+        };
+
+        long start = System.nanoTime();
+        reader.start();
+        try {
+            write();
+        } catch ( SeException e ) {
+            pipe.abort();
+            throw e;
+        } catch ( InterruptedException e ) {
+            pipe.abort();
+            throw e;
+        } catch ( RuntimeException e ) {
+            pipe.abort();
+            throw e;
+        } finally {
+            reader.join();
+            elapsedNanos = System.nanoTime() - start;
+        }
+
+        if( readError[0] instanceof SeException )
+            throw (SeException)readError[0];
+        if( readError[0] instanceof InterruptedException )
+            throw (InterruptedException)readError[0];
+        if( readError[0] != null )
+            throw (RuntimeException)readError[0];
+
+        return rowsCommitted;
+    }   //  End method run
+
+
+
+
+    /**
+    * Reader stage: fetches rows and publishes them to the pipe.
+    */
+    private void read() throws SeException, InterruptedException {
+
+        long busy = 0;
+        long t = System.nanoTime();
+        SeRow fetchedRow = query.fetch();
+
+        while ( fetchedRow != null ) {
+            if( accept(fetchedRow) ) {
+                busy += System.nanoTime() - t;
+                RowPipe.RowHolder holder = pipe.claim();
+                t = System.nanoTime();
+                holder.read(fetchedRow);
+                pipe.publish();
+                rowsRead++;
+            }
+            fetchedRow = query.fetch();
+        }
+        busy += System.nanoTime() - t;
+        readNanos = busy;
+    }   //  End method read
+
+
+
+
+    /**
+    * Writer stage: takes rows from the pipe and inserts them, committing
+    * every <code>batchSize</code> rows.
+    */
+    private void write() throws SeException, InterruptedException {
+
+        int pending = 0;
+        long written = 0;
+        long lastKey = Long.MIN_VALUE;
+        RowPipe.RowHolder holder;
+
+        if( batchSize > 0 )
+            destConn.startTransaction();
+
+        while ( ( holder = pipe.take() ) != null ) {
+            long t = System.nanoTime();
+            if( keyIndex >= 0 )
+                lastKey = holder.getDecoder().getLong(keyIndex);
+            holder.write(insert.getRowToSet(), cref);
+            pipe.release();
+            insert.execute();
+            written++;
+            writeNanos += System.nanoTime() - t;
+
+            if( batchSize > 0 && ++pending == batchSize ) {
+                t = System.nanoTime();
+                insert.flushBufferedWrites();
+                destConn.commitTransaction();
+                destConn.startTransaction();
+                commitNanos += System.nanoTime() - t;
+                rowsCommitted += pending;
+                pending = 0;
+                committed(rowsCommitted, lastKey);
+            }
+        }
+
+        long t = System.nanoTime();
+        insert.flushBufferedWrites();
+        if( batchSize > 0 )
+            destConn.commitTransaction();
+        commitNanos += System.nanoTime() - t;
+        rowsCommitted = written;
+        if( batchSize > 0 && pending > 0 )
+            committed(rowsCommitted, lastKey);
+    }   //  End method write
+
+
+
+
+    public RowPipe getPipe() {
+        return pipe;
+    }
+
+    /**
+    * Returns the number of rows fetched and handed to the writer so far.
+    */
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    /**
+    * Returns the number of rows committed so far.
+    */
+    public long getRowsCommitted() {
+        return rowsCommitted;
+    }
+
+    /**
+    * Returns the time, in milliseconds, the reader spent fetching rows.
+    */
+    public long getReadMillis() {
+        return readNanos / 1000000;
+    }
+
+    /**
+    * Returns the time, in milliseconds, the writer spent inserting rows.
+    */
+    public long getWriteMillis() {
+        return writeNanos / 1000000;
+    }
+
+    /**
+    * Returns the time, in milliseconds, the writer spent flushing and committing.
+    */
+    public long getCommitMillis() {
+        return commitNanos / 1000000;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedNanos / 1000000;
+    }
+
+    public String toString() {
+        return "rows=" + rowsCommitted + " elapsed=" + getElapsedMillis() + "ms read=" + getReadMillis()
+            + "ms write=" + getWriteMillis() + "ms commit=" + getCommitMillis() + "ms " + pipe;
+    }
+
+}   //  End class PipelinedCopy
@@ -0,0 +1,345 @@
+package com.esri.sde.devhelp;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+* Sorts primitive <code>int</code> or <code>long</code> keys and returns the
+* sorting permutation, so that rows stored in parallel arrays (or a Vector)
+* can be reordered by it.
+* <P>
+* Large inputs are sorted with a least significant digit radix sort over 8
+* bit digits; passes whose digit is the same for every key are skipped, so
+* keys spanning a small range cost fewer passes. Inputs of at most
+* {@link #INSERTION_SORT_THRESHOLD} keys use insertion sort. Keys may be
+* negative, sparse and repeated; the sort is stable, i.e. rows with equal
+* keys keep their relative order.
+* <pre>
+*   int[] order = RadixSort.sort(objectIds);
+*   for( int i = 0 ; i < order.length ; i++ )
+*       process( rows[order[i]] );
+* </pre>
+* {@link #parallelSort(long[], int)} splits every pass over several threads
+* and is meant for results of millions of rows.
+*/
+public class RadixSort {
+
+    /**
+    * Inputs up to this size are sorted with insertion sort.
+    */
+    public static final int INSERTION_SORT_THRESHOLD = 64;
+
+    /**
+    * Inputs below this size are sorted on the calling thread by the parallel sorts.
+    */
+    public static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    private static final int RADIX = 256;
+
+
+
+
+    /**
+    * Returns the permutation sorting <code>keys</code> in ascending order:
+    * <code>keys[order[0]] <= keys[order[1]] <= ...</code>. The keys are not modified.
+    */
+    public static int[] sort(int[] keys) {
+
+        int n = keys.length;
+        int[] order = identity(n);
+        int[] k = new int[n];
+        for( int i = 0 ; i < n ; i++ )
+            k[i] = keys[i] ^ Integer.MIN_VALUE;
+
+        if( n <= INSERTION_SORT_THRESHOLD ) {
+            insertionSort(k, order);
+            return order;
+        }
+
+        /*
+        *   Count all four digits in one read of the keys.
+        */
+        int[][] counts = new int[4][RADIX];
+        for( int i = 0 ; i < n ; i++ ) {
+            int key = k[i];
+            counts[0][key & 0xFF]++;
+            counts[1][(key >>> 8) & 0xFF]++;
+            counts[2][(key >>> 16) & 0xFF]++;
+            counts[3][key >>> 24]++;
+        }
+
+        int[] kTmp = new int[n];
+        int[] oTmp = new int[n];
+
+        for( int pass = 0, shift = 0 ; pass < 4 ; pass++, shift += 8 ) {
+            int[] offsets = counts[pass];
+            if( !toOffsets(offsets, n) )
+                continue;
+            for( int i = 0 ; i < n ; i++ ) {
+                int key = k[i];
+                int pos = offsets[(key >>> shift) & 0xFF]++;
+                kTmp[pos] = key;
+                oTmp[pos] = order[i];
+            }
+            int[] t = k; k = kTmp; kTmp = t;
+            t = order; order = oTmp; oTmp = t;
+        }
+        return order;
+    }   //  End method sort
+
+
+
+
+    /**
+    * Returns the permutation sorting <code>keys</code> in ascending order.
+    * The keys are not modified.
+    */
+    public static int[] sort(long[] keys) {
+
+        int n = keys.length;
+        int[] order = identity(n);
+        long[] k = new long[n];
+        for( int i = 0 ; i < n ; i++ )
+            k[i] = keys[i] ^ Long.MIN_VALUE;
+
+        if( n <= INSERTION_SORT_THRESHOLD ) {
+            insertionSort(k, order);
+            return order;
+        }
+
+        int[][] counts = new int[8][RADIX];
+        for( int i = 0 ; i < n ; i++ ) {
+            long key = k[i];
+            for( int pass = 0 ; pass < 8 ; pass++ )
+                counts[pass][(int)(key >>> (pass << 3)) & 0xFF]++;
+        }
+
+        long[] kTmp = new long[n];
+        int[] oTmp = new int[n];
+
+        for( int pass = 0, shift = 0 ; pass < 8 ; pass++, shift += 8 ) {
+            int[] offsets = counts[pass];
+            if( !toOffsets(offsets, n) )
+                continue;
+            for( int i = 0 ; i < n ; i++ ) {
+                long key = k[i];
+                int pos = offsets[(int)(key >>> shift) & 0xFF]++;
+                kTmp[pos] = key;
+                oTmp[pos] = order[i];
+            }
+            long[] t = k; k = kTmp; kTmp = t;
+            int[] o = order; order = oTmp; oTmp = o;
+        }
+        return order;
+    }   //  End method sort
+
+
+
+
+    /**
+    * Parallel version of {@link #sort(int[])}.
+    * @param threads number of threads to use.
+    */
+    public static int[] parallelSort(int[] keys, int threads) {
+
+        if( keys.length < PARALLEL_THRESHOLD || threads < 2 )
+            return sort(keys);
+
+        long[] wide = new long[keys.length];
+        for( int i = 0 ; i < keys.length ; i++ )
+            wide[i] = keys[i];
+        return parallelSort(wide, threads, 4);
+    }
+
+    /**
+    * Parallel version of {@link #sort(long[])}.
+    * @param threads number of threads to use.
+    */
+    public static int[] parallelSort(long[] keys, int threads) {
+
+        if( keys.length < PARALLEL_THRESHOLD || threads < 2 )
+            return sort(keys);
+
+        return parallelSort(keys, threads, 8);
+    }
+
+
+
+
+    /**
+    * Sorts on a pool of threads. Each pass splits the rows into one chunk per
+    * thread; the chunks count their digits, the counts are turned into
+    * per-chunk output offsets, and every chunk scatters its rows. Chunk order
+    * is kept, which keeps the sort stable.
+    * @param bytes number of low order bytes of the keys that can differ.
+    */
+    private static int[] parallelSort(long[] keys, int threads, final int bytes) {
+
+        final int n = keys.length;
+        final int chunks = threads;
+        final int chunkSize = ( n + chunks - 1 ) / chunks;
+
+        final long[][] k = new long[2][n];
+        final int[][] order = new int[2][];
+        order[0] = identity(n);
+        order[1] = new int[n];
+
+        /*
+        *   Flip the sign bit of the highest used byte so negative keys sort first.
+        */
+        final long signBit = 1L << ( bytes * 8 - 1 );
+        for( int i = 0 ; i < n ; i++ )
+            k[0][i] = keys[i] ^ signBit;
+
+        final int[][] counts = new int[chunks][RADIX];
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            int src = 0;
+            for( int pass = 0 ; pass < bytes ; pass++ ) {
+
+                final int shift = pass * 8;
+                final int from = src;
+                List<Callable<Object>> countTasks = new ArrayList<Callable<Object>>();
+                for( int c = 0 ; c < chunks ; c++ ) {
+                    final int chunk = c;
+                    countTasks.add(new Callable<Object>() {
+                        public Object call() {
+                            int[] count = counts[chunk];
+                            Arrays.fill(count, 0);
+                            long[] key = k[from];
+                            int end = Math.min(n, ( chunk + 1 ) * chunkSize);
+                            for( int i = chunk * chunkSize ; i < end ; i++ )
+                                count[(int)(key[i] >>> shift) & 0xFF]++;
+                            return null;
+                        }
+                    });
+                }
+                invokeAll(executor, countTasks);
+
+                /*
+                *   Turn the counts into start offsets: digit-major, chunk-minor.
+                *   Skip the pass if every key has the same digit.
+                */
+                boolean trivial = false;
+                int sum = 0;
+                for( int d = 0 ; d < RADIX ; d++ ) {
+                    int digitTotal = 0;
+                    for( int c = 0 ; c < chunks ; c++ ) {
+                        int count = counts[c][d];
+                        counts[c][d] = sum;
+                        sum += count;
+                        digitTotal += count;
+                    }
+                    if( digitTotal == n )
+                        trivial = true;
+                }
+                if( trivial )
+                    continue;
+
+                final int to = 1 - src;
+                List<Callable<Object>> scatterTasks = new ArrayList<Callable<Object>>();
+                for( int c = 0 ; c < chunks ; c++ ) {
+                    final int chunk = c;
+                    scatterTasks.add(new Callable<Object>() {
+                        public Object call() {
+                            int[] offsets = counts[chunk];
+                            long[] key = k[from];
+                            int[] ord = order[from];
+                            long[] keyOut = k[to];
+                            int[] ordOut = order[to];
+                            int end = Math.min(n, ( chunk + 1 ) * chunkSize);
+                            for( int i = chunk * chunkSize ; i < end ; i++ ) {
+                                int pos = offsets[(int)(key[i] >>> shift) & 0xFF]++;
+                                keyOut[pos] = key[i];
+                                ordOut[pos] = ord[i];
+                            }
+                            return null;
+                        }
+                    });
+                }
+                invokeAll(executor, scatterTasks);
+                src = to;
+            }
+            return order[src];
+        } finally {
+            executor.shutdown();
+        }
+    }   //  End method parallelSort
+
+
+
+
+    /**
+    * Runs the tasks and waits for all of them.
+    */
+    private static void invokeAll(ExecutorService executor, List<Callable<Object>> tasks) {
+        try {
+            for( Future<Object> future : executor.invokeAll(tasks) )
+                future.get();
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Sort interrupted", e);
+        } catch ( ExecutionException e ) {
+            throw new IllegalStateException("Sort failed", e.getCause());
+        }
+    }
+
+    /**
+    * Turns digit counts into start offsets.
+    * @return false if all <code>n</code> keys have the same digit, in which
+    * case the pass can be skipped.
+    */
+    private static boolean toOffsets(int[] counts, int n) {
+        int sum = 0;
+        for( int d = 0 ; d < RADIX ; d++ ) {
+            int count = counts[d];
+            if( count == n )
+                return false;
+            counts[d] = sum;
+            sum += count;
+        }
+        return true;
+    }
+
+    private static int[] identity(int n) {
+        int[] order = new int[n];
+        for( int i = 0 ; i < n ; i++ )
+            order[i] = i;
+        return order;
+    }
+
+    /**
+    * Stable insertion sort of the sign-flipped keys (compared unsigned).
+    */
+    private static void insertionSort(int[] k, int[] order) {
+        for( int i = 1 ; i < k.length ; i++ ) {
+            int key = k[i];
+            int o = order[i];
+            int j = i - 1;
+            while( j >= 0 && ( k[j] ^ Integer.MIN_VALUE ) > ( key ^ Integer.MIN_VALUE ) ) {
+                k[j + 1] = k[j];
+                order[j + 1] = order[j];
+                j--;
+            }
+            k[j + 1] = key;
+            order[j + 1] = o;
+        }
+    }
+
+    private static void insertionSort(long[] k, int[] order) {
+        for( int i = 1 ; i < k.length ; i++ ) {
+            long key = k[i];
+            int o = order[i];
+            int j = i - 1;
+            while( j >= 0 && ( k[j] ^ Long.MIN_VALUE ) > ( key ^ Long.MIN_VALUE ) ) {
+                k[j + 1] = k[j];
+                order[j + 1] = order[j];
+                j--;
+            }
+            k[j + 1] = key;
+            order[j + 1] = o;
+        }
+    }
+
+}   //  End class RadixSort
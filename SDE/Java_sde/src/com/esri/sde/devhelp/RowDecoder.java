@@ -0,0 +1,476 @@
+package com.esri.sde.devhelp;
+
+import com.esri.sde.sdk.client.*;
+import java.io.ByteArrayInputStream;
+import java.util.Calendar;
+
+/**
+* Decodes fetched rows into typed column buffers.
+* <P>
+* The decoder is compiled once for a result schema: every column gets an
+* accessor object for its type, so decoding a row is a single pass over the
+* accessors with no switch on the column type and no boxing on our side.
+* Integer columns are stored in an <code>int[]</code>, 64 bit integers in a
+* <code>long[]</code>, floating point columns in a <code>double[]</code>, and
+* strings, dates, blobs and shapes in an <code>Object[]</code>. A decoded row
+* can be read through the typed getters, printed, or set on an insert row.
+* <pre>
+*   RowDecoder decoder = RowDecoder.compile(query columns);
+*   SeRow row = query.fetch();
+*   while( row != null ) {
+*       decoder.decode(row);
+*       total += decoder.getDouble(2);
+*       row = query.fetch();
+*   }
+* </pre>
+* A decoder holds the values of one row only. {@link #RowDecoder(RowDecoder)}
+* creates another buffer sharing the compiled accessors, e.g. one per slot of
+* a {@link RowPipe}.
+*/
+public class RowDecoder {
+
+    /**
+    * Reads one column of a fetched row into the buffers of a decoder and
+    * writes it back to an insert row.
+    */
+    abstract static class Accessor {
+
+        final int column;
+        final int slot;
+
+        Accessor(int column, int slot) {
+            this.column = column;
+            this.slot = slot;
+        }
+
+        abstract void decode(SeRow row, RowDecoder into) throws SeException;
+
+        abstract void encode(RowDecoder from, SeRow row, SeCoordinateReference cref) throws SeException;
+
+        /**
+        * Appends the decoded value to a buffer, returns false for columns that
+        * are not printed as text.
+        */
+        boolean append(RowDecoder from, StringBuffer out) {
+            return false;
+        }
+
+        int intValue(RowDecoder from) {
+            throw new IllegalArgumentException("Column " + column + " is not a SMALLINT or INTEGER column");
+        }
+
+        long longValue(RowDecoder from) {
+            throw new IllegalArgumentException("Column " + column + " is not an integer column");
+        }
+
+        double doubleValue(RowDecoder from) {
+            return longValue(from);
+        }
+
+        /**
+        * Returns the value of a column held in the object buffer.
+        */
+        Object objectValue(RowDecoder from) {
+            throw new IllegalArgumentException("Column " + column + " is a numeric column");
+        }
+    }
+
+    static final class ShortAccessor extends Accessor {
+        ShortAccessor(int column, int slot) { super(column, slot); }
+
+        void decode(SeRow row, RowDecoder into) {
+            Short value = row.getShort(column);
+            into.nulls[column] = value == null;
+            into.ints[slot] = value == null ? 0 : value.shortValue();
+        }
+
+        void encode(RowDecoder from, SeRow row, SeCoordinateReference cref) throws SeException {
+            row.setShort( column, from.nulls[column] ? null : Short.valueOf((short)from.ints[slot]) );
+        }
+
+        boolean append(RowDecoder from, StringBuffer out) {
+            if( from.nulls[column] ) out.append("null"); else out.append(from.ints[slot]);
+            return true;
+        }
+
+        int intValue(RowDecoder from) { return from.ints[slot]; }
+        long longValue(RowDecoder from) { return from.ints[slot]; }
+    }
+
+    static final class IntegerAccessor extends Accessor {
+        IntegerAccessor(int column, int slot) { super(column, slot); }
+
+        void decode(SeRow row, RowDecoder into) {
+            Integer value = row.getInteger(column);
+            into.nulls[column] = value == null;
+            into.ints[slot] = value == null ? 0 : value.intValue();
+        }
+
+        void encode(RowDecoder from, SeRow row, SeCoordinateReference cref) throws SeException {
+            row.setInteger( column, from.nulls[column] ? null : Integer.valueOf(from.ints[slot]) );
+        }
+
+        boolean append(RowDecoder from, StringBuffer out) {
+            if( from.nulls[column] ) out.append("null"); else out.append(from.ints[slot]);
+            return true;
+        }
+
+        int intValue(RowDecoder from) { return from.ints[slot]; }
+        long longValue(RowDecoder from) { return from.ints[slot]; }
+    }
+
+    static final class LongAccessor extends Accessor {
+        LongAccessor(int column, int slot) { super(column, slot); }
+
+        void decode(SeRow row, RowDecoder into) {
+            Long value = row.getLong(column);
+            into.nulls[column] = value == null;
+            into.longs[slot] = value == null ? 0 : value.longValue();
+        }
+
+        void encode(RowDecoder from, SeRow row, SeCoordinateReference cref) throws SeException {
+            row.setLong( column, from.nulls[column] ? null : Long.valueOf(from.longs[slot]) );
+        }
+
+        boolean append(RowDecoder from, StringBuffer out) {
+            if( from.nulls[column] ) out.append("null"); else out.append(from.longs[slot]);
+            return true;
+        }
+
+        long longValue(RowDecoder from) { return from.longs[slot]; }
+    }
+
+    static final class FloatAccessor extends Accessor {
+        FloatAccessor(int column, int slot) { super(column, slot); }
+
+        void decode(SeRow row, RowDecoder into) {
+            Float value = row.getFloat(column);
+            into.nulls[column] = value == null;
+            into.doubles[slot] = value == null ? 0 : value.floatValue();
+        }
+
+        void encode(RowDecoder from, SeRow row, SeCoordinateReference cref) throws SeException {
+            row.setFloat( column, from.nulls[column] ? null : Float.valueOf((float)from.doubles[slot]) );
+        }
+
+        boolean append(RowDecoder from, StringBuffer out) {
+            if( from.nulls[column] ) out.append("null"); else out.append((float)from.doubles[slot]);
+            return true;
+        }
+
+        double doubleValue(RowDecoder from) { return from.doubles[slot]; }
+    }
+
+    static final class DoubleAccessor extends Accessor {
+        DoubleAccessor(int column, int slot) { super(column, slot); }
+
+        void decode(SeRow row, RowDecoder into) {
+            Double value = row.getDouble(column);
+            into.nulls[column] = value == null;
+            into.doubles[slot] = value == null ? 0 : value.doubleValue();
+        }
+
+        void encode(RowDecoder from, SeRow row, SeCoordinateReference cref) throws SeException {
+            row.setDouble( column, from.nulls[column] ? null : Double.valueOf(from.doubles[slot]) );
+        }
+
+        boolean append(RowDecoder from, StringBuffer out) {
+            if( from.nulls[column] ) out.append("null"); else out.append(from.doubles[slot]);
+            return true;
+        }
+
+        double doubleValue(RowDecoder from) { return from.doubles[slot]; }
+    }
+
+    static final class StringAccessor extends Accessor {
+        StringAccessor(int column, int slot) { super(column, slot); }
+
+        void decode(SeRow row, RowDecoder into) {
+            String value = row.getString(column);
+            into.nulls[column] = value == null;
+            into.objects[slot] = value;
+        }
+
+        void encode(RowDecoder from, SeRow row, SeCoordinateReference cref) throws SeException {
+            row.setString( column, (String)from.objects[slot] );
+        }
+
+        boolean append(RowDecoder from, StringBuffer out) {
+            out.append(from.objects[slot]);
+            return true;
+        }
+
+        Object objectValue(RowDecoder from) { return from.objects[slot]; }
+    }
+
+    static final class DateAccessor extends Accessor {
+        DateAccessor(int column, int slot) { super(column, slot); }
+
+        void decode(SeRow row, RowDecoder into) {
+            Calendar value = row.getTime(column);
+            into.nulls[column] = value == null;
+            into.objects[slot] = value;
+        }
+
+        void encode(RowDecoder from, SeRow row, SeCoordinateReference cref) throws SeException {
+            row.setTime( column, (Calendar)from.objects[slot] );
+        }
+
+        boolean append(RowDecoder from, StringBuffer out) {
+            Calendar value = (Calendar)from.objects[slot];
+            out.append(value == null ? null : value.getTime());
+            return true;
+        }
+
+        Object objectValue(RowDecoder from) { return from.objects[slot]; }
+    }
+
+    static final class BlobAccessor extends Accessor {
+        BlobAccessor(int column, int slot) { super(column, slot); }
+
+        void decode(SeRow row, RowDecoder into) throws SeException {
+            ByteArrayInputStream value = row.getBlob(column);
+            into.nulls[column] = value == null;
+            into.objects[slot] = value;
+        }
+
+        void encode(RowDecoder from, SeRow row, SeCoordinateReference cref) throws SeException {
+            row.setBlob( column, (ByteArrayInputStream)from.objects[slot] );
+        }
+
+        Object objectValue(RowDecoder from) { return from.objects[slot]; }
+    }
+
+    static final class ShapeAccessor extends Accessor {
+        ShapeAccessor(int column, int slot) { super(column, slot); }
+
+        void decode(SeRow row, RowDecoder into) throws SeException {
+            SeShape value = row.getShape(column);
+            into.nulls[column] = value == null;
+            into.objects[slot] = value;
+        }
+
+        void encode(RowDecoder from, SeRow row, SeCoordinateReference cref) throws SeException {
+            SeShape shape = (SeShape)from.objects[slot];
+            if( shape != null && cref != null )
+                shape.setCoordRef(cref);
+            row.setShape( column, shape );
+        }
+
+        Object objectValue(RowDecoder from) { return from.objects[slot]; }
+    }
+
+    /**
+    * Columns of a type the decoder does not read (raster, xml, ...).
+    */
+    static final class SkipAccessor extends Accessor {
+        SkipAccessor(int column) { super(column, -1); }
+
+        void decode(SeRow row, RowDecoder into) {
+            into.nulls[column] = true;
+        }
+
+        void encode(RowDecoder from, SeRow row, SeCoordinateReference cref) {
+        }
+
+        Object objectValue(RowDecoder from) { return null; }
+    }
+
+    private final SeColumnDefinition[] colDefs;
+    private final Accessor[] accessors;
+
+    final int[] ints;
+    final long[] longs;
+    final double[] doubles;
+    final Object[] objects;
+    final boolean[] nulls;
+
+    private int shapeColumn = -1;
+
+    /**
+    * Compiles a decoder for rows with the given columns.
+    */
+    public static RowDecoder compile(SeColumnDefinition[] colDefs) {
+        return new RowDecoder(colDefs);
+    }
+
+    private RowDecoder(SeColumnDefinition[] colDefs) {
+
+        this.colDefs = colDefs;
+        this.accessors = new Accessor[colDefs.length];
+
+        int numInts = 0, numLongs = 0, numDoubles = 0, numObjects = 0;
+
+        for( int column = 0 ; column < colDefs.length ; column++ ) {
+            switch( colDefs[column].getType() ) {
+                case SeColumnDefinition.TYPE_INT16:
+                    accessors[column] = new ShortAccessor(column, numInts++);
+                    break;
+                case SeColumnDefinition.TYPE_INT32:
+                    accessors[column] = new IntegerAccessor(column, numInts++);
+                    break;
+                case SeColumnDefinition.TYPE_INT64:
+                    accessors[column] = new LongAccessor(column, numLongs++);
+                    break;
+                case SeColumnDefinition.TYPE_FLOAT32:
+                    accessors[column] = new FloatAccessor(column, numDoubles++);
+                    break;
+                case SeColumnDefinition.TYPE_FLOAT64:
+                    accessors[column] = new DoubleAccessor(column, numDoubles++);
+                    break;
+                case SeColumnDefinition.TYPE_STRING:
+                    accessors[column] = new StringAccessor(column, numObjects++);
+                    break;
+                case SeColumnDefinition.TYPE_DATE:
+                    accessors[column] = new DateAccessor(column, numObjects++);
+                    break;
+                case SeColumnDefinition.TYPE_BLOB:
+                    accessors[column] = new BlobAccessor(column, numObjects++);
+                    break;
+                case SeColumnDefinition.TYPE_SHAPE:
+                    accessors[column] = new ShapeAccessor(column, numObjects++);
+                    shapeColumn = column;
+                    break;
+                default:
+                    accessors[column] = new SkipAccessor(column);
+            }
+        }
+
+        ints = new int[numInts];
+        longs = new long[numLongs];
+        doubles = new double[numDoubles];
+        objects = new Object[numObjects];
+        nulls = new boolean[colDefs.length];
+    }   //  End constructor
+
+    /**
+    * Creates a decoder with its own buffers for the schema of <code>schema</code>.
+    */
+    public RowDecoder(RowDecoder schema) {
+        colDefs = schema.colDefs;
+        accessors = schema.accessors;
+        shapeColumn = schema.shapeColumn;
+        ints = new int[schema.ints.length];
+        longs = new long[schema.longs.length];
+        doubles = new double[schema.doubles.length];
+        objects = new Object[schema.objects.length];
+        nulls = new boolean[schema.nulls.length];
+    }
+
+    /**
+    * Reads all columns of a fetched row into the buffers.
+    */
+    public void decode(SeRow row) throws SeException {
+        for( int i = 0 ; i < accessors.length ; i++ )
+            accessors[i].decode(row, this);
+    }
+
+    /**
+    * Sets the decoded values on a row to be inserted, then drops the
+    * references to the object values.
+    * @param cref coordinate reference assigned to the shape, null to keep
+    *             the fetched one.
+    */
+    public void encode(SeRow rowToInsert, SeCoordinateReference cref) throws SeException {
+        for( int i = 0 ; i < accessors.length ; i++ )
+            accessors[i].encode(this, rowToInsert, cref);
+        for( int i = 0 ; i < objects.length ; i++ )
+            objects[i] = null;
+    }
+
+    public int getNumColumns() {
+        return colDefs.length;
+    }
+
+    public SeColumnDefinition[] getColumns() {
+        return colDefs;
+    }
+
+    /**
+    * Returns the index of the shape column, -1 if there is none.
+    */
+    public int getShapeColumn() {
+        return shapeColumn;
+    }
+
+    public boolean isNull(int column) {
+        return nulls[column];
+    }
+
+    /**
+    * Returns the value of a SMALLINT or INTEGER column.
+    */
+    public int getInt(int column) {
+        return accessors[column].intValue(this);
+    }
+
+    /**
+    * Returns the value of any integer column.
+    */
+    public long getLong(int column) {
+        return accessors[column].longValue(this);
+    }
+
+    /**
+    * Returns the value of any numeric column.
+    */
+    public double getDouble(int column) {
+        return accessors[column].doubleValue(this);
+    }
+
+    /**
+    * Returns the value of a string, date, blob or shape column, null for
+    * unsupported columns.
+    * @throws IllegalArgumentException if the column is numeric.
+    */
+    public Object getObject(int column) {
+        return accessors[column].objectValue(this);
+    }
+
+    /**
+    * @throws IllegalArgumentException if the column is not a string column.
+    */
+    public String getString(int column) {
+        return (String)accessor(column, StringAccessor.class, "a string").objectValue(this);
+    }
+
+    /**
+    * @throws IllegalArgumentException if the column is not a date column.
+    */
+    public Calendar getTime(int column) {
+        return (Calendar)accessor(column, DateAccessor.class, "a date").objectValue(this);
+    }
+
+    /**
+    * @throws IllegalArgumentException if the column is not a blob column.
+    */
+    public ByteArrayInputStream getBlob(int column) {
+        return (ByteArrayInputStream)accessor(column, BlobAccessor.class, "a blob").objectValue(this);
+    }
+
+    /**
+    * @throws IllegalArgumentException if the column is not a shape column.
+    */
+    public SeShape getShape(int column) {
+        return (SeShape)accessor(column, ShapeAccessor.class, "a shape").objectValue(this);
+    }
+
+    /**
+    * Returns the accessor of a column after checking its type.
+    */
+    private Accessor accessor(int column, Class<? extends Accessor> type, String what) {
+        Accessor accessor = accessors[column];
+        if( !type.isInstance(accessor) )
+            throw new IllegalArgumentException("Column " + column + " is not " + what + " column");
+        return accessor;
+    }
+
+    /**
+    * Appends the text of an attribute column to <code>out</code>.
+    * @return false if the column is a shape, blob or unsupported column.
+    */
+    public boolean append(int column, StringBuffer out) {
+        return accessors[column].append(this, out);
+    }
+
+}   //  End class RowDecoder
@@ -0,0 +1,235 @@
+package com.esri.sde.devhelp;
+
+import com.esri.sde.sdk.client.*;
+import java.util.concurrent.locks.*;
+
+/**
+* Bounded single-producer/single-consumer ring buffer that hands rows from a
+* query stream to an insert stream running on another thread, so that the
+* network latency of both connections overlaps.
+* <P>
+* All row holders are allocated up front and recycled. The reader claims the
+* next free slot, fills it and publishes it; the writer takes the oldest
+* published slot, inserts it and releases it. When the buffer is full the reader
+* blocks (backpressure), when it is empty the writer blocks. The time each side
+* spends blocked is recorded so the buffer size can be tuned:
+* <pre>
+*   reader:  RowHolder h = pipe.claim();  h.read(row);  pipe.publish();
+*            ...  pipe.close();
+*   writer:  RowHolder h;
+*            while( (h = pipe.take()) != null ) {  h.write(rowToInsert, cref);  pipe.release();  }
+* </pre>
+*/
+public class RowPipe {
+
+    /**
+    * Pre-allocated holder for the column values of one row.
+    */
+    public static class RowHolder {
+
+        final RowDecoder decoder;
+
+        RowHolder(RowDecoder schema) {
+            decoder = new RowDecoder(schema);
+        }
+
+        public RowDecoder getDecoder() {
+            return decoder;
+        }
+
+        /**
+        * Copies the column values of a fetched row into this holder.
+        */
+        public void read(SeRow row) throws SeException {
+            decoder.decode(row);
+        }
+
+        /**
+        * Sets the values of this holder on a row to be inserted.
+        */
+        public void write(SeRow rowToInsert, SeCoordinateReference cref) throws SeException {
+            decoder.encode(rowToInsert, cref);
+        }
+    }
+
+    private final RowHolder[] slots;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Condition notEmpty = lock.newCondition();
+
+    private int putIndex = 0;
+    private int takeIndex = 0;
+    private int count = 0;
+    private boolean closed = false;
+    private boolean aborted = false;
+
+    private long readerWaitNanos = 0;
+    private long writerWaitNanos = 0;
+    private long rowsPassed = 0;
+    private int maxOccupancy = 0;
+
+    /**
+    * @param capacity number of row holders.
+    * @param schema   decoder compiled for the columns of the rows.
+    */
+    public RowPipe(int capacity, RowDecoder schema) {
+        if( capacity < 1 )
+            throw new IllegalArgumentException("Invalid capacity " + capacity);
+        slots = new RowHolder[capacity];
+        for( int i = 0 ; i < capacity ; i++ )
+            slots[i] = new RowHolder(schema);
+    }
+
+    /**
+    * Returns the next free holder, waiting while the buffer is full.
+    * @throws InterruptedException if the writer aborted the pipe.
+    */
+    public RowHolder claim() throws InterruptedException {
+        lock.lock();
+        try {
+            if( count == slots.length ) {
+                long start = System.nanoTime();
+                while( count == slots.length && !aborted )
+                    notFull.await();
+                readerWaitNanos += System.nanoTime() - start;
+            }
+            if( aborted )
+                throw new InterruptedException("Row pipe aborted by the writer");
+            return slots[putIndex];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+    * Makes the holder returned by the last {@link #claim()} visible to the writer.
+    */
+    public void publish() {
+        lock.lock();
+        try {
+            putIndex = ( putIndex + 1 ) % slots.length;
+            count++;
+            rowsPassed++;
+            if( count > maxOccupancy )
+                maxOccupancy = count;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+    * Signals the end of the row stream.
+    */
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+    * Returns the oldest published holder, waiting while the buffer is empty.
+    * @return the holder, or null once the reader has closed the pipe and all
+    * rows have been taken.
+    */
+    public RowHolder take() throws InterruptedException {
+        lock.lock();
+        try {
+            if( count == 0 && !closed ) {
+                long start = System.nanoTime();
+                while( count == 0 && !closed )
+                    notEmpty.await();
+                writerWaitNanos += System.nanoTime() - start;
+            }
+            return count == 0 ? null : slots[takeIndex];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+    * Returns the holder obtained by the last {@link #take()} to the reader.
+    */
+    public void release() {
+        lock.lock();
+        try {
+            takeIndex = ( takeIndex + 1 ) % slots.length;
+            count--;
+            notFull.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+    * Stops the reader, used when the writer fails.
+    */
+    public void abort() {
+        lock.lock();
+        try {
+            aborted = true;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /**
+    * Returns the time, in milliseconds, the reader spent waiting on a full buffer.
+    */
+    public long getReaderWaitMillis() {
+        lock.lock();
+        try {
+            return readerWaitNanos / 1000000;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+    * Returns the time, in milliseconds, the writer spent waiting on an empty buffer.
+    */
+    public long getWriterWaitMillis() {
+        lock.lock();
+        try {
+            return writerWaitNanos / 1000000;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getRowsPassed() {
+        lock.lock();
+        try {
+            return rowsPassed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+    * Returns the highest number of rows that were buffered at the same time.
+    */
+    public int getMaxOccupancy() {
+        lock.lock();
+        try {
+            return maxOccupancy;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String toString() {
+        return "buffer=" + slots.length + " maxUsed=" + getMaxOccupancy()
+            + " readerWait=" + getReaderWaitMillis() + "ms writerWait=" + getWriterWaitMillis() + "ms";
+    }
+
+}   //  End class RowPipe
@@ -207,135 +207,324 @@ public class Util {
     */
     public static final String SHAPE_COL_NAME = "SHAPE";
 
+    /**
+    * Defines the number of rows committed at once by a checkpointed table copy.
+    */
+    public static final int COPY_BATCH_SIZE = 1000;
 
 
 
+
+    /**
+    * Copies a table or layer from the QA server into <code>destConn</code>.
+    * @see #copySdeTable(SeConnection, SeConnection, String, String, String, boolean)
+    */
     public static void copySdeTable(SeConnection destConn, String srcTableName
                       , String destTableName,String keyword, boolean isLayer) {
 
+        SeConnection srcConn = null;
         try {
             /*
              * Create a connection to the server that has the QA layers.
              */
-            SeConnection srcConn = new SeConnection("brainmaster", 5153, "", "world", "world");
+            srcConn = new SeConnection("brainmaster", 5153, "", "world", "world");
 
-            SeTable srcTable = new SeTable(srcConn, srcTableName);
+            copySdeTable(srcConn, destConn, srcTableName, destTableName, keyword, isLayer);
 
-            SeColumnDefinition[] srcColDefs = srcTable.describe();
+        } catch ( SeException e ) {
+            System.out.println("\n Error occured while loading test data.");
+            printError(e);
+        } finally {
+            try {
+                if( srcConn != null )
+                    srcConn.close();
+            } catch ( SeException e ) {
+                printError(e);
+            }
+        }
+    }   //  End method copySdeTable
 
-            int numColumns = srcColDefs.length;
 
-            SeColumnDefinition[] destColDefs = null;
-            if( isLayer ) {
 
-                destColDefs = new SeColumnDefinition[(numColumns-1)];
-                try {
-                    for( int i = 0, j = 0 ; i < (numColumns-1) ; i++ )
-                        if( srcColDefs[i].getType() != SeColumnDefinition.TYPE_SHAPE) {
-                            destColDefs[j] = (SeColumnDefinition)srcColDefs[i].clone();
-                            j++;
-                        }
-                } catch ( CloneNotSupportedException ce ) {
-                    ce.printStackTrace();
-                }
 
-            } else {
-                destColDefs = new SeColumnDefinition[numColumns];
-            }
+    /**
+    * Copies a table or layer between two connections. The destination
+    * table (and layer) is created first, then every row of the source is
+    * copied on a single query/insert stream pair, with fetching and inserting
+    * overlapped by a {@link PipelinedCopy}.
+    * <P>
+    * Large tables can be copied in parallel with {@link ParallelTableCopy}.
+    *
+    * @param srcConn       connection to the server holding the source table.
+    * @param destConn      connection to the server the table is copied to.
+    * @param srcTableName  name of the source table.
+    * @param destTableName name of the table to create.
+    * @param keyword       configuration keyword for the new table/layer.
+    * @param isLayer       whether the source table is a layer.
+    */
+    public static void copySdeTable(SeConnection srcConn, SeConnection destConn, String srcTableName
+                      , String destTableName, String keyword, boolean isLayer) throws SeException {
 
-            SeTable destTable = createTable(destConn, keyword, destTableName, destColDefs);
+        SeCoordinateReference cref = createCopyTarget(srcConn, destConn, srcTableName, destTableName, keyword, isLayer);
+        copyRows(srcConn, destConn, srcTableName, destTableName, cref, null);
+    }   //  End method copySdeTable
 
-            SeLayer destLayer = null;
-            SeCoordinateReference cref = null;
 
-            if( isLayer ) {
-                SeLayer srcLayer = new SeLayer( srcConn, srcTableName, "SHAPE");
 
-                destLayer = new SeLayer(destConn);
 
-                destLayer.setTableName(destTableName);
-                destLayer.setDescription("QA Test Layer");
-                destLayer.setCoordRef(srcLayer.getCoordRef());
-                destLayer.setCreationKeyword(keyword);
-                destLayer.setShapeTypes( srcLayer.getShapeTypes());
-                destLayer.setExtent( srcLayer.getExtent());
-                double[] gridSizes = srcLayer.getGridSizes();
-                destLayer.setGridSizes( gridSizes[0], gridSizes[1], gridSizes[2]);
-                Util.createLayer(destLayer, 25, 4);
-                destLayer.getInfo();
-                cref = destLayer.getCoordRef();
-            }
+    /**
+    * Copies a table or layer between two connections and records the progress
+    * in <code>checkpointFile</code>, so that a copy that failed can be run again
+    * with the same arguments and continue after the last committed row.
+    * <P>
+    * The source must have a registered row id column: rows are copied in row
+    * id order and committed every {@link #COPY_BATCH_SIZE} rows. The
+    * destination is only created when the checkpoint file does not exist yet,
+    * and the file is deleted when the copy completes.
+    *
+    * @param checkpointFile local file holding the progress of the copy.
+    * @see #copySdeTable(SeConnection, SeConnection, String, String, String, boolean)
+    * @see CopyCheckpoint
+    */
+    public static void copySdeTable(SeConnection srcConn, SeConnection destConn, String srcTableName
+                      , String destTableName, String keyword, boolean isLayer, File checkpointFile)
+                      throws SeException, IOException {
+
+        CopyCheckpoint checkpoint = new CopyCheckpoint(checkpointFile, srcTableName, destTableName);
+
+        SeCoordinateReference cref = null;
+        if( checkpoint.isResumed() ) {
+            System.out.println("\n Resuming copy of " + srcTableName + " after row id "
+                + checkpoint.getLastRowId(0) + " (" + checkpoint.getRows(0) + " rows copied)");
+            if( isLayer )
+                cref = new SeLayer(destConn, destTableName, SHAPE_COL_NAME).getCoordRef();
+        } else {
+            cref = createCopyTarget(srcConn, destConn, srcTableName, destTableName, keyword, isLayer);
+            checkpoint.verifyPartition(0, "");
+            checkpoint.save();
+        }
+
+        if( checkpoint.isResumed() && !checkpoint.isDone(0) ) {
+            /*
+            *   Rows committed after the last rewrite of the checkpoint are in the
+            *   destination already: skip them too.
+            */
+            String rowIdColumn = new SeRegistration(srcConn, srcTableName).getRowIdColumnName();
+            long[] found = CopyCheckpoint.committedAfter(destConn, destTableName, rowIdColumn, ""
+                                                        , checkpoint.getLastRowId(0));
+            if( checkpoint.recover(0, found[0], found[1]) )
+                System.out.println("\n " + found[0] + " rows were committed after the checkpoint, resuming after row id "
+                    + found[1]);
+        }
+
+        if( !checkpoint.isDone(0) )
+            copyRows(srcConn, destConn, srcTableName, destTableName, cref, checkpoint);
+        checkpoint.delete();
+    }   //  End method copySdeTable
 
-            SeSqlConstruct sqlCons = new SeSqlConstruct( srcTableName, "" );
 
-            SeTable table = new SeTable(srcConn, srcTableName );
-            String[] cols = new String[numColumns];
 
-            for( int i = 0 ; i < numColumns ; i++ )
-                cols[i] = srcColDefs[i].getName();
 
-            SeQuery query = new SeQuery( srcConn, cols, sqlCons );
+    /**
+    * Copies the rows of the source into the existing destination table,
+    * resuming from <code>checkpoint</code> when it is not null.
+    */
+    private static void copyRows(SeConnection srcConn, final SeConnection destConn, String srcTableName
+                      , String destTableName, SeCoordinateReference cref, final CopyCheckpoint checkpoint) throws SeException {
+
+        SeColumnDefinition[] srcColDefs = new SeTable(srcConn, srcTableName).describe();
+        int numColumns = srcColDefs.length;
+
+        String[] cols = new String[numColumns];
+
+        for( int i = 0 ; i < numColumns ; i++ )
+            cols[i] = srcColDefs[i].getName();
+
+        SeQuery query;
+        int rowIdIndex = -1;
+
+        if( checkpoint == null ) {
+            SeSqlConstruct sqlCons = new SeSqlConstruct( srcTableName, "" );
+            query = new SeQuery( srcConn, cols, sqlCons );
             query.prepareQuery();
-            query.execute();
+        } else {
+            /*
+            *   Read in row id order, skipping the rows that were already committed.
+            */
+            String rowIdColumn = new SeRegistration(srcConn, srcTableName).getRowIdColumnName();
+            for( int i = 0 ; i < numColumns ; i++ )
+                if( cols[i].equalsIgnoreCase(rowIdColumn) )
+                    rowIdIndex = i;
+            if( rowIdIndex < 0 )
+                throw new IllegalStateException(srcTableName + " has no registered row id column");
+
+            long lastRowId = checkpoint.getLastRowId(0);
+            String where = lastRowId == Long.MIN_VALUE ? "" : rowIdColumn + " > " + lastRowId;
+            SeSqlConstruct sqlCons = new SeSqlConstruct( srcTableName, where );
+            query = new SeQuery( srcConn );
+            SeQueryInfo queryInfo = new SeQueryInfo();
+            queryInfo.setColumns(cols);
+            queryInfo.setConstruct(sqlCons);
+            queryInfo.setByClause(" ORDER BY " + rowIdColumn);
+            query.prepareQueryInfo(queryInfo);
+        }
+        query.execute();
 
-            SeInsert insert = new SeInsert(destConn);
-            insert.intoTable(destTableName, cols);
-            insert.setWriteMode(true);
-            SeRow rowToInsert = insert.getRowToSet();
-
-            SeRow fetchedRow = query.fetch();
-
-            while ( fetchedRow != null ) {
-                for( int index = 0 ; index < numColumns ; index++ ) {
-                    switch( srcColDefs[index].getType() ) {
-
-                        case SeColumnDefinition.TYPE_INT16:
-                            rowToInsert.setShort( index, fetchedRow.getShort(index) );
-                            break;
-
-                        case SeColumnDefinition.TYPE_INT32:
-                            rowToInsert.setInteger( index, fetchedRow.getInteger(index) );
-                            break;
-
-                        case SeColumnDefinition.TYPE_INT64:
-                            rowToInsert.setLong( index, fetchedRow.getLong(index) );
-                            break;
-                        case SeColumnDefinition.TYPE_FLOAT32:
-                            rowToInsert.setFloat( index, fetchedRow.getFloat(index) );
-                            break;
-                        case SeColumnDefinition.TYPE_FLOAT64:
-                            rowToInsert.setDouble( index, fetchedRow.getDouble(index) );
-                            break;
-                        case SeColumnDefinition.TYPE_DATE:
-                            rowToInsert.setTime( index, fetchedRow.getTime(index) );
-                            break;
-                        case SeColumnDefinition.TYPE_BLOB:
-                            rowToInsert.setBlob( index, fetchedRow.getBlob(index) );
-                            break;
-                        case SeColumnDefinition.TYPE_STRING:
-                            rowToInsert.setString( index, fetchedRow.getString(index) );
-                            break;
-                        case SeColumnDefinition.TYPE_SHAPE:
-                            SeShape shape = fetchedRow.getShape(index);
-                            shape.setCoordRef(cref);
-                            rowToInsert.setShape( index, shape);
-                            break;
-                    }
-                }
+        SeInsert insert = new SeInsert(destConn);
+        insert.intoTable(destTableName, cols);
+        insert.setWriteMode(true);
 
-                insert.execute();
-                fetchedRow = query.fetch();
+        /*
+        *   Fetch and insert on separate threads so both connections stay busy.
+        */
+        final long copiedBefore = checkpoint == null ? 0 : checkpoint.getRows(0);
+        PipelinedCopy pipeline = new PipelinedCopy(query, destConn, insert, srcColDefs, cref
+                                    , PipelinedCopy.DEFAULT_BUFFER_SIZE) {
+            protected void committed(long rows, long lastKey) {
+                checkpoint.committed(0, copiedBefore + rows, lastKey);
             }
-
+        };
+        if( checkpoint != null ) {
+            pipeline.setBatchSize(COPY_BATCH_SIZE);
+            pipeline.setKeyColumn(rowIdIndex);
+        }
+        try {
+            pipeline.run();
+            if( checkpoint != null )
+                checkpoint.done(0);
+            System.out.println("\n Copied " + srcTableName + " to " + destTableName + ": " + pipeline);
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Table copy interrupted", e);
+        } finally {
             insert.close();
             query.close();
+        }
+    }   //  End method copyRows
 
-            srcConn.close();
-        } catch ( SeException e ) {
-            System.out.println("\n Error occured while loading test data.");
-            printError(e);
+
+
+
+    /**
+    * Creates the destination table (and layer, if <code>isLayer</code> is set)
+    * of a table copy, using the definition of the source table.
+    *
+    * @param srcConn       connection to the server holding the source table.
+    * @param destConn      connection to the server the table is copied to.
+    * @param srcTableName  name of the source table.
+    * @param destTableName name of the table to create.
+    * @param keyword       configuration keyword for the new table/layer.
+    * @param isLayer       whether the source table is a layer.
+    * @return the coordinate reference of the new layer, or null if
+    * <code>isLayer</code> is false.
+    */
+    public static SeCoordinateReference createCopyTarget(SeConnection srcConn, SeConnection destConn
+                      , String srcTableName, String destTableName, String keyword, boolean isLayer) throws SeException {
+
+        SeTable srcTable = new SeTable(srcConn, srcTableName);
+
+        SeColumnDefinition[] srcColDefs = srcTable.describe();
+
+        int numColumns = srcColDefs.length;
+
+        SeColumnDefinition[] destColDefs = null;
+        if( isLayer ) {
+
+            destColDefs = new SeColumnDefinition[(numColumns-1)];
+            try {
+                for( int i = 0, j = 0 ; i < (numColumns-1) ; i++ )
+                    if( srcColDefs[i].getType() != SeColumnDefinition.TYPE_SHAPE) {
+                        destColDefs[j] = (SeColumnDefinition)srcColDefs[i].clone();
+                        j++;
+                    }
+            } catch ( CloneNotSupportedException ce ) {
+                ce.printStackTrace();
+            }
+
+        } else {
+            destColDefs = new SeColumnDefinition[numColumns];
+        }
+
+        createTable(destConn, keyword, destTableName, destColDefs);
+
+        SeLayer destLayer = null;
+        SeCoordinateReference cref = null;
+
+        if( isLayer ) {
+            SeLayer srcLayer = new SeLayer( srcConn, srcTableName, "SHAPE");
+
+            destLayer = new SeLayer(destConn);
+
+            destLayer.setTableName(destTableName);
+            destLayer.setDescription("QA Test Layer");
+            destLayer.setCoordRef(srcLayer.getCoordRef());
+            destLayer.setCreationKeyword(keyword);
+            destLayer.setShapeTypes( srcLayer.getShapeTypes());
+            destLayer.setExtent( srcLayer.getExtent());
+            double[] gridSizes = srcLayer.getGridSizes();
+            destLayer.setGridSizes( gridSizes[0], gridSizes[1], gridSizes[2]);
+            Util.createLayer(destLayer, 25, 4);
+            destLayer.getInfo();
+            cref = destLayer.getCoordRef();
+        }
+
+        return cref;
+    }   //  End method createCopyTarget
+
+
+
+
+    /**
+    * Copies the column values of a fetched row into a row to be inserted.
+    * Streams of rows with the same columns are copied faster with a
+    * {@link RowDecoder} compiled once for the stream.
+    *
+    * @param fetchedRow  row returned by SeQuery.fetch().
+    * @param rowToInsert row returned by SeInsert.getRowToSet().
+    * @param colDefs     column definitions of the fetched row.
+    * @param cref        coordinate reference assigned to copied shapes.
+    */
+    public static void copyRow(SeRow fetchedRow, SeRow rowToInsert, SeColumnDefinition[] colDefs
+                      , SeCoordinateReference cref) throws SeException {
+
+        for( int index = 0 ; index < colDefs.length ; index++ ) {
+            switch( colDefs[index].getType() ) {
+
+                case SeColumnDefinition.TYPE_INT16:
+                    rowToInsert.setShort( index, fetchedRow.getShort(index) );
+                    break;
+
+                case SeColumnDefinition.TYPE_INT32:
+                    rowToInsert.setInteger( index, fetchedRow.getInteger(index) );
+                    break;
+
+                case SeColumnDefinition.TYPE_INT64:
+                    rowToInsert.setLong( index, fetchedRow.getLong(index) );
+                    break;
+                case SeColumnDefinition.TYPE_FLOAT32:
+                    rowToInsert.setFloat( index, fetchedRow.getFloat(index) );
+                    break;
+                case SeColumnDefinition.TYPE_FLOAT64:
+                    rowToInsert.setDouble( index, fetchedRow.getDouble(index) );
+                    break;
+                case SeColumnDefinition.TYPE_DATE:
+                    rowToInsert.setTime( index, fetchedRow.getTime(index) );
+                    break;
+                case SeColumnDefinition.TYPE_BLOB:
+                    rowToInsert.setBlob( index, fetchedRow.getBlob(index) );
+                    break;
+                case SeColumnDefinition.TYPE_STRING:
+                    rowToInsert.setString( index, fetchedRow.getString(index) );
+                    break;
+                case SeColumnDefinition.TYPE_SHAPE:
+                    SeShape shape = fetchedRow.getShape(index);
+                    shape.setCoordRef(cref);
+                    rowToInsert.setShape( index, shape);
+                    break;
+            }
         }
-    }
+    }   //  End method copyRow
+
 
 
 
@@ -1008,70 +1197,44 @@ public class Util {
         } else {
 
             /*
-            *   Retrieve column definitions of the rows retrieved.
+            *   Retrieve column definitions of the rows retrieved and compile
+            *   a decoder for them, so each row is read without a type switch.
             */
             SeColumnDefinition colDef[] = row.getColumns();
 
             int numColumns = row.getNumColumns();
 
-            /*
-            *   Retrieve the column type of each column.
-            */
-            int type[] = new int[numColumns];
-            for( int colNum = 0 ; colNum < numColumns ; colNum++ )
-                type[colNum] = colDef[colNum].getType();
+            RowDecoder decoder = RowDecoder.compile(colDef);
+            boolean showAttributes = (displayOptions & DISPLAY_ATTR_DATA) == DISPLAY_ATTR_DATA;
+            boolean showShapes = (displayOptions & DISPLAY_SHAPES) == DISPLAY_SHAPES;
+            StringBuffer line = new StringBuffer();
 
             /*
             *   While the row fetched is not null.
             */
             while( row != null ) {
+
+                decoder.decode(row);
+
                 /*
-                *   For each column in the row perform iterative operation.
+                *   Print the attributes, then the shape.
                 */
-                for( int colNum = 0 ; colNum < numColumns ; colNum++ )
-                    /*
-                    *   Switch on the type of the current column
-                    */
-                    switch( type[colNum] ) {
-
-                        case SeColumnDefinition.TYPE_SMALLINT:
-                            if( (displayOptions & DISPLAY_ATTR_DATA) == DISPLAY_ATTR_DATA )
-                                System.out.print("\n\t" + colDef[colNum].getName() + " : " + row.getShort(colNum) );
-                            break;
-
-                        case SeColumnDefinition.TYPE_DATE:
-                            if( (displayOptions & DISPLAY_ATTR_DATA) == DISPLAY_ATTR_DATA )
-                                System.out.print("\n\t" + colDef[colNum].getName() + " : " + row.getDate(colNum));
-                            break;
-
-                        case SeColumnDefinition.TYPE_INTEGER:
-                            if( (displayOptions & DISPLAY_ATTR_DATA) == DISPLAY_ATTR_DATA )
-                                System.out.print("\n\t" + colDef[colNum].getName() + " : " + row.getInteger(colNum));
-                            break;
-
-                        case SeColumnDefinition.TYPE_FLOAT:
-                            if( (displayOptions & DISPLAY_ATTR_DATA) == DISPLAY_ATTR_DATA )
-                                System.out.print("\n\t" + colDef[colNum].getName() + " : " + row.getFloat(colNum) );
-                        break;
-
-                        case SeColumnDefinition.TYPE_DOUBLE:
-                            if( (displayOptions & DISPLAY_ATTR_DATA) == DISPLAY_ATTR_DATA )
-                                System.out.print("\n\t" + colDef[colNum].getName() + " : " + row.getDouble(colNum) );
-                            break;
-
-                        case SeColumnDefinition.TYPE_STRING:
-                            if( (displayOptions & DISPLAY_ATTR_DATA) == DISPLAY_ATTR_DATA )
-                                System.out.print("\n\t" + colDef[colNum].getName() + " : " + row.getString(colNum));
-                            break;
-
-                        case SeColumnDefinition.TYPE_SHAPE:
-                            if( (displayOptions & DISPLAY_SHAPES) == DISPLAY_SHAPES ) {
-                                System.out.print("\n\t" + colDef[colNum].getName() + " : " );
-                                displayShape( (SeShape)row.getShape(colNum), displayOptions );
-                            }
-                            break;
-
-                    }   //  End switch
+                if( showAttributes ) {
+                    line.setLength(0);
+                    for( int colNum = 0 ; colNum < numColumns ; colNum++ ) {
+                        int mark = line.length();
+                        line.append("\n\t").append(colDef[colNum].getName()).append(" : ");
+                        if( !decoder.append(colNum, line) )
+                            line.setLength(mark);
+                    }
+                    System.out.print(line);
+                }
+
+                if( showShapes && decoder.getShapeColumn() >= 0 ) {
+                    System.out.print("\n\t" + colDef[decoder.getShapeColumn()].getName() + " : " );
+                    displayShape( decoder.getShape(decoder.getShapeColumn()), displayOptions );
+                }
+
                 /*
                 *   Fetch the next row.
                 */
@@ -1732,12 +1895,47 @@ public class Util {
 
 
 
+    /**
+    * Sorts the elements of a Vector. Each element of the vector is an array of objects.
+    * One of the elements of this object array must be an integer (Short, Integer or
+    * Long). This element is called the sort key. The elements of the vector will be
+    * sorted in ascending order of the sort key; elements with equal keys keep their
+    * order. The keys need not be unique, positive or dense.
+    * <P>
+    * The keys are copied into a primitive array and sorted with {@link RadixSort}.
+    * Data that is already held in primitive arrays should be sorted with
+    * {@link RadixSort} directly.
+    *
+    * @param  unsorted    unsorted vector.
+    * @param  sortKeyPos  The position of the sort key in the Object array.
+    */
+    public static Vector<Object> sort(Vector<?> unsorted, int sortKeyPos) {
+
+        int listSize = unsorted.size();
+        Object[] rows = unsorted.toArray();
+        long[] keys = new long[listSize];
+
+        for( int i = 0 ; i < listSize ; i++ )
+            keys[i] = ((Number)(((Object[])rows[i])[sortKeyPos])).longValue();
+
+        int[] order = RadixSort.sort(keys);
+
+        Vector<Object> sorted = new Vector<Object>( listSize );
+        for( int i = 0 ; i < listSize ; i++ )
+            sorted.addElement( rows[order[i]] );
+
+        return sorted;
+    }   // End method sort
+
+
+
+
     /**
     * Sorts the elements of a Vector. Each element of the vector is an array of objects.
     * One of the elements of this object array must be an integer. This element is
     * called the sort key. The elements of the vector will be sorted in ascending order
     * of the sort key.
-    * The sort key values must be unique and greater than 0.
+    * The sort key values must be greater than 0 and not exceed maxVal.
     *
     * @param  unsorted    unsorted vector. Each element of the vector should an object
     * array of atleast single dimension. One element of the object array should
@@ -1748,25 +1946,13 @@ public class Util {
     public static Vector sort(Vector unsorted, int sortKeyPos, int maxVal) {
 
         int listSize = unsorted.size();
-        Vector sorted = (Vector)unsorted.clone();
-
-        int[] map = new int[maxVal];
-
-        int index = -1;
         for( int i = 0 ; i < listSize ; i++ ) {
-            index = ((Integer)(((Object[])unsorted.elementAt(i))[sortKeyPos])).intValue();
-            if( index > maxVal )
-                throw new IllegalArgumentException("Incorrect maxVal");
-            map[--index] = (i+1);
-        }
-
-        for( int i = 0, j = 0 ; i < listSize ; i++, j++ ) {
-            while( map[j] == 0 )
-                j++;
-            sorted.setElementAt( unsorted.elementAt((map[j]-1)), i);
+            int key = ((Integer)(((Object[])unsorted.elementAt(i))[sortKeyPos])).intValue();
+            if( key < 1 || key > maxVal )
+                throw new IllegalArgumentException("Incorrect sort key " + key + ", must lie between 1 and maxVal");
         }
 
-        return sorted;
+        return sort(unsorted, sortKeyPos);
     }   // End method sort
 
 
@@ -1777,7 +1963,7 @@ public class Util {
     * One of the elements of this object array must be an integer. This element is
     * called the sort key. The elements of the vector will be sorted in ascending order
     * of the sort key.
-    * The sort key values must be unique and greater than 0.
+    * The sort key values must lie between minVal and maxVal, minVal being greater than 0.
     *
     * @param  unsorted    unsorted vector. Each element of the vector should an object
     * array of atleast single dimension. One element of the object array should
@@ -1789,33 +1975,17 @@ public class Util {
     public static Vector sort(Vector unsorted, int sortKeyPos, int minVal, int maxVal) {
 
         int listSize = unsorted.size();
-        Vector sorted = (Vector)unsorted.clone();
 
         if( minVal < 1 )
             throw new IllegalArgumentException("Invalid minVal, must be greater than zero");
 
-        int[] map = new int[(maxVal-minVal+1)];
-
-        if(map.length < listSize )
-            throw new IllegalArgumentException("Invalid data vector, check values");
-
-        int index = -1;
         for( int i = 0 ; i < listSize ; i++ ) {
-            index = ((Integer)(((Object[])unsorted.elementAt(i))[sortKeyPos])).intValue() - minVal;
-
-            if( index > (map.length-1) )
-                throw new IllegalArgumentException("Error: Please check minVal and maxVal settings");
-
-            map[index] = (i+1);
-        }
-
-        for( int i = 0, j = 0 ; i < listSize ; i++, j++ ) {
-            while( map[j] == 0 )
-                j++;
-            sorted.setElementAt( unsorted.elementAt((map[j]-1)), i);
+            int key = ((Integer)(((Object[])unsorted.elementAt(i))[sortKeyPos])).intValue();
+            if( key < minVal || key > maxVal )
+                throw new IllegalArgumentException("Incorrect sort key " + key + ", must lie between minVal and maxVal");
         }
 
-        return sorted;
+        return sort(unsorted, sortKeyPos);
     }   // End method sort
 
 
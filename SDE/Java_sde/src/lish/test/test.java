@@ -2,28 +2,25 @@
 import com.esri.sde.sdk.client.*;
 import com.esri.sde.sdk.client.SeTable.*;
 import java.util.Vector;
+
+import sde.SdeConnection;
 public class test {
-	
-	private static SeConnection conn = null;
 
 	private static String server = "3c4e53a46eaf4e3";
-	private static String instance = "5151";
-	private static String database = "orcl";
-	private static String username = "sde";
-	private static String password = "liulin";
-	//获得ArcSDE连接
+	//从共享连接池借出ArcSDE连接，每个线程使用自己的连接，用完后调用releaseConn归还
 	private static SeConnection getConn() {
-		if (conn == null) {
-			try {
-				conn = new SeConnection(server, instance, database, username,
-						password);
-			} catch (SeException ex) {
-				ex.printStackTrace();
-			}
-			
+		try {
+			return SdeConnection.getPool().borrow();
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			return null;
+		}
+	}
+	//归还getConn借出的连接
+	private static void releaseConn(SeConnection conn) {
+		if (conn != null) {
+			SdeConnection.getPool().release(conn);
 		}
-	    
-		return conn;
 	}
 
 	/**
@@ -91,8 +88,9 @@ public class test {
 	//空间条件查询
 	public static void SpatialQuery()
 	{
+		SeConnection conn = null;
 		try {
-			SeConnection conn = getConn();
+			conn = getConn();
 			SeLayer layer = new SeLayer(conn,"quxian","SHAPE");
 
 			SeTable table = new SeTable(conn, "quxian");
@@ -129,12 +127,16 @@ public class test {
 		catch (Exception ex) {
 			ex.printStackTrace();
 		}
+		finally {
+			releaseConn(conn);
+		}
 	}
 	//属性条件查询 
 	public static void AttributeQuery()
 	{
+		SeConnection conn = null;
 		try {
-			SeConnection conn = getConn();
+			conn = getConn();
 			SeTable table = new SeTable(conn, "quxian");
 			SeColumnDefinition[] tableDef = table.describe();
 			String[] cols = new String[tableDef.length];
@@ -159,12 +161,16 @@ public class test {
 		catch (Exception ex) {
 			ex.printStackTrace();
 		}
+		finally {
+			releaseConn(conn);
+		}
 	}
 	//普通查询
 	public static void CommonQuery()
 	{
+		SeConnection conn = null;
 		try {
-			SeConnection conn = getConn();
+			conn = getConn();
 			SeTable table = new SeTable(conn, "conn");
 			SeColumnDefinition[] tableDef = table.describe();
 			String[] cols = new String[tableDef.length];
@@ -191,17 +197,27 @@ public class test {
 		catch (Exception ex) {
 			ex.printStackTrace();
 		}
+		finally {
+			releaseConn(conn);
+		}
 	}
 	//获得ArcSDE版本信息
 	public static void GetVersion()
 	{
 		SeConnection conn =getConn();
-		SeRelease release=conn.getRelease();
-		System.out.println(release.getBugFix());
-		System.out.println(release.getDesc());
-		System.out.println(release.getRelease());
-		System.out.println(release.getMajor());
-		System.out.println(release.getMinor());
-		
+		if (conn == null) {
+			return;
+		}
+		try {
+			SeRelease release=conn.getRelease();
+			System.out.println(release.getBugFix());
+			System.out.println(release.getDesc());
+			System.out.println(release.getRelease());
+			System.out.println(release.getMajor());
+			System.out.println(release.getMinor());
+		}
+		finally {
+			releaseConn(conn);
+		}
 	}
 }	
\ No newline at end of file
@@ -0,0 +1,293 @@
+package sde;
+
+import com.esri.sde.devhelp.RowDecoder;
+import com.esri.sde.sdk.client.SeColumnDefinition;
+import com.esri.sde.sdk.client.SeException;
+import com.esri.sde.sdk.client.SeShape;
+
+/**
+ * ʽһУĬ4096УдţΪint[]INT64Ϊlong[]
+ * Ϊdouble[]ַ/ڵΪObject[]״е갴x,yһdouble[]
+ * iеĵΪgetShapeOffsets()[i]getShapeOffsets()[i+1]֮ĵ㡣
+ * ۺͳƿֱѭ
+ * <pre>
+ * ColumnBatch batch;
+ * while ((batch = cursor.nextBatch(ColumnBatch.DEFAULT_CAPACITY)) != null) {
+ *     double[] speeds = batch.getDoubles(2);
+ *     for (int i = 0; i < batch.size(); i++) {
+ *         sum += speeds[i];
+ *     }
+ * }
+ * </pre>
+ * α긴ãһnextBatch()Ḳ
+ * @author Administrator
+ *
+ */
+public class ColumnBatch {
+
+	public static final int DEFAULT_CAPACITY = 4096;
+
+	private static final int INT = 0;
+	private static final int LONG = 1;
+	private static final int DOUBLE = 2;
+	private static final int OBJECT = 3;
+	private static final int SHAPE = 4;
+
+	private final SeColumnDefinition[] colDefs;
+	private final int capacity;
+	private final int[] kinds;
+	private final int[][] ints;
+	private final long[][] longs;
+	private final double[][] doubles;
+	private final Object[][] objects;
+	private final boolean[][] nulls;
+	private final int shapeColumn;
+
+	private double[] coords;
+	private final int[] shapeOffsets;
+	private int numPoints = 0;
+	private int size = 0;
+
+	/**
+	 * @param colDefs ж
+	 * @param capacity ÿ
+	 */
+	public ColumnBatch(SeColumnDefinition[] colDefs, int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("С0" + capacity);
+		}
+		this.colDefs = colDefs;
+		this.capacity = capacity;
+		int n = colDefs.length;
+		kinds = new int[n];
+		ints = new int[n][];
+		longs = new long[n][];
+		doubles = new double[n][];
+		objects = new Object[n][];
+		nulls = new boolean[n][];
+		int shape = -1;
+		for (int i = 0; i < n; i++) {
+			nulls[i] = new boolean[capacity];
+			switch (colDefs[i].getType()) {
+			case SeColumnDefinition.TYPE_INT16:
+			case SeColumnDefinition.TYPE_INT32:
+				kinds[i] = INT;
+				ints[i] = new int[capacity];
+				break;
+			case SeColumnDefinition.TYPE_INT64:
+				kinds[i] = LONG;
+				longs[i] = new long[capacity];
+				break;
+			case SeColumnDefinition.TYPE_FLOAT32:
+			case SeColumnDefinition.TYPE_FLOAT64:
+				kinds[i] = DOUBLE;
+				doubles[i] = new double[capacity];
+				break;
+			case SeColumnDefinition.TYPE_SHAPE:
+				kinds[i] = SHAPE;
+				shape = i;
+				break;
+			default:
+				kinds[i] = OBJECT;
+				objects[i] = new Object[capacity];
+			}
+		}
+		shapeColumn = shape;
+		shapeOffsets = new int[capacity + 1];
+		coords = new double[shape >= 0 ? capacity * 2 : 0];
+	}
+
+	/**
+	 * ׷decoderеǰ
+	 * @param decoder decode
+	 * @throws SeException ȡ״
+	 * @throws IllegalStateException 
+	 */
+	public void add(RowDecoder decoder) throws SeException {
+		if (size == capacity) {
+			throw new IllegalStateException("" + capacity);
+		}
+		int row = size;
+		for (int i = 0; i < kinds.length; i++) {
+			boolean isNull = decoder.isNull(i);
+			nulls[i][row] = isNull;
+			switch (kinds[i]) {
+			case INT:
+				ints[i][row] = decoder.getInt(i);
+				break;
+			case LONG:
+				longs[i][row] = decoder.getLong(i);
+				break;
+			case DOUBLE:
+				doubles[i][row] = decoder.getDouble(i);
+				break;
+			case SHAPE:
+				if (!isNull) {
+					addCoords(decoder.getShape(i));
+				}
+				break;
+			default:
+				objects[i][row] = isNull ? null : decoder.getObject(i);
+			}
+		}
+		size++;
+		shapeOffsets[size] = numPoints;
+	}
+
+	/**
+	 * ״ȫ׷ӵcoords
+	 */
+	private void addCoords(SeShape shape) throws SeException {
+		if (shape.isNil()) {
+			return;
+		}
+		double[][][] parts = shape.getAllCoords();
+		for (int p = 0; p < parts.length; p++) {
+			for (int s = 0; s < parts[p].length; s++) {
+				double[] xy = parts[p][s];
+				int need = numPoints * 2 + xy.length;
+				if (need > coords.length) {
+					double[] t = new double[Math.max(need, coords.length * 2)];
+					System.arraycopy(coords, 0, t, 0, numPoints * 2);
+					coords = t;
+				}
+				System.arraycopy(xy, 0, coords, numPoints * 2, xy.length);
+				numPoints += xy.length / 2;
+			}
+		}
+	}
+
+	/**
+	 * գѷ
+	 */
+	public void clear() {
+		size = 0;
+		numPoints = 0;
+		for (int i = 0; i < objects.length; i++) {
+			if (objects[i] != null) {
+				java.util.Arrays.fill(objects[i], null);
+			}
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int capacity() {
+		return capacity;
+	}
+
+	public boolean isFull() {
+		return size == capacity;
+	}
+
+	public int getNumColumns() {
+		return colDefs.length;
+	}
+
+	public SeColumnDefinition[] getColumns() {
+		return colDefs;
+	}
+
+	/**
+	 * @param name ִСд
+	 * @return ţڷ-1
+	 */
+	public int getColumnIndex(String name) {
+		for (int i = 0; i < colDefs.length; i++) {
+			if (colDefs[i].getName().equalsIgnoreCase(name)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @param column SMALLINTINTEGER
+	 * @return 飬ЧΪsize()
+	 */
+	public int[] getInts(int column) {
+		return check(ints[column], column);
+	}
+
+	/**
+	 * @param column INT64
+	 * @return 飬ЧΪsize()
+	 */
+	public long[] getLongs(int column) {
+		return check(longs[column], column);
+	}
+
+	/**
+	 * @param column FLOATDOUBLE
+	 * @return 飬ЧΪsize()
+	 */
+	public double[] getDoubles(int column) {
+		return check(doubles[column], column);
+	}
+
+	/**
+	 * @param column ַڣCalendarBLOB
+	 * @return 飬ЧΪsize()
+	 */
+	public Object[] getObjects(int column) {
+		return check(objects[column], column);
+	}
+
+	private <T> T check(T array, int column) {
+		if (array == null) {
+			throw new IllegalArgumentException("" + colDefs[column].getName() + "ȡ鲻");
+		}
+		return array;
+	}
+
+	/**
+	 * @param column
+	 * @return ֵǣЧΪsize()
+	 */
+	public boolean[] getNulls(int column) {
+		return nulls[column];
+	}
+
+	/**
+	 * @return ״ţû״з-1
+	 */
+	public int getShapeColumn() {
+		return shapeColumn;
+	}
+
+	/**
+	 * @return x0,y0,x1,y1...ЧΪgetNumPoints()*2
+	 */
+	public double[] getCoords() {
+		return coords;
+	}
+
+	/**
+	 * @return ÿеһеĵţsize()+1
+	 */
+	public int[] getShapeOffsets() {
+		return shapeOffsets;
+	}
+
+	public int getNumPoints() {
+		return numPoints;
+	}
+
+	/**
+	 * @param row
+	 * @return row״ĵһxͼ㼴ȣ״ΪշNaN
+	 */
+	public double getX(int row) {
+		return shapeOffsets[row] == shapeOffsets[row + 1] ? Double.NaN : coords[shapeOffsets[row] * 2];
+	}
+
+	/**
+	 * @param row
+	 * @return row״ĵһyͼ㼴γȣ״ΪշNaN
+	 */
+	public double getY(int row) {
+		return shapeOffsets[row] == shapeOffsets[row + 1] ? Double.NaN : coords[shapeOffsets[row] * 2 + 1];
+	}
+}
@@ -0,0 +1,31 @@
+package sde;
+
+/**
+ * ӹConnectionPoolãӵĴУر
+ * ʹSeConnectionFactoryʱ滻Ϊʵ
+ * @author Administrator
+ *
+ * @param <C> 
+ */
+public interface ConnectionFactory<C> {
+
+	/**
+	 * ½һ
+	 * @return
+	 * @throws Exception ʧ
+	 */
+	C create() throws Exception;
+
+	/**
+	 * УǷȻãǰ
+	 * @param conn
+	 * @return
+	 */
+	boolean isValid(C conn);
+
+	/**
+	 * رӣӦ׳쳣
+	 * @param conn
+	 */
+	void close(C conn);
+}
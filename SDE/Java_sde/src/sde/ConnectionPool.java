@@ -0,0 +1,427 @@
+package sde;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ̰߳ȫнӳأṩ
+ * 	С/ʱȴ
+ * 	ڿӶʱգС
+ * 	۽ǰУ飬ʧЧԶؽ
+ * 	й©⣺ֵδ黹ʱӡλ
+ * ӵĴرConnectionFactory÷
+ * <pre>
+ * SeConnection conn = pool.borrow();
+ * try {
+ *     ...
+ * } finally {
+ *     pool.release(conn);
+ * }
+ * </pre>
+ * @author Administrator
+ *
+ * @param <C> 
+ */
+public class ConnectionPool<C> {
+
+	/**
+	 * Ӽ黹ʱ
+	 */
+	private static class Idle<C> {
+		final C conn;
+		final long since;
+
+		Idle(C conn, long since) {
+			this.conn = conn;
+			this.since = since;
+		}
+	}
+
+	/**
+	 * ¼
+	 */
+	private static class Lease {
+		final long since;
+		final Throwable origin;
+		boolean reported;
+
+		Lease(long since, Throwable origin) {
+			this.since = since;
+			this.origin = origin;
+		}
+	}
+
+	private final ConnectionFactory<C> factory;
+	private final int minSize;
+	private final int maxSize;
+
+	private volatile long borrowTimeout = 30000;
+	private volatile long idleTimeout = 5 * 60 * 1000;
+	private volatile long leakThreshold = 0;
+	private volatile boolean validateOnBorrow = true;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition available = lock.newCondition();
+	/**
+	 * ӣͷΪ黹
+	 */
+	private final ArrayDeque<Idle<C>> idle = new ArrayDeque<Idle<C>>();
+	private final Map<C, Lease> leased = new IdentityHashMap<C, Lease>();
+	/**
+	 * Ѵڴ
+	 */
+	private int total;
+	private boolean closed;
+
+	private long createdCount;
+	private long destroyedCount;
+	private long borrowCount;
+	private long timeoutCount;
+	private long leakCount;
+
+	private final Timer evictor;
+
+	/**
+	 * ӹõͼԪݻ
+	 */
+	private final SdeMetadataCache metadataCache = new SdeMetadataCache(SdeMetadataCache.DEFAULT_TTL);
+
+	/**
+	 * @param factory ӹ
+	 * @param minSize Слʱ
+	 * @param maxSize Ӧ˵
+	 * @param evictionInterval лй©ִмλ룬0ʾ̨߳
+	 */
+	public ConnectionPool(ConnectionFactory<C> factory, int minSize, int maxSize, long evictionInterval) {
+		if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+			throw new IllegalArgumentException("ômin=" + minSize + ", max=" + maxSize);
+		}
+		this.factory = factory;
+		this.minSize = minSize;
+		this.maxSize = maxSize;
+		if (evictionInterval > 0) {
+			evictor = new Timer("sde-pool-evictor", true);
+			evictor.schedule(new TimerTask() {
+				public void run() {
+					evict();
+				}
+			}, evictionInterval, evictionInterval);
+		} else {
+			evictor = null;
+		}
+	}
+
+	/**
+	 * Ĭϳʱ
+	 * @return
+	 * @throws Exception ӴʧܡȴʱTimeoutExceptionж
+	 */
+	public C borrow() throws Exception {
+		return borrow(borrowTimeout);
+	}
+
+	/**
+	 * ӣ޿Ѵʱȴ
+	 * @param timeoutMillis ȴʱ䣬λ
+	 * @return
+	 * @throws Exception ӴʧܡȴʱTimeoutExceptionж
+	 */
+	public C borrow(long timeoutMillis) throws Exception {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		while (true) {
+			C conn = null;
+			lock.lock();
+			try {
+				while (conn == null) {
+					if (closed) {
+						throw new IllegalStateException("ӳѹر");
+					}
+					Idle<C> entry = idle.pollFirst();
+					if (entry != null) {
+						conn = entry.conn;
+					} else if (total < maxSize) {
+						total++;
+						break;
+					} else {
+						long remaining = deadline - System.nanoTime();
+						if (remaining <= 0) {
+							timeoutCount++;
+							throw new TimeoutException("ȴӳʱ" + timeoutMillis + "ms" + maxSize);
+						}
+						available.awaitNanos(remaining);
+					}
+				}
+			} finally {
+				lock.unlock();
+			}
+
+			if (conn == null) {
+				conn = create();
+			} else if (validateOnBorrow && !factory.isValid(conn)) {
+				destroy(conn);
+				continue;
+			}
+
+			Throwable origin = leakThreshold > 0 ? new Throwable("ӽλ") : null;
+			lock.lock();
+			try {
+				leased.put(conn, new Lease(System.currentTimeMillis(), origin));
+				borrowCount++;
+			} finally {
+				lock.unlock();
+			}
+			return conn;
+		}
+	}
+
+	/**
+	 * ӣǰռtotalʧʱ黹
+	 */
+	private C create() throws Exception {
+		C conn;
+		try {
+			conn = factory.create();
+		} catch (Exception e) {
+			lock.lock();
+			try {
+				total--;
+				available.signal();
+			} finally {
+				lock.unlock();
+			}
+			throw e;
+		}
+		lock.lock();
+		try {
+			createdCount++;
+		} finally {
+			lock.unlock();
+		}
+		return conn;
+	}
+
+	/**
+	 * رӲͷtotal
+	 */
+	private void destroy(C conn) {
+		lock.lock();
+		try {
+			total--;
+			destroyedCount++;
+			available.signal();
+		} finally {
+			lock.unlock();
+		}
+		factory.close(conn);
+	}
+
+	/**
+	 * 黹
+	 * @param conn
+	 */
+	public void release(C conn) {
+		lock.lock();
+		try {
+			if (leased.remove(conn) == null) {
+				throw new IllegalArgumentException("Ӳڱӳػѹ黹");
+			}
+			if (!closed) {
+				idle.addFirst(new Idle<C>(conn, System.currentTimeMillis()));
+				available.signal();
+				return;
+			}
+		} finally {
+			lock.unlock();
+		}
+		destroy(conn);
+	}
+
+	/**
+	 * 黹һ𻵵ӣӽرնǷŻس
+	 * @param conn
+	 */
+	public void invalidate(C conn) {
+		lock.lock();
+		try {
+			if (leased.remove(conn) == null) {
+				throw new IllegalArgumentException("Ӳڱӳػѹ黹");
+			}
+		} finally {
+			lock.unlock();
+		}
+		destroy(conn);
+	}
+
+	/**
+	 * ԤȽС
+	 * @throws Exception
+	 */
+	public void prefill() throws Exception {
+		while (true) {
+			lock.lock();
+			try {
+				if (closed || total >= minSize) {
+					return;
+				}
+				total++;
+			} finally {
+				lock.unlock();
+			}
+			C conn = create();
+			lock.lock();
+			try {
+				idle.addFirst(new Idle<C>(conn, System.currentTimeMillis()));
+				available.signal();
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * տгʱӲй©ɺ̶̨߳ʱãҲֶ
+	 */
+	public void evict() {
+		List<C> expired = new ArrayList<C>();
+		List<Lease> leaks = new ArrayList<Lease>();
+		long now = System.currentTimeMillis();
+		lock.lock();
+		try {
+			//βǹ黹
+			while (total - expired.size() > minSize && !idle.isEmpty()
+					&& now - idle.peekLast().since > idleTimeout) {
+				expired.add(idle.pollLast().conn);
+			}
+			if (leakThreshold > 0) {
+				for (Iterator<Lease> it = leased.values().iterator(); it.hasNext(); ) {
+					Lease lease = it.next();
+					if (!lease.reported && now - lease.since > leakThreshold) {
+						lease.reported = true;
+						leakCount++;
+						leaks.add(lease);
+					}
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+		for (C conn : expired) {
+			destroy(conn);
+		}
+		for (Lease lease : leaks) {
+			System.err.println("ӽ" + (now - lease.since) + "msδ黹ܴй©");
+			if (lease.origin != null) {
+				lease.origin.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * رӳأرпӣѽڹ黹ʱر
+	 */
+	public void close() {
+		List<C> drained = new ArrayList<C>();
+		lock.lock();
+		try {
+			closed = true;
+			while (!idle.isEmpty()) {
+				drained.add(idle.pollFirst().conn);
+			}
+			available.signalAll();
+		} finally {
+			lock.unlock();
+		}
+		if (evictor != null) {
+			evictor.cancel();
+		}
+		for (C conn : drained) {
+			destroy(conn);
+		}
+	}
+
+	public void setBorrowTimeout(long borrowTimeout) {
+		this.borrowTimeout = borrowTimeout;
+	}
+
+	/**
+	 * @param idleTimeout гʱӻᱻգλ
+	 */
+	public void setIdleTimeout(long idleTimeout) {
+		this.idleTimeout = idleTimeout;
+	}
+
+	/**
+	 * @param leakThreshold ʱΪй©λ룬0ʾرй©
+	 */
+	public void setLeakThreshold(long leakThreshold) {
+		this.leakThreshold = leakThreshold;
+	}
+
+	public void setValidateOnBorrow(boolean validateOnBorrow) {
+		this.validateOnBorrow = validateOnBorrow;
+	}
+
+	public int getMinSize() {
+		return minSize;
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public int getIdleCount() {
+		lock.lock();
+		try {
+			return idle.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public int getActiveCount() {
+		lock.lock();
+		try {
+			return leased.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * ӹõͼԪݻ棬ӳضӦһݿ⣬ͬӳصĻ滥Ӱ
+	 * @return
+	 */
+	public SdeMetadataCache getMetadataCache() {
+		return metadataCache;
+	}
+
+	public int getTotalCount() {
+		lock.lock();
+		try {
+			return total;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public String toString() {
+		lock.lock();
+		try {
+			return "ConnectionPool[total=" + total + ", idle=" + idle.size() + ", active=" + leased.size()
+					+ ", created=" + createdCount + ", destroyed=" + destroyedCount + ", borrowed=" + borrowCount
+					+ ", timeouts=" + timeoutCount + ", leaks=" + leakCount + "]";
+		} finally {
+			lock.unlock();
+		}
+	}
+}
@@ -0,0 +1,245 @@
+package sde;
+
+/**
+ * ѡ㷨÷ȺٶҪʽѡ
+ * <pre>
+ * //ѡԤÿٽƣж׼ȷ
+ * double rough = DistanceStrategy.EQUIRECTANGULAR.distance(lon1, lat1, lon2, lat2);
+ * </pre>
+ * 㷨HAVERSINELatLngUtil.sphereDistance뾶ѯжݣgetMaxError
+ * <pre>
+ *             vincenty  gauss-kruger  equirectangular
+ * 1ǧ         0.7%      1.3%          1e-8
+ * 1-10ǧ        0.7%      1.3%          1e-6
+ * 10-100ǧ      0.7%      1.3%          1e-4
+ * 100ǧ     0.7%      1.3%          1%1000ǧڣ
+ * </pre>
+ * ֵΪbenchDistanceStrategyBenchmark人Ͼֲγȡ60ʵⲢ
+ * @author Administrator
+ *
+ */
+public abstract class DistanceStrategy {
+
+	/**
+	 * ľֶޣλ
+	 */
+	private static final double[] RANGES = { 1000, 10000, 100000 };
+
+	/**
+	 * ʸʽ棩LatLngUtil.sphereDistanceΪ㷨ıȽϻ׼
+	 */
+	public static final DistanceStrategy HAVERSINE = new DistanceStrategy("haversine", new double[] { 0, 0, 0, 0 }) {
+		public double distance(double lon1, double lat1, double lon2, double lat2) {
+			return LatLngUtil.sphereDistance(lon1, lat1, lon2, lat2);
+		}
+
+		public void distances(double lon, double lat, double[] lons, double[] lats, double[] out) {
+			double radLat1 = lat * Math.PI / 180.0;
+			double cosLat1 = Math.cos(radLat1);
+			for (int i = 0; i < lons.length; i++) {
+				double radLat2 = lats[i] * Math.PI / 180.0;
+				double sa = Math.sin((radLat1 - radLat2) / 2);
+				double sb = Math.sin((lon - lons[i]) * Math.PI / 180.0 / 2);
+				out[i] = 2 * LatLngUtil.RADIUS * Math.asin(Math.sqrt(sa * sa + cosLat1 * Math.cos(radLat2) * sb * sb));
+			}
+		}
+	};
+
+	/**
+	 * Vincenty㹫ʽWGS84򣩣⣬֮ʹHAVERSINEԼ0.7%
+	 * ŵ㲻ʱ˻HAVERSINE
+	 */
+	public static final DistanceStrategy VINCENTY = new DistanceStrategy("vincenty", new double[] { 0.007, 0.007, 0.007, 0.007 }) {
+		public double distance(double lon1, double lat1, double lon2, double lat2) {
+			return vincenty(lon1, lat1, lon2, lat2);
+		}
+	};
+
+	/**
+	 * ˹ͶӰGaussKruger.forward6ʽLatLngUtil.BlToGsͬƽ룬ͬʱGetDistance(LatLngUtil,LatLngUtil)һ£
+	 * ͬԼ뾭ԽԶȱԽHAVERSINEԼ1.3%㲻ͬһͶӰʱһͶӰеڵĴGaussKrugerŲͬ
+	 */
+	public static final DistanceStrategy GAUSS_KRUGER = new DistanceStrategy("gauss-kruger", new double[] { 0.013, 0.013, 0.013, 0.013 }) {
+		public double distance(double lon1, double lat1, double lon2, double lat2) {
+			return planar(lon1, lat1, lon2, lat2);
+		}
+
+		public void distances(double lon, double lat, double[] lons, double[] lats, double[] out) {
+			LatLngUtil.GetDistance(lon, lat, lons, lats, out);
+			int zone = (int)(lon / 6);
+			for (int i = 0; i < lons.length; i++) {
+				if ((int)(lons[i] / 6) != zone) {
+					out[i] = planar(lon, lat, lons[i], lats[i]);
+				}
+			}
+		}
+
+		/**
+		 * ͶӰеڵĴͬʱԼĴ
+		 */
+		private double planar(double lon1, double lat1, double lon2, double lat2) {
+			double[] xy = { lon1, lat1, lon2, lat2 };
+			GaussKruger.forward(xy, 0, 2, xy, 0, GaussKruger.zoneOf((lon1 + lon2) / 2));
+			return GaussKruger.pathLength(xy, 0, 2);
+		}
+	};
+
+	/**
+	 * ȾԲƣƽγȵҺƽ湴⣬ֻһcosһο
+	 * ƽ10ǧС1e-6ʺϺѡԤ
+	 */
+	public static final DistanceStrategy EQUIRECTANGULAR = new DistanceStrategy("equirectangular", new double[] { 1e-8, 1e-6, 1e-4, 1e-2 }) {
+		public double distance(double lon1, double lat1, double lon2, double lat2) {
+			double x = (lon2 - lon1) * Math.cos((lat1 + lat2) * Math.PI / 360.0);
+			double y = lat2 - lat1;
+			return Math.sqrt(x * x + y * y) * (Math.PI * LatLngUtil.RADIUS / 180.0);
+		}
+	};
+
+	private static final DistanceStrategy[] ALL = { HAVERSINE, VINCENTY, GAUSS_KRUGER, EQUIRECTANGULAR };
+
+	private final String name;
+	/**
+	 * ֶΣRANGESϣ
+	 */
+	private final double[] relativeErrors;
+
+	protected DistanceStrategy(String name, double[] relativeErrors) {
+		this.name = name;
+		this.relativeErrors = relativeErrors;
+	}
+
+	/**
+	 * 
+	 * @param lon1
+	 * @param lat1
+	 * @param lon2
+	 * @param lat2
+	 * @return λ
+	 */
+	public abstract double distance(double lon1, double lat1, double lon2, double lat2);
+
+	/**
+	 * һԶ
+	 * @param lon 㾭
+	 * @param lat γ
+	 * @param lons յ㾭
+	 * @param lats յγ
+	 * @param out out[i]Ϊ㵽iյľ룬λףȲСlons.length
+	 */
+	public void distances(double lon, double lat, double[] lons, double[] lats, double[] out) {
+		for (int i = 0; i < lons.length; i++) {
+			out[i] = distance(lon, lat, lons[i], lats[i]);
+		}
+	}
+
+	/**
+	 * HAVERSINEγȡ60
+	 * @param meters 룬λ
+	 * @return ޣλ
+	 */
+	public double getMaxError(double meters) {
+		return meters * getMaxRelativeError(meters);
+	}
+
+	/**
+	 * HAVERSINE1ǧڡ10ǧڡ100ǧں͸Զĵ
+	 * @param meters 룬λ
+	 * @return
+	 */
+	public double getMaxRelativeError(double meters) {
+		int i = 0;
+		while (i < RANGES.length && meters > RANGES[i]) {
+			i++;
+		}
+		return relativeErrors[i];
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * ȡ㷨ļѡ
+	 * @param name haversinevincentygauss-krugerequirectangular
+	 * @return
+	 */
+	public static DistanceStrategy forName(String name) {
+		for (int i = 0; i < ALL.length; i++) {
+			if (ALL[i].name.equalsIgnoreCase(name)) {
+				return ALL[i];
+			}
+		}
+		throw new IllegalArgumentException("δ֪ľ㷨" + name);
+	}
+
+	public static DistanceStrategy[] values() {
+		return ALL.clone();
+	}
+
+	public String toString() {
+		return name;
+	}
+
+	/**
+	 * WGS84
+	 */
+	private static final double WGS84_A = 6378137.0;
+	private static final double WGS84_F = 1 / 298.257223563;
+	private static final double WGS84_B = WGS84_A * (1 - WGS84_F);
+
+	/**
+	 * Vincenty㣬λ
+	 */
+	static double vincenty(double lon1, double lat1, double lon2, double lat2) {
+		double L = (lon2 - lon1) * Math.PI / 180.0;
+		double U1 = Math.atan((1 - WGS84_F) * Math.tan(lat1 * Math.PI / 180.0));
+		double U2 = Math.atan((1 - WGS84_F) * Math.tan(lat2 * Math.PI / 180.0));
+		double sinU1 = Math.sin(U1);
+		double cosU1 = Math.cos(U1);
+		double sinU2 = Math.sin(U2);
+		double cosU2 = Math.cos(U2);
+
+		double lambda = L;
+		double sinSigma;
+		double cosSigma;
+		double sigma;
+		double cosSqAlpha;
+		double cos2SigmaM;
+		int iterations = 0;
+		while (true) {
+			double sinLambda = Math.sin(lambda);
+			double cosLambda = Math.cos(lambda);
+			double t1 = cosU2 * sinLambda;
+			double t2 = cosU1 * sinU2 - sinU1 * cosU2 * cosLambda;
+			sinSigma = Math.sqrt(t1 * t1 + t2 * t2);
+			if (sinSigma == 0) {
+				//غϵ
+				return 0;
+			}
+			cosSigma = sinU1 * sinU2 + cosU1 * cosU2 * cosLambda;
+			sigma = Math.atan2(sinSigma, cosSigma);
+			double sinAlpha = cosU1 * cosU2 * sinLambda / sinSigma;
+			cosSqAlpha = 1 - sinAlpha * sinAlpha;
+			//㶼ڳʱcosSqAlphaΪ0
+			cos2SigmaM = cosSqAlpha == 0 ? 0 : cosSigma - 2 * sinU1 * sinU2 / cosSqAlpha;
+			double C = WGS84_F / 16 * cosSqAlpha * (4 + WGS84_F * (4 - 3 * cosSqAlpha));
+			double previous = lambda;
+			lambda = L + (1 - C) * WGS84_F * sinAlpha
+					* (sigma + C * sinSigma * (cos2SigmaM + C * cosSigma * (-1 + 2 * cos2SigmaM * cos2SigmaM)));
+			if (Math.abs(lambda - previous) < 1e-12) {
+				break;
+			}
+			if (++iterations == 200) {
+				//ŵ㲻
+				return LatLngUtil.sphereDistance(lon1, lat1, lon2, lat2);
+			}
+		}
+		double uSq = cosSqAlpha * (WGS84_A * WGS84_A - WGS84_B * WGS84_B) / (WGS84_B * WGS84_B);
+		double A = 1 + uSq / 16384 * (4096 + uSq * (-768 + uSq * (320 - 175 * uSq)));
+		double B = uSq / 1024 * (256 + uSq * (-128 + uSq * (74 - 47 * uSq)));
+		double deltaSigma = B * sinSigma * (cos2SigmaM + B / 4 * (cosSigma * (-1 + 2 * cos2SigmaM * cos2SigmaM)
+				- B / 6 * cos2SigmaM * (-3 + 4 * sinSigma * sinSigma) * (-3 + 4 * cos2SigmaM * cos2SigmaM)));
+		return WGS84_B * A * (sigma - deltaSigma);
+	}
+}
@@ -0,0 +1,300 @@
+package sde;
+
+/**
+ * ˹ͶӰ6㣬ͶӰʽLatLngUtil.BlToGsͬṩ
+ * 	㣺еľγ[lon0, lat0, lon1, lat1, ...]תΪ˹[X0, Y0, X1, Y1, ...]
+ * XΪYΪҺţMPointxyһ£
+ *  ڷ㣺˹תؾγȣŴYж
+ *  ͶӰ켣ƽֶγܳ
+ * <pre>
+ * //켣ͶӰͬһ人114EʱƽȻ
+ * int zone = GaussKruger.zoneOf(track, 0, count);
+ * GaussKruger.forward(track, 0, count, xy, 0, zone);
+ * double meters = GaussKruger.pathLength(xy, 0, count);
+ * </pre>
+ * ÿʼʱȷһΣָʱʹͬһ뾭ߣĵ㰴㣬
+ * 뾭3ʱȱԼ0.14%BlToGsڴ߽YԼ100׵
+ * ΪPER_POINTʱBlToGsһ£ÿԼĴڣֻھ뿪ǰʱ¼
+ * @author Administrator
+ *
+ */
+public class GaussKruger {
+
+	/**
+	 * ȷţBlToGsͬ
+	 */
+	public static final int PER_POINT = Integer.MIN_VALUE;
+
+	/**
+	 * λ
+	 */
+	private static final double ZONE_WIDTH = 6;
+
+	/**
+	 * ÿYռĳȣλ
+	 */
+	private static final double ZONE_PREFIX = 1000000;
+
+	private static final double FALSE_EASTING = 500000;
+
+	/**
+	 * λȣԼ6e-6ף
+	 */
+	private static final double EPSILON = 1e-12;
+
+	private static final int MAX_ITERATIONS = 10;
+
+	/**
+	 * ͶӰϵLatLngUtil.gsXgsYͬ
+	 */
+	private static final double A0 = 6367558.497;
+	private static final double A1 = 16036.480, A2 = 1597237.956, A3 = 268563.280;
+	private static final double A4 = 16.828, A5 = 1340.831, A6 = 201450.536;
+	private static final double D0 = 6383594.975, D1 = 535998.795, D2 = 54206.791;
+	private static final double E0 = 5356.713, E1 = 534204.967, E2 = 134966.691;
+	private static final double F0 = 6.744, F2 = 81276.496;
+
+	private static final double DEG = Math.PI / 180;
+
+	private GaussKruger() {
+	}
+
+	/**
+	 * ڵĴţBlToGsYͬ
+	 * @param lon
+	 * @return
+	 */
+	public static int zoneOf(double lon) {
+		return (int)Math.floor(lon / ZONE_WIDTH) + 1;
+	}
+
+	/**
+	 * һ㹲õĴţȷΧеڵĴʹ뾭ߵԶС
+	 * @param lonLats еľγ
+	 * @param off ʼ
+	 * @param count 
+	 * @return
+	 */
+	public static int zoneOf(double[] lonLats, int off, int count) {
+		checkPacked(lonLats, off, count);
+		if (count == 0) {
+			throw new IllegalArgumentException("Ϊ0޷ȷ");
+		}
+		double min = Double.POSITIVE_INFINITY;
+		double max = Double.NEGATIVE_INFINITY;
+		for (int i = off * 2, end = (off + count) * 2; i < end; i += 2) {
+			double lon = lonLats[i];
+			if (lon < min) {
+				min = lon;
+			}
+			if (lon > max) {
+				max = lon;
+			}
+		}
+		return zoneOf((min + max) / 2);
+	}
+
+	/**
+	 * 뾭
+	 * @param zone
+	 * @return λ
+	 */
+	public static double centralMeridian(int zone) {
+		return zone * ZONE_WIDTH - 3;
+	}
+
+	/**
+	 * 
+	 * @param lonLats еľγȣλ
+	 * @param off ʼ
+	 * @param count 
+	 * @param xys еĸ˹꣬lonLatsΪͬһ飨ԭͶӰ
+	 * @param outOff ʼ
+	 * @param zone ʹõĴţPER_POINT
+	 */
+	public static void forward(double[] lonLats, int off, int count, double[] xys, int outOff, int zone) {
+		checkPacked(lonLats, off, count);
+		checkPacked(xys, outOff, count);
+		boolean perPoint = zone == PER_POINT;
+		//ǰľȷΧ
+		double west = Double.NaN;
+		double east = Double.NaN;
+		double cm = 0;
+		double prefix = 0;
+		if (!perPoint) {
+			cm = centralMeridian(zone) * DEG;
+			prefix = FALSE_EASTING + zone * ZONE_PREFIX;
+		}
+		int in = off * 2;
+		int out = outOff * 2;
+		for (int k = 0; k < count; k++, in += 2, out += 2) {
+			double lon = lonLats[in];
+			double lat = lonLats[in + 1] * DEG;
+			if (perPoint && !(lon >= west && lon < east)) {
+				int z = zoneOf(lon);
+				west = (z - 1) * ZONE_WIDTH;
+				east = west + ZONE_WIDTH;
+				cm = centralMeridian(z) * DEG;
+				prefix = FALSE_EASTING + z * ZONE_PREFIX;
+			}
+			double l = lon * DEG - cm;
+			double l2 = l * l;
+			double l4 = l2 * l2;
+			double sinB = LatLngUtil.fastSin(lat);
+			double cosB = Math.sqrt((1 - sinB) * (1 + sinB));
+			double cos2B = cosB * cosB;
+			double sin2B = 2 * sinB * cosB;
+			double sin4B = 2 * sin2B * (cos2B - sinB * sinB);
+			double cos3B = cosB * (4 * cos2B - 3);
+			double cos5B = cosB * (16 * cos2B * cos2B - 20 * cos2B + 5);
+			xys[out] = A0 * lat - (A1 - A2 * l2 - A3 * l4) * sin2B + (A4 - A5 * l2 + A6 * l4) * sin4B;
+			xys[out + 1] = l * ((D0 + D1 * l2 + D2 * l4) * cosB - (E0 - E1 * l2 - E2 * l4) * cos3B
+					+ (F0 + F2 * l4) * cos5B) + prefix;
+		}
+	}
+
+	/**
+	 * 㣺ȡYİλϲ֣ͬĵֻһ뾭ߣ
+	 * ߻îȦ뾶Ƴֵٶ㹫ʽţٵforward棨С1e-6ף
+	 * ֻܴYж뾭50ڣԼ4.5㣩Զ
+	 * @param xys еĸ˹
+	 * @param off ʼ
+	 * @param count 
+	 * @param lonLats еľγȣλȣxysΪͬһ
+	 * @param outOff ʼ
+	 */
+	public static void inverse(double[] xys, int off, int count, double[] lonLats, int outOff) {
+		checkPacked(xys, off, count);
+		checkPacked(lonLats, outOff, count);
+		int zone = PER_POINT;
+		double cm = 0;
+		int in = off * 2;
+		int out = outOff * 2;
+		for (int k = 0; k < count; k++, in += 2, out += 2) {
+			double x = xys[in];
+			double y = xys[in + 1];
+			int z = (int)Math.floor(y / ZONE_PREFIX);
+			if (z != zone) {
+				zone = z;
+				cm = centralMeridian(z) * DEG;
+			}
+			y -= FALSE_EASTING + z * ZONE_PREFIX;
+
+			double b = x / A0;
+			b += (A1 * Math.sin(2 * b)) / A0;
+			double l = y / (D0 * Math.cos(b));
+			for (int i = 0; i < MAX_ITERATIONS; i++) {
+				double sinB = Math.sin(b);
+				double cosB = Math.cos(b);
+				double cos2B = cosB * cosB - sinB * sinB;
+				double sin2B = 2 * sinB * cosB;
+				double sin4B = 2 * sin2B * cos2B;
+				double cos4B = 2 * cos2B * cos2B - 1;
+				double sin3B = sinB * (3 - 4 * sinB * sinB);
+				double cos3B = cosB * (4 * cosB * cosB - 3);
+				double sin5B = sin4B * cosB + cos4B * sinB;
+				double cos5B = cos4B * cosB - sin4B * sinB;
+				double l2 = l * l;
+				double l3 = l2 * l;
+				double l4 = l2 * l2;
+				double p = A1 - A2 * l2 - A3 * l4;
+				double q = A4 - A5 * l2 + A6 * l4;
+				double d = D0 + D1 * l2 + D2 * l4;
+				double e = E0 - E1 * l2 - E2 * l4;
+				double f = F0 + F2 * l4;
+				double s = d * cosB - e * cos3B + f * cos5B;
+				//вſɱȾ
+				double fx = A0 * b - p * sin2B + q * sin4B - x;
+				double fy = l * s - y;
+				double xb = A0 - 2 * p * cos2B + 4 * q * cos4B;
+				double xl = (2 * A2 * l + 4 * A3 * l3) * sin2B + (-2 * A5 * l + 4 * A6 * l3) * sin4B;
+				double yb = l * (-d * sinB + 3 * e * sin3B - 5 * f * sin5B);
+				double yl = s + l * ((2 * D1 * l + 4 * D2 * l3) * cosB + (2 * E1 * l + 4 * E2 * l3) * cos3B
+						+ 4 * F2 * l3 * cos5B);
+				double det = xb * yl - xl * yb;
+				double db = (fx * yl - fy * xl) / det;
+				double dl = (fy * xb - fx * yb) / det;
+				b -= db;
+				l -= dl;
+				if (Math.abs(db) < EPSILON && Math.abs(dl) < EPSILON) {
+					break;
+				}
+			}
+			lonLats[out] = (l + cm) / DEG;
+			lonLats[out + 1] = b / DEG;
+		}
+	}
+
+	/**
+	 * ͶӰƽ
+	 * @param xys еĸ˹꣬ͬһڣforwardָţ
+	 * @param off ʼ
+	 * @param count 
+	 * @param out out[outOff + i]Ϊi㵽i+1ľ룬λףcount-1
+	 * @param outOff ʼ±
+	 */
+	public static void segmentLengths(double[] xys, int off, int count, double[] out, int outOff) {
+		checkPacked(xys, off, count);
+		if (count > 1 && (outOff < 0 || outOff + count - 1 > out.length)) {
+			throw new IllegalArgumentException("鳤Ȳ㣺" + out.length + " < " + (outOff + count - 1));
+		}
+		for (int i = off * 2, end = (off + count - 1) * 2; i < end; i += 2) {
+			double dx = xys[i + 2] - xys[i];
+			double dy = xys[i + 3] - xys[i + 1];
+			out[outOff++] = Math.sqrt(dx * dx + dy * dy);
+		}
+	}
+
+	/**
+	 * ͶӰߵƽܳ
+	 * @param xys еĸ˹꣬ͬһ
+	 * @param off ʼ
+	 * @param count 
+	 * @return λ
+	 */
+	public static double pathLength(double[] xys, int off, int count) {
+		checkPacked(xys, off, count);
+		double sum = 0;
+		for (int i = off * 2, end = (off + count - 1) * 2; i < end; i += 2) {
+			double dx = xys[i + 2] - xys[i];
+			double dy = xys[i + 3] - xys[i + 1];
+			sum += Math.sqrt(dx * dx + dy * dy);
+		}
+		return sum;
+	}
+
+	/**
+	 * 켣ƽܳȣ켣ͶӰzoneOf(lonLats, off, count)ͣ
+	 * ֿͶӰ޸룬Ҳ켣ȳ
+	 * @param lonLats еľγ
+	 * @param off ʼ
+	 * @param count 
+	 * @return λ
+	 */
+	public static double trajectoryLength(double[] lonLats, int off, int count) {
+		if (count < 2) {
+			checkPacked(lonLats, off, count);
+			return 0;
+		}
+		int zone = zoneOf(lonLats, off, count);
+		//ÿͶӰһ㣬һβ
+		double[] block = new double[2 * 256];
+		int step = block.length / 2 - 1;
+		double sum = 0;
+		for (int start = off, end = off + count - 1; start < end; start += step) {
+			int n = Math.min(step, end - start) + 1;
+			forward(lonLats, start, n, block, 0, zone);
+			sum += pathLength(block, 0, n);
+		}
+		return sum;
+	}
+
+	/**
+	 * Уɴoffcount
+	 */
+	private static void checkPacked(double[] packed, int off, int count) {
+		if (off < 0 || count < 0 || ((long)off + count) * 2 > packed.length) {
+			throw new IllegalArgumentException("鳤Ȳ㣺Ҫ" + (off + count) + "㣬ʵ" + packed.length / 2 + "");
+		}
+	}
+}
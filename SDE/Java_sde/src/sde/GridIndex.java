@@ -0,0 +1,458 @@
+package sde;
+
+import com.esri.sde.devhelp.RadixSort;
+import com.esri.sde.sdk.client.SeConnection;
+import com.esri.sde.sdk.client.SeException;
+
+/**
+ * ͻ˾ֻеҪصͼ㣨taxi_point_cloud
+ * 	ٰ趨߳LatLngUtil.m2gpsΪȣȷ򰴲ογ
+ * 	ΪlongLongIntHashMapӳ䵽ڵֻе
+ * 	֧롢ƶɾʺʵʱճ⳵λ
+ * 	ܵIDʱڶPointStoreУλ¼±ֻ꣬͹ϣĻ
+ * ѯֻѯཻ񣬺ʱеȣܵ޹ء
+ * RTreeIndexȹ졢޸ģʺϴСҪء
+ * ̰߳ȫ߸±߲ѯʱɵ÷ͬ
+ * @author Administrator
+ *
+ */
+public class GridIndex implements PointIndex {
+
+	/**
+	 * Ĭ߳λ
+	 */
+	public static final double DEFAULT_CELL_METERS = 500;
+
+	private static final int NONE = -1;
+
+	/**
+	 * radiusQueryþֲƽԤе뾶λףİ뾶
+	 */
+	private static final double PLANAR_SHORTCUT_METERS = 100000;
+
+	private final double cellMeters;
+	/**
+	 * ߳λ
+	 */
+	private final double cellX;
+	private final double cellY;
+
+	/**
+	 *  -> ڵһĲλ
+	 */
+	private final LongIntHashMap cells;
+	/**
+	 * ҪID -> λ
+	 */
+	private final LongIntHashMap slots;
+
+	private final PointStore store;
+	/**
+	 * ˫вλͨnextɿ
+	 */
+	private int[] next;
+	private int[] prev;
+	private int freeHead = NONE;
+	private int size = 0;
+
+	/**
+	 * @param cellMeters ߳λ
+	 * @param refLat ογȣͨȡݷΧγȣڻ㾭ȷı߳
+	 */
+	public GridIndex(double cellMeters, double refLat) {
+		this(cellMeters, refLat, 1024);
+	}
+
+	/**
+	 * @param cellMeters ߳λ
+	 * @param refLat ογ
+	 * @param expected ԤƵ
+	 */
+	public GridIndex(double cellMeters, double refLat, int expected) {
+		this(cellMeters, refLat, new PointStore(expected), expected);
+	}
+
+	private GridIndex(double cellMeters, double refLat, PointStore store, int expected) {
+		if (!(cellMeters > 0)) {
+			throw new IllegalArgumentException("߳0" + cellMeters);
+		}
+		this.cellMeters = cellMeters;
+		this.cellY = LatLngUtil.m2gps(cellMeters);
+		this.cellX = Math.min(360.0, cellY / Math.cos(Math.min(89.0, Math.abs(refLat)) * Math.PI / 180.0));
+		int capacity = Math.max(16, expected);
+		this.cells = new LongIntHashMap(Math.max(16, expected / 4));
+		this.slots = new LongIntHashMap(capacity);
+		this.store = store;
+		this.next = new int[capacity];
+		this.prev = new int[capacity];
+	}
+
+	/**
+	 * ɵ깹
+	 * @param xs 
+	 * @param ys γ
+	 * @param ids ҪIDظ
+	 * @param cellMeters ߳λ
+	 * @return
+	 */
+	public static GridIndex build(double[] xs, double[] ys, long[] ids, double cellMeters) {
+		double minY = Double.POSITIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < ys.length; i++) {
+			minY = Math.min(minY, ys[i]);
+			maxY = Math.max(maxY, ys[i]);
+		}
+		double refLat = ys.length == 0 ? 0 : (minY + maxY) / 2;
+		GridIndex index = new GridIndex(cellMeters, refLat, ids.length);
+		//룬ͬһĵڣѯʱô
+		long[] keys = new long[ids.length];
+		for (int i = 0; i < ids.length; i++) {
+			keys[i] = cellKey(index.cellOfX(xs[i]), index.cellOfY(ys[i]));
+		}
+		int[] order = RadixSort.sort(keys);
+		for (int i = 0; i < order.length; i++) {
+			int k = order[i];
+			index.put(ids[k], xs[k], ys[k]);
+		}
+		return index;
+	}
+
+	/**
+	 * еPointStoreΪײ洢¼ƣ֮ĵ׷ӵô洢С
+	 * ογȡȫ¼γȷΧģIDظʱԺļ¼Ϊ׼
+	 * storeΪװⲿڴֻ洢LayerSnapshot.getPoints()ʱԲѯputҪʱcopy()
+	 * @param store
+	 * @param cellMeters ߳λ
+	 * @return
+	 */
+	public static GridIndex index(PointStore store, double cellMeters) {
+		int n = store.size();
+		double minY = Double.POSITIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < n; i++) {
+			double y = store.getY(i);
+			minY = Math.min(minY, y);
+			maxY = Math.max(maxY, y);
+		}
+		GridIndex index = new GridIndex(cellMeters, n == 0 ? 0 : (minY + maxY) / 2, store, n);
+		for (int slot = 0; slot < n; slot++) {
+			int old = index.slots.put(store.getId(slot), slot);
+			if (old != NONE) {
+				index.unlink(old, index.cellOf(old));
+				index.free(old);
+			} else {
+				index.size++;
+			}
+			index.link(slot, index.cellOf(slot));
+		}
+		return index;
+	}
+
+	/**
+	 * ͼȫɨװڶPointStore
+	 * @param conn
+	 * @param tableName ͼ"taxi_point_cloud"
+	 * @param idColumn ҪIDУΪͣ"OBJECTID"Ϊյ
+	 * @param cellMeters ߳λ
+	 * @return
+	 * @throws SeException
+	 */
+	public static GridIndex load(SeConnection conn, String tableName, String idColumn, double cellMeters) throws SeException {
+		return index(PointStore.load(conn, tableName, idColumn, null), cellMeters);
+	}
+
+	/**
+	 * ͼȫɨװͼԪȡmetadata
+	 * @param conn
+	 * @param tableName ͼ"taxi_point_cloud"
+	 * @param idColumn ҪIDУΪͣ"OBJECTID"Ϊյ
+	 * @param cellMeters ߳λ
+	 * @param metadata Ԫݻ棬ӳصgetMetadataCache()
+	 * @return
+	 * @throws SeException
+	 */
+	public static GridIndex load(SeConnection conn, String tableName, String idColumn, double cellMeters, SdeMetadataCache metadata)
+			throws SeException {
+		return index(PointStore.load(conn, tableName, idColumn, null, metadata), cellMeters);
+	}
+
+	private int cellOfX(double x) {
+		return (int)Math.floor(x / cellX);
+	}
+
+	private int cellOfY(double y) {
+		return (int)Math.floor(y / cellY);
+	}
+
+	private static long cellKey(int cx, int cy) {
+		return ((long)cx << 32) | (cy & 0xFFFFFFFFL);
+	}
+
+	private long cellOf(int slot) {
+		return cellKey(cellOfX(store.getX(slot)), cellOfY(store.getY(slot)));
+	}
+
+	/**
+	 * һ㣻IDѴʱƶλã⳵ϱ¶λ
+	 * @param id ҪID
+	 * @param x 
+	 * @param y γ
+	 */
+	public void put(long id, double x, double y) {
+		put(id, x, y, 0);
+	}
+
+	/**
+	 * һ㣻IDѴʱƶλòʱ
+	 * @param id ҪID
+	 * @param x 
+	 * @param y γ
+	 * @param time λʱ䣬λ
+	 */
+	public void put(long id, double x, double y, long time) {
+		long key = cellKey(cellOfX(x), cellOfY(y));
+		int slot = slots.get(id);
+		if (slot != NONE) {
+			long oldKey = cellOf(slot);
+			store.move(slot, x, y, time);
+			if (oldKey != key) {
+				unlink(slot, oldKey);
+				link(slot, key);
+			}
+			return;
+		}
+		if (freeHead != NONE) {
+			slot = freeHead;
+			freeHead = next[slot];
+			store.set(slot, id, x, y, time);
+		} else {
+			slot = store.add(id, x, y, time);
+			if (slot >= next.length) {
+				int capacity = Math.max(slot + 1, next.length * 2);
+				next = grow(next, capacity);
+				prev = grow(prev, capacity);
+			}
+		}
+		slots.put(id, slot);
+		size++;
+		link(slot, key);
+	}
+
+	/**
+	 * ɾһ㣬¼´β븴
+	 * @param id ҪID
+	 * @return Ƿ
+	 */
+	public boolean remove(long id) {
+		int slot = slots.remove(id);
+		if (slot == NONE) {
+			return false;
+		}
+		unlink(slot, cellOf(slot));
+		free(slot);
+		size--;
+		return true;
+	}
+
+	private void free(int slot) {
+		next[slot] = freeHead;
+		freeHead = slot;
+	}
+
+	public boolean contains(long id) {
+		return slots.containsKey(id);
+	}
+
+	/**
+	 * @return Ҫе±꣨PointStoreеļ¼±꣩ʱΪ-1
+	 */
+	public int slotOf(long id) {
+		return slots.get(id);
+	}
+
+	private void link(int slot, long key) {
+		int head = cells.get(key);
+		prev[slot] = NONE;
+		next[slot] = head;
+		if (head != NONE) {
+			prev[head] = slot;
+		}
+		cells.put(key, slot);
+	}
+
+	private void unlink(int slot, long key) {
+		int p = prev[slot];
+		int n = next[slot];
+		if (n != NONE) {
+			prev[n] = p;
+		}
+		if (p != NONE) {
+			next[p] = n;
+		} else if (n != NONE) {
+			cells.put(key, n);
+		} else {
+			cells.remove(key);
+		}
+	}
+
+	private static int[] grow(int[] a, int length) {
+		int[] t = new int[length];
+		System.arraycopy(a, 0, t, 0, Math.min(a.length, length));
+		return t;
+	}
+
+	/**
+	 * ڲѯڵĵ㣻ѯθǵڷǿʱΪȫǿ
+	 * @return и
+	 */
+	public int search(double minX, double minY, double maxX, double maxY, PointIndex.Visitor visitor) {
+		if (size == 0 || minX > maxX || minY > maxY) {
+			return 0;
+		}
+		int minCx = cellOfX(minX);
+		int maxCx = cellOfX(maxX);
+		int minCy = cellOfY(minY);
+		int maxCy = cellOfY(maxY);
+		int hits = 0;
+		if ((double)(maxCx - minCx + 1) * (maxCy - minCy + 1) > cells.size()) {
+			for (int i = 0; i < cells.capacity(); i++) {
+				if (!cells.isUsed(i)) {
+					continue;
+				}
+				long key = cells.keyAt(i);
+				int cx = (int)(key >> 32);
+				int cy = (int)key;
+				if (cx >= minCx && cx <= maxCx && cy >= minCy && cy <= maxCy) {
+					hits += visitCell(cells.valueAt(i), minX, minY, maxX, maxY, visitor);
+				}
+			}
+			return hits;
+		}
+		for (int cx = minCx; cx <= maxCx; cx++) {
+			for (int cy = minCy; cy <= maxCy; cy++) {
+				int head = cells.get(cellKey(cx, cy));
+				if (head != NONE) {
+					hits += visitCell(head, minX, minY, maxX, maxY, visitor);
+				}
+			}
+		}
+		return hits;
+	}
+
+	private int visitCell(int slot, double minX, double minY, double maxX, double maxY, PointIndex.Visitor visitor) {
+		int hits = 0;
+		while (slot != NONE) {
+			//ȡnextصɾǰ㲻Ӱ
+			int n = next[slot];
+			double x = store.getX(slot);
+			double y = store.getY(slot);
+			if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+				visitor.visit(slot);
+				hits++;
+			}
+			slot = n;
+		}
+		return hits;
+	}
+
+	/**
+	 * ȷԲηΧѯLatLngUtil.sphereDistancemetersͬ
+	 * 뾶100ǧʱȰγȷΧڵС󾭶ȱƽ½磬
+	 * ԲڻԲ⣨1%ĵ㲻ټ룻İ뾶
+	 * @param lon
+	 * @param lat
+	 * @param meters 뾶λ
+	 * @return ҪID
+	 */
+	public long[] radiusQuery(final double lon, final double lat, final double meters) {
+		final long[][] buffer = new long[][] { new long[64] };
+		final int[] count = new int[1];
+		double[] box = LatLngUtil.envelope(lon, lat, meters);
+		//ȷÿȵγȱ仯ȡγȷΧڵСֵʹƽΪ½
+		final double mPerDegY = Math.PI * LatLngUtil.RADIUS / 180.0;
+		double cosSouth = Math.cos(box[1] * Math.PI / 180.0);
+		double cosNorth = Math.cos(box[3] * Math.PI / 180.0);
+		double maxCos = box[1] <= 0 && box[3] >= 0 ? 1 : Math.max(cosSouth, cosNorth);
+		final double minX2 = square(mPerDegY * Math.max(0, Math.min(cosSouth, cosNorth)));
+		final double maxX2 = square(mPerDegY * maxCos);
+		final double inner = meters * meters * 0.98;
+		final double outer = meters * meters * 1.02;
+		final boolean planar = meters <= PLANAR_SHORTCUT_METERS;
+		search(box[0], box[1], box[2], box[3], new PointIndex.Visitor() {
+			public void visit(int item) {
+				double x = store.getX(item);
+				double y = store.getY(item);
+				if (planar) {
+					double dx2 = (x - lon) * (x - lon);
+					double dy2 = square((y - lat) * mPerDegY);
+					if (dx2 * minX2 + dy2 > outer) {
+						return;
+					}
+					if (dx2 * maxX2 + dy2 > inner && LatLngUtil.sphereDistance(lon, lat, x, y) > meters) {
+						return;
+					}
+				} else if (LatLngUtil.sphereDistance(lon, lat, x, y) > meters) {
+					return;
+				}
+				if (count[0] == buffer[0].length) {
+					long[] t = new long[count[0] * 2];
+					System.arraycopy(buffer[0], 0, t, 0, count[0]);
+					buffer[0] = t;
+				}
+				buffer[0][count[0]++] = store.getId(item);
+			}
+		});
+		long[] result = new long[count[0]];
+		System.arraycopy(buffer[0], 0, result, 0, count[0]);
+		return result;
+	}
+
+	private static double square(double v) {
+		return v * v;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return ǿ
+	 */
+	public int getCellCount() {
+		return cells.size();
+	}
+
+	public double getCellMeters() {
+		return cellMeters;
+	}
+
+	/**
+	 * @return ײ洢ɾļ¼ȻڣӦͨsearch/containsж
+	 */
+	public PointStore getStore() {
+		return store;
+	}
+
+	public long getId(int item) {
+		return store.getId(item);
+	}
+
+	public double getX(int item) {
+		return store.getX(item);
+	}
+
+	public double getY(int item) {
+		return store.getY(item);
+	}
+
+	/**
+	 * @return λʱ䣬λ
+	 */
+	public long getTime(int item) {
+		return store.getTime(item);
+	}
+
+	public String toString() {
+		return "GridIndex[size=" + size + ", cells=" + cells.size() + ", cellMeters=" + cellMeters + "]";
+	}
+}
@@ -0,0 +1,175 @@
+package sde;
+
+import com.esri.sde.sdk.client.SeColumnDefinition;
+import com.esri.sde.sdk.client.SeConnection;
+import com.esri.sde.sdk.client.SeCoordinateReference;
+import com.esri.sde.sdk.client.SeException;
+import com.esri.sde.sdk.client.SeExtent;
+import com.esri.sde.sdk.client.SeFilter;
+import com.esri.sde.sdk.client.SeLayer;
+import com.esri.sde.sdk.client.SeQuery;
+import com.esri.sde.sdk.client.SeQueryInfo;
+import com.esri.sde.sdk.client.SeRow;
+import com.esri.sde.sdk.client.SeShape;
+import com.esri.sde.sdk.client.SeSqlConstruct;
+import com.esri.sde.sdk.client.SeTable;
+
+/**
+ * ͨjsde_sdk.jarArcSDESpatialDataSourceʵ
+ * ÿβӳؽӣ黹ҲԹ̶ʹһӣ÷رգ
+ * ͼԪʹӳصĻ棬̶ʱʹøӵĻ棨SdeMetadataCache.forConnection
+ * ͬһϷ½ԴNearestNeighbors.search(conn, ...)ѼصԪ
+ * @author Administrator
+ *
+ */
+public class JsdeDataSource implements SpatialDataSource {
+
+	/**
+	 * insertÿύ
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 1000;
+
+	private final ConnectionPool<SeConnection> pool;
+	private final SeConnection conn;
+	private final SdeMetadataCache metadata;
+	private int batchSize = DEFAULT_BATCH_SIZE;
+
+	/**
+	 * @param pool ӳأSdeConnection.getPool()
+	 */
+	public JsdeDataSource(ConnectionPool<SeConnection> pool) {
+		this.pool = pool;
+		this.conn = null;
+		this.metadata = pool.getMetadataCache();
+	}
+
+	/**
+	 * @param conn ̶ʹõӣֻһ߳ʹ
+	 */
+	public JsdeDataSource(SeConnection conn) {
+		this(conn, SdeMetadataCache.forConnection(conn));
+	}
+
+	/**
+	 * @param conn ̶ʹõӣֻһ߳ʹ
+	 * @param metadata Ԫݻ棬ӳصgetMetadataCache()
+	 */
+	public JsdeDataSource(SeConnection conn, SdeMetadataCache metadata) {
+		this.pool = null;
+		this.conn = conn;
+		this.metadata = metadata;
+	}
+
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	private SeConnection borrow() throws SeException {
+		if (conn != null) {
+			return conn;
+		}
+		try {
+			return pool.borrow();
+		} catch (SeException e) {
+			throw e;
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IllegalStateException("ȡʧ", e);
+		}
+	}
+
+	private void release(SeConnection c) {
+		if (pool != null) {
+			pool.release(c);
+		}
+	}
+
+	public SeColumnDefinition[] describe(String tableName) throws SeException {
+		SeConnection c = borrow();
+		try {
+			return metadata.getColumns(c, tableName);
+		} finally {
+			release(c);
+		}
+	}
+
+	public SeCoordinateReference getCoordRef(String tableName) throws SeException {
+		SeConnection c = borrow();
+		try {
+			return metadata.getCoordRef(c, tableName);
+		} finally {
+			release(c);
+		}
+	}
+
+	public int envelopeQuery(String tableName, String idColumn, double minX, double minY, double maxX, double maxY,
+			FeatureVisitor visitor) throws SeException {
+		SeConnection c = borrow();
+		try {
+			SeLayer layer = metadata.getLayer(c, tableName);
+			SeShape envelope = SdeDao.generateEnvelopeSeShape(layer.getCoordRef(), minX, minY, maxX, maxY);
+			SeFilter[] filters = SdeDao.generateFilters(envelope, layer.getName(), layer.getSpatialColumn());
+			int hits = 0;
+			SdeCursor cursor = new SdeQueryBuilder(c, tableName).metadata(metadata).columns(idColumn).withShape(true).filters(filters).open();
+			try {
+				while (cursor.hasNext()) {
+					SeRow row = cursor.next();
+					Object id = row.getObject(0);
+					SeShape shape = row.getShape(1);
+					if (id == null || shape == null || shape.isNil()) {
+						continue;
+					}
+					SeExtent extent = shape.getExtent();
+					visitor.visit(((Number)id).longValue(),
+							(extent.getMinX() + extent.getMaxX()) / 2, (extent.getMinY() + extent.getMaxY()) / 2);
+					hits++;
+				}
+			} finally {
+				cursor.close();
+			}
+			return hits;
+		} finally {
+			release(c);
+		}
+	}
+
+	public long insert(String tableName, double[] lons, double[] lats) throws SeException {
+		SeConnection c = borrow();
+		try {
+			SdeBulkInserter inserter = new SdeBulkInserter(c, tableName, batchSize, metadata);
+			try {
+				inserter.addAll(lons, lats);
+			} finally {
+				inserter.close();
+			}
+			return inserter.getCommittedRows();
+		} finally {
+			release(c);
+		}
+	}
+
+	public TableStats stats(String tableName, String column) throws SeException {
+		SeConnection c = borrow();
+		try {
+			SeQueryInfo queryInfo = new SeQueryInfo();
+			queryInfo.setColumns(new String[] { column });
+			queryInfo.setConstruct(new SeSqlConstruct(tableName));
+			SeQuery query = new SeQuery(c);
+			try {
+				SeTable.SeTableStats stats = query.calculateTableStatistics(column,
+						SeTable.SeTableStats.SE_COUNT_STATS | SeTable.SeTableStats.SE_MIN_STATS
+						| SeTable.SeTableStats.SE_MAX_STATS | SeTable.SeTableStats.SE_AVERAGE_STATS, queryInfo, 0);
+				return new TableStats(stats.getCount(), stats.getMin(), stats.getMax(), stats.getAverage());
+			} finally {
+				query.close();
+			}
+		} finally {
+			release(c);
+		}
+	}
+
+	public String toString() {
+		return "JsdeDataSource[" + (pool != null ? pool.toString() : conn.toString()) + "]";
+	}
+}
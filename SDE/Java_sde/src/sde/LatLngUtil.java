@@ -28,6 +28,19 @@ public class LatLngUtil
 	 */
 	public static double RADIUS = 6378137;
 	
+	/**
+	 * ӿǷʹÿںˣǵ+ʽңĬϿ
+	 *  -Dsde.fastKernel=false ˻
+	 */
+	public static boolean FAST_KERNEL = !"false".equalsIgnoreCase(System.getProperty("sde.fastKernel"));
+	
+	/**
+	 * ں˷ֿСͶӰջСУС޹
+	 */
+	private static final int BLOCK = 256;
+	
+	private static final double HALF_PI = Math.PI / 2;
+	
 	public double Lat = 0.0;
 	public double Lng = 0.0;
 	
@@ -73,13 +86,21 @@ public class LatLngUtil
 	 */
 	private static MPoint BlToGs(double lon, double lat)         
 	{
-		  int dh;//   
-		  double temp1, temp2, a, b, c, d, e, f;
+		  return new MPoint(gsX(lon, lat), gsY(lon, lat));
+	}
+	
+	/**
+	 * ˹ƽX򣩣ֻγȵsin(2B)sin(4B)
+	 * @param lon
+	 * @param lat
+	 * @return
+	 */
+	private static double gsX(double lon, double lat)
+	{
+		  double temp1, temp2, a, b, c;
 		  double l1, l2;
-		  double xg, yg;
 		  int n;
 		  n = (int)(lon / 6);
-		  dh = n + 1;
 		  l2 = 3 + 6 * n;
 		  l1 = lon - l2;
 		  temp1 = lat * Math.PI / 180;
@@ -87,12 +108,31 @@ public class LatLngUtil
 		  a = 6367558.497 * temp1;
 		  b = (16036.480 - 1597237.956 * Math.pow(temp2, 2) - 268563.280 * Math.pow(temp2, 4)) * Math.sin(2 * temp1);
 		  c = (16.828 - 1340.831 * Math.pow(temp2, 2) + 201450.536 * Math.pow(temp2, 4)) * Math.sin(4 * temp1);
-		  xg = a - b + c;
+		  return a - b + c;
+	}
+	
+	/**
+	 * ˹ƽY򣬺ţֻγȵcos(B)cos(3B)cos(5B)
+	 * @param lon
+	 * @param lat
+	 * @return
+	 */
+	private static double gsY(double lon, double lat)
+	{
+		  int dh;//   
+		  double temp1, temp2, d, e, f;
+		  double l1, l2;
+		  int n;
+		  n = (int)(lon / 6);
+		  dh = n + 1;
+		  l2 = 3 + 6 * n;
+		  l1 = lon - l2;
+		  temp1 = lat * Math.PI / 180;
+		  temp2 = l1 * Math.PI / 180;
 		  d = (6383594.975 + 535998.795 * Math.pow(temp2, 2) + 54206.791 * Math.pow(temp2, 4)) * Math.cos(temp1);
 		  e = (5356.713 - 534204.967 * Math.pow(temp2, 2) - 134966.691 * Math.pow(temp2, 4)) * Math.cos(3 * temp1);
 		  f = (6.744 + 81276.496 * Math.pow(temp2, 4)) * Math.cos(5 * temp1);
-		  yg = (temp2) * (d - e + f) + 500000 + dh * 1000000;
-		  return new MPoint(xg, yg);
+		  return (temp2) * (d - e + f) + 500000 + dh * 1000000;
 	}
 	/**
 	 * γת˹
@@ -143,12 +183,356 @@ public class LatLngUtil
     }
 	
 	/**
-	 * 뷴㣬ƾȲ
+	 * 루ʸʽgps2mͬȡھȷİ뾶ж
+	 * @param lng_a
+	 * @param lat_a
+	 * @param lng_b
+	 * @param lat_b
+	 * @return 룬λ
+	 */
+	public static double sphereDistance(double lng_a, double lat_a, double lng_b, double lat_b) {
+		double radLat1 = lat_a * Math.PI / 180.0;
+		double radLat2 = lat_b * Math.PI / 180.0;
+		double sa = Math.sin((radLat1 - radLat2) / 2);
+		double sb = Math.sin((lng_a - lng_b) * Math.PI / 180.0 / 2);
+		return 2 * RADIUS * Math.asin(Math.sqrt(sa * sa + Math.cos(radLat1) * Math.cos(radLat2) * sb * sb));
+	}
+	
+	/**
+	 * ÿȾ߻λףm2gpsԭÿεgps2m(0,0,1,0)Ľͬף
+	 */
+	private static final double METERS_PER_DEGREE = gps2m(0, 0, 1, 0);
+	
+	/**
+	 * γȷִȣλ
+	 */
+	private static final double BAND = 0.01;
+	
+	/**
+	 * γȴ1/cos()ȡԶγȣõľȿȲƫС
+	 * ±Ϊ|γ|/BANDһӦ㸽ֵΪ
+	 */
+	private static final double[] BAND_SECANT = new double[(int)Math.round(90 / BAND) + 1];
+	static {
+		for (int i = 0; i < BAND_SECANT.length; i++) {
+			double cos = Math.cos(Math.min(90, (i + 1) * BAND) * Math.PI / 180.0);
+			BAND_SECANT[i] = cos < 1e-12 ? Double.POSITIVE_INFINITY : 1 / cos;
+		}
+	}
+	
+	/**
+	 * ƾӦγȿȣģγ޹أ
+	 * @param meters
+	 * @return λ
+	 */
+	public static double m2gpsLat(double meters) {
+		return meters * (180.0 / (Math.PI * RADIUS));
+	}
+	
+	/**
+	 * γlat뾶metersԲǵľȿȣࣩγȴ㣬Ǻ
+	 * ׼ȷֵΪasin(sin(d)/cos(lat))dΪǾ룻dsin(d)asinϽС׼ȷֵ
+	 * @param meters
+	 * @param lat Բγ
+	 * @return λȣԲԽʱΪ180
+	 */
+	public static double m2gpsLon(double meters, double lat) {
+		double d = meters / RADIUS;
+		int band = (int)(Math.abs(lat) / BAND);
+		if (band >= BAND_SECANT.length) {
+			return 180.0;
+		}
+		double x = d * BAND_SECANT[band];
+		if (x >= 1 || Math.abs(lat) + d * 180.0 / Math.PI >= 90) {
+			return 180.0;
+		}
+		//asin(x) = x + x^3/6 + 3x^5/40 + ...x < 0.1ʱx(1 + x^2/5)Ͻ
+		double rad = x < 0.1 ? x * (1 + x * x / 5) : Math.asin(x);
+		return Math.min(180.0, rad * 180.0 / Math.PI);
+	}
+	
+	/**
+	 * (lon, lat)ΪԲġ뾶metersԲΣȿȰγȴ֤Բ
+	 * @param lon
+	 * @param lat
+	 * @param meters 뾶λ
+	 * @return {minX, minY, maxX, maxY}λ
+	 */
+	public static double[] envelope(double lon, double lat, double meters) {
+		return envelope(lon, lat, meters, new double[4]);
+	}
+	
+	/**
+	 * ͬenvelope(lon, lat, meters)дout
+	 * @param out ȲС4
+	 * @return out
+	 */
+	public static double[] envelope(double lon, double lat, double meters, double[] out) {
+		double dLat = m2gpsLat(meters);
+		double dLon = m2gpsLon(meters, lat);
+		out[0] = lon - dLon;
+		out[1] = lat - dLat;
+		out[2] = lon + dLon;
+		out[3] = lat + dLat;
+		return out;
+	}
+	
+	/**
+	 * 뷴㣬ƾȲϵľȲγȣ
+	 * ѯΧӦʹenvelopem2gpsLonγȵľȿƫС
 	 * @param distance
 	 * @return
 	 */
 	public static double m2gps(double distance) {  
-		return distance/gps2m(0,0,1,0);
+		return distance / METERS_PER_DEGREE;
+	}
+	
+	/**
+	 * ˹ͶӰṹʽд÷ṩxsysMPoint
+	 * @param lons 
+	 * @param lats γ
+	 * @param xs ˹ƽX꣬ȲСlons.length
+	 * @param ys ˹ƽY꣬ȲСlons.length
+	 */
+	public static void BlToGs(double[] lons, double[] lats, double[] xs, double[] ys)
+	{
+		int n = lons.length;
+		checkBatch(n, lats, xs.length);
+		checkBatch(n, lats, ys.length);
+		if (FAST_KERNEL) {
+			gsBlock(lons, lats, 0, n, xs, ys, 0);
+			return;
+		}
+		for (int i = 0; i < n; i++) {
+			xs[i] = gsX(lons[i], lats[i]);
+			ys[i] = gsY(lons[i], lats[i]);
+		}
+	}
+	
+	/**
+	 * һԶ룺תΪ˹ƽٰ꣬빫ʽ⣬GetDistance(LatLngUtil,LatLngUtil)һ
+	 * @param lng 㾭
+	 * @param lat γ
+	 * @param lngs յ㾭
+	 * @param lats յγ
+	 * @param out out[i]Ϊ㵽iյľ룬λ
+	 */
+	public static void GetDistance(double lng, double lat, double[] lngs, double[] lats, double[] out)
+	{
+		int n = lngs.length;
+		checkBatch(n, lats, out.length);
+		double x0 = gsX(lng, lat);
+		double y0 = gsY(lng, lat);
+		if (FAST_KERNEL) {
+			double[] bx = new double[BLOCK];
+			double[] by = new double[BLOCK];
+			for (int off = 0; off < n; off += BLOCK) {
+				int len = Math.min(BLOCK, n - off);
+				gsBlock(lngs, lats, off, len, bx, by, 0);
+				for (int k = 0; k < len; k++) {
+					double dx = bx[k] - x0;
+					double dy = by[k] - y0;
+					out[off + k] = Math.sqrt(dx * dx + dy * dy);
+				}
+			}
+			return;
+		}
+		for (int i = 0; i < n; i++) {
+			double dx = gsX(lngs[i], lats[i]) - x0;
+			double dy = gsY(lngs[i], lats[i]) - y0;
+			out[i] = Math.sqrt(dx * dx + dy * dy);
+		}
+	}
+	
+	/**
+	 * Զ루˹ƽ棩outдţout[i * m + j]ΪAеi㵽Bеjľ룬λ
+	 * ÿεֻΪBһͶӰ棬޹
+	 * @param lngsA
+	 * @param latsA
+	 * @param lngsB
+	 * @param latsB
+	 * @param out ȲСlngsA.length * lngsB.length
+	 */
+	public static void GetDistance(double[] lngsA, double[] latsA, double[] lngsB, double[] latsB, double[] out)
+	{
+		int n = lngsA.length;
+		int m = lngsB.length;
+		checkBatch(n, latsA, n);
+		checkBatch(m, latsB, m);
+		checkBatch(n * m, null, out.length);
+		double[] xs = new double[m];
+		double[] ys = new double[m];
+		BlToGs(lngsB, latsB, xs, ys);
+		for (int i = 0; i < n; i++) {
+			double x0 = gsX(lngsA[i], latsA[i]);
+			double y0 = gsY(lngsA[i], latsA[i]);
+			int row = i * m;
+			for (int j = 0; j < m; j++) {
+				double dx = xs[j] - x0;
+				double dy = ys[j] - y0;
+				out[row + j] = Math.sqrt(dx * dx + dy * dy);
+			}
+		}
+	}
+	
+	/**
+	 * һԶ루ʸʽgps2m(double,double,double,double)һ
+	 * @param lng 㾭
+	 * @param lat γ
+	 * @param lngs յ㾭
+	 * @param lats յγ
+	 * @param out out[i]Ϊ㵽iյľ룬λ
+	 */
+	public static void gps2m(double lng, double lat, double[] lngs, double[] lats, double[] out)
+	{
+		int n = lngs.length;
+		checkBatch(n, lats, out.length);
+		double radLat1 = lat * Math.PI / 180.0;
+		double cosLat1 = Math.cos(radLat1);
+		if (FAST_KERNEL) {
+			for (int i = 0; i < n; i++) {
+				double radLat2 = lats[i] * Math.PI / 180.0;
+				double sinLat2 = fastSin(radLat2);
+				out[i] = haversineFast(radLat1, cosLat1, radLat2, Math.sqrt((1 - sinLat2) * (1 + sinLat2)), (lng - lngs[i]) * Math.PI / 180.0);
+			}
+			return;
+		}
+		for (int i = 0; i < n; i++) {
+			double radLat2 = lats[i] * Math.PI / 180.0;
+			out[i] = haversine(radLat1, cosLat1, radLat2, Math.cos(radLat2), (lng - lngs[i]) * Math.PI / 180.0);
+		}
+	}
+	
+	/**
+	 * Զ루ʸʽoutдţout[i * m + j]ΪAеi㵽Bеjľ룬λ
+	 * ÿεֻΪBһγһ棬޹
+	 * @param lngsA
+	 * @param latsA
+	 * @param lngsB
+	 * @param latsB
+	 * @param out ȲСlngsA.length * lngsB.length
+	 */
+	public static void gps2m(double[] lngsA, double[] latsA, double[] lngsB, double[] latsB, double[] out)
+	{
+		int n = lngsA.length;
+		int m = lngsB.length;
+		checkBatch(n, latsA, n);
+		checkBatch(m, latsB, m);
+		checkBatch(n * m, null, out.length);
+		double[] radLatsB = new double[m];
+		double[] cosLatsB = new double[m];
+		for (int j = 0; j < m; j++) {
+			radLatsB[j] = latsB[j] * Math.PI / 180.0;
+			cosLatsB[j] = Math.cos(radLatsB[j]);
+		}
+		for (int i = 0; i < n; i++) {
+			double radLat1 = latsA[i] * Math.PI / 180.0;
+			double cosLat1 = Math.cos(radLat1);
+			double lng1 = lngsA[i];
+			int row = i * m;
+			if (FAST_KERNEL) {
+				for (int j = 0; j < m; j++) {
+					out[row + j] = haversineFast(radLat1, cosLat1, radLatsB[j], cosLatsB[j], (lng1 - lngsB[j]) * Math.PI / 180.0);
+				}
+				continue;
+			}
+			for (int j = 0; j < m; j++) {
+				out[row + j] = haversine(radLat1, cosLat1, radLatsB[j], cosLatsB[j], (lng1 - lngsB[j]) * Math.PI / 180.0);
+			}
+		}
+	}
+	
+	/**
+	 * ʸʽģγɵ÷Ԥȼ㣻ȡʽgps2mһ
+	 */
+	private static double haversine(double radLat1, double cosLat1, double radLat2, double cosLat2, double b)
+	{
+		double sa = Math.sin((radLat1 - radLat2) / 2);
+		double sb = Math.sin(b / 2);
+		double s = 2 * Math.asin(Math.sqrt(sa * sa + cosLat1 * cosLat2 * sb * sb));
+		s = s * RADIUS;
+		return Math.round(s * 10000) / 10000;
+	}
+	
+	/**
+	 * ʸʽٰ汾ҸfastSinhaversineͬ
+	 */
+	private static double haversineFast(double radLat1, double cosLat1, double radLat2, double cosLat2, double b)
+	{
+		double sa = fastSin((radLat1 - radLat2) / 2);
+		double sb = fastSin(b / 2);
+		double s = 2 * Math.asin(Math.sqrt(sa * sa + cosLat1 * cosLat2 * sb * sb));
+		s = s * RADIUS;
+		return Math.round(s * 10000) / 10000;
+	}
+	
+	/**
+	 * ˹ͶӰںˣÿֻһsinBcosBɿõ
+	 * sin2Bsin4Bcos3Bcos5BñǹʽƣMath.powչΪ˷
+	 * ѭ޷֧޶䣬JITչgsX/gsYĲС2e-6ףγȡ80㷶Χʵ⣩
+	 * @param lons
+	 * @param lats
+	 * @param off ʼ±
+	 * @param len 
+	 * @param xs
+	 * @param ys
+	 * @param outOff ʼ±
+	 */
+	private static void gsBlock(double[] lons, double[] lats, int off, int len, double[] xs, double[] ys, int outOff)
+	{
+		for (int k = 0; k < len; k++) {
+			double lon = lons[off + k];
+			int n = (int)(lon / 6);
+			double l = (lon - (3 + 6 * n)) * Math.PI / 180;
+			double lat = lats[off + k] * Math.PI / 180;
+			double l2 = l * l;
+			double l4 = l2 * l2;
+			double sinB = fastSin(lat);
+			double cosB = Math.sqrt((1 - sinB) * (1 + sinB));
+			double cos2B = cosB * cosB;
+			double sin2B = 2 * sinB * cosB;
+			double sin4B = 2 * sin2B * (cos2B - sinB * sinB);
+			double cos3B = cosB * (4 * cos2B - 3);
+			double cos5B = cosB * (16 * cos2B * cos2B - 20 * cos2B + 5);
+			xs[outOff + k] = 6367558.497 * lat
+					- (16036.480 - 1597237.956 * l2 - 268563.280 * l4) * sin2B
+					+ (16.828 - 1340.831 * l2 + 201450.536 * l4) * sin4B;
+			ys[outOff + k] = l * ((6383594.975 + 535998.795 * l2 + 54206.791 * l4) * cosB
+					- (5356.713 - 534204.967 * l2 - 134966.691 * l4) * cos3B
+					+ (6.744 + 81276.496 * l4) * cos5B) + 500000 + (n + 1) * 1000000;
+		}
+	}
+	
+	/**
+	 * ʽң|x| <= PI/2 ʱ15̩նʽHornerʽضС7e-12
+	 * 䣨ǷγȻ180㾭ʱ˻Math.sin
+	 * @param x 
+	 * @return
+	 */
+	static double fastSin(double x)
+	{
+		if (x > HALF_PI || x < -HALF_PI) {
+			return Math.sin(x);
+		}
+		double x2 = x * x;
+		return x * (1 + x2 * (-1.0 / 6 + x2 * (1.0 / 120 + x2 * (-1.0 / 5040 + x2 * (1.0 / 362880
+				+ x2 * (-1.0 / 39916800 + x2 * (1.0 / 6227020800.0 + x2 * (-1.0 / 1307674368000.0))))))));
+	}
+	
+	/**
+	 * У
+	 * @param n Ԫظ
+	 * @param lats 뾭Եγ飬Ϊnull
+	 * @param outLength 鳤
+	 */
+	private static void checkBatch(int n, double[] lats, int outLength)
+	{
+		if (lats != null && lats.length != n) {
+			throw new IllegalArgumentException("γ鳤Ȳһ£" + n + " != " + lats.length);
+		}
+		if (outLength < n) {
+			throw new IllegalArgumentException("鳤Ȳ㣺" + outLength + " < " + n);
+		}
 	}
 	
 	public static void main(String[] args) {
@@ -0,0 +1,571 @@
+package sde;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Date;
+
+import com.esri.sde.sdk.client.SeConnection;
+import com.esri.sde.sdk.client.SeCoordinateReference;
+import com.esri.sde.sdk.client.SeException;
+import com.esri.sde.sdk.client.SeExtent;
+import com.esri.sde.sdk.client.SeLayer;
+import com.esri.sde.sdk.client.SeObjectId;
+import com.esri.sde.sdk.client.SeQuery;
+import com.esri.sde.sdk.client.SeQueryInfo;
+import com.esri.sde.sdk.client.SeRow;
+import com.esri.sde.sdk.client.SeShape;
+import com.esri.sde.sdk.client.SeSqlConstruct;
+import com.esri.sde.sdk.client.SeTable;
+import com.esri.sde.sdk.client.SeVersion;
+
+/**
+ * ͼļͼҪIDκʹ㵼Ϊļʱڴӳ䷽ʽ򿪣
+ * ÿȫɨtaxi_point_cloud
+ * <pre>
+ * LayerSnapshot snapshot = LayerSnapshot.open(file);
+ * if (snapshot == null || snapshot.isStale(conn)) {
+ *     snapshot = LayerSnapshot.dump(conn, "taxi_point_cloud", "OBJECTID", "GPSTIME", file);
+ * }
+ * GridIndex index = GridIndex.index(snapshot.getPoints().copy(), 250);
+ * </pre>
+ * fileǿյĻÿdumpдһµĴļfile.1file.2лȥ滻Աӳľļ
+ * WindowsӳδͷŵļɾɵĴļɾʱ´dumpɾopenǴµһ
+ * 汾Ĭϰ汾state idIDͶλʱеֵɡǰ汾ͼԭUPDATEʱ
+ * ǰ䣬ֻÿθ¶дĶλʱܷӳtimeColumnΪnullʱⲻ
+ * ļʽСֽ򣩣
+ * 	ļͷħʽ汾¼汾ǣĬϰ汾state idIDλʱֵʱ䡢
+ * 	  ϵfalseXfalseYxyUnitsSRIDϵ
+ * 	ڵ¼PointStoreͬ32ֽڼ¼IDXYʱ䣩XYΪ
+ * 	ΣÿҪminXminYmaxXmaxY
+ * ļдʱļٸжϲ²ĿգʱļҲɾ
+ * @author Administrator
+ *
+ */
+public class LayerSnapshot {
+
+	/**
+	 * ħ"SDESNAP\0"
+	 */
+	private static final long MAGIC = 0x534445534E415000L;
+
+	/**
+	 * ļʽ汾ʽʱ1汾2˶λʱֵ汾1ļԿɴ
+	 */
+	public static final int FORMAT_VERSION = 2;
+
+	/**
+	 * 汾1ļûжλʱֵ
+	 */
+	private static final long UNKNOWN_MAX_TIME = Long.MIN_VALUE;
+
+	private static final int FIXED_HEADER_BYTES = 96;
+	private static final int ENVELOPE_BYTES = 32;
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private final File file;
+	private final int count;
+	private final long stateId;
+	private final long rowCount;
+	private final long maxId;
+	private final long maxTime;
+	private final long created;
+	private final double falseX;
+	private final double falseY;
+	private final double xyUnits;
+	private final long srid;
+	private final String tableName;
+	private final String idColumn;
+	private final String timeColumn;
+	private final String coordSysDescription;
+	private final PointStore points;
+	private final ByteBuffer envelopes;
+
+	private LayerSnapshot(File file, MappedByteBuffer buffer) throws IOException {
+		this.file = file;
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		if (buffer.capacity() < FIXED_HEADER_BYTES || buffer.getLong(0) != MAGIC) {
+			throw new IOException(file + "ͼļ");
+		}
+		int version = buffer.getInt(8);
+		if (version != FORMAT_VERSION && version != 1) {
+			throw new IOException(file + "ĸʽ汾Ϊ" + version + "ǰ֧" + FORMAT_VERSION);
+		}
+		int headerBytes = buffer.getInt(12);
+		this.count = buffer.getInt(16);
+		this.stateId = buffer.getLong(24);
+		this.rowCount = buffer.getLong(32);
+		this.maxId = buffer.getLong(40);
+		this.created = buffer.getLong(48);
+		this.falseX = buffer.getDouble(56);
+		this.falseY = buffer.getDouble(64);
+		this.xyUnits = buffer.getDouble(72);
+		this.srid = buffer.getLong(80);
+		this.maxTime = version == 1 ? UNKNOWN_MAX_TIME : buffer.getLong(88);
+		buffer.position(FIXED_HEADER_BYTES);
+		this.tableName = getString(buffer);
+		this.idColumn = getString(buffer);
+		this.timeColumn = getString(buffer);
+		this.coordSysDescription = getString(buffer);
+
+		long expected = headerBytes + (long)count * (PointStore.RECORD_BYTES + ENVELOPE_BYTES);
+		if (buffer.capacity() != expected) {
+			throw new IOException(file + "Ϊ" + buffer.capacity() + "ֽڣӦΪ" + expected + "ֽڣļ");
+		}
+		buffer.position(headerBytes);
+		this.points = PointStore.wrap(buffer, count);
+		buffer.position(headerBytes + count * PointStore.RECORD_BYTES);
+		this.envelopes = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * ֻڴӳ䷽ʽһ
+	 * @param file ջ
+	 * @return ղʱΪnull
+	 * @throws IOException ļʽԻ
+	 */
+	public static LayerSnapshot open(File file) throws IOException {
+		long latest = latestGeneration(file);
+		File data = latest > 0 ? generation(file, latest) : file;
+		if (!data.exists()) {
+			return null;
+		}
+		return map(data);
+	}
+
+	private static LayerSnapshot map(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			if (raf.length() > Integer.MAX_VALUE) {
+				throw new IOException(file + "2GBӳΪһ");
+			}
+			//ӳ佨رļӰӳ
+			MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+			return new LayerSnapshot(file, buffer);
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * ļӡ.š
+	 */
+	private static File generation(File file, long generation) {
+		return new File(file.getPath() + "." + generation);
+	}
+
+	/**
+	 * @param file ջ
+	 * @return µĴţûдļʱΪ0
+	 */
+	private static long latestGeneration(File file) {
+		String[] names = listSiblings(file);
+		String prefix = file.getName() + ".";
+		long latest = 0;
+		for (int i = 0; i < names.length; i++) {
+			latest = Math.max(latest, parseGeneration(names[i], prefix));
+		}
+		return latest;
+	}
+
+	private static String[] listSiblings(File file) {
+		File dir = file.getAbsoluteFile().getParentFile();
+		String[] names = dir == null ? null : dir.list();
+		return names == null ? new String[0] : names;
+	}
+
+	/**
+	 * @return ţǴļʱΪ0
+	 */
+	private static long parseGeneration(String name, String prefix) {
+		int digits = name.length() - prefix.length();
+		if (!name.startsWith(prefix) || digits <= 0 || digits > 18) {
+			return 0;
+		}
+		long generation = 0;
+		for (int i = prefix.length(); i < name.length(); i++) {
+			char c = name.charAt(i);
+			if (c < '0' || c > '9') {
+				return 0;
+			}
+			generation = generation * 10 + (c - '0');
+		}
+		return generation;
+	}
+
+	/**
+	 * ɾkeepɵĴļ;ɰ汾ֱдڻϵļԱӳɾ´
+	 */
+	private static void deleteOldGenerations(File file, long keep) {
+		String[] names = listSiblings(file);
+		String prefix = file.getName() + ".";
+		File dir = file.getAbsoluteFile().getParentFile();
+		for (int i = 0; i < names.length; i++) {
+			long generation = parseGeneration(names[i], prefix);
+			if (generation > 0 && generation < keep) {
+				new File(dir, names[i]).delete();
+			}
+		}
+		file.delete();
+	}
+
+	/**
+	 * ȫɨͼ㲢дһļش򿪵ĿգɵĿղ滻Լʹ
+	 * @param conn
+	 * @param tableName ͼ"taxi_point_cloud"
+	 * @param idColumn ҪIDУΪͣ"OBJECTID"Ϊյ
+	 * @param timeColumn λʱУΪnullӦΪÿθ¶дУmarker
+	 * @param file ջ
+	 * @return
+	 * @throws SeException
+	 * @throws IOException
+	 */
+	public static LayerSnapshot dump(SeConnection conn, String tableName, String idColumn, String timeColumn, File file)
+			throws SeException, IOException {
+		return dump(conn, tableName, idColumn, timeColumn, file, SdeMetadataCache.forConnection(conn));
+	}
+
+	/**
+	 * ͬdump(conn, tableName, idColumn, timeColumn, file)ͼԪȡmetadata
+	 * @param conn
+	 * @param tableName ͼ"taxi_point_cloud"
+	 * @param idColumn ҪIDУΪͣ"OBJECTID"Ϊյ
+	 * @param timeColumn λʱУΪnull
+	 * @param file ջ
+	 * @param metadata Ԫݻ棬ӳصgetMetadataCache()
+	 * @return
+	 * @throws SeException
+	 * @throws IOException
+	 */
+	public static LayerSnapshot dump(SeConnection conn, String tableName, String idColumn, String timeColumn, File file,
+			SdeMetadataCache metadata) throws SeException, IOException {
+		SeLayer layer = metadata.getLayer(conn, tableName);
+		SeCoordinateReference cref = layer.getCoordRef();
+		long[] marker = marker(conn, tableName, idColumn, timeColumn);
+
+		byte[][] strings = new byte[][] { bytes(tableName), bytes(idColumn), bytes(timeColumn), bytes(cref.getCoordSysDescription()) };
+		int headerBytes = FIXED_HEADER_BYTES;
+		for (int i = 0; i < strings.length; i++) {
+			headerBytes += 4 + strings[i].length;
+		}
+		headerBytes = (headerBytes + 31) & ~31;
+
+		File tmp = new File(file.getPath() + ".tmp");
+		File envelopeTmp = new File(file.getPath() + ".env.tmp");
+		RandomAccessFile out = new RandomAccessFile(tmp, "rw");
+		RandomAccessFile envOut = new RandomAccessFile(envelopeTmp, "rw");
+		int count = 0;
+		boolean written = false;
+		try {
+			out.setLength(0);
+			envOut.setLength(0);
+			FileChannel channel = out.getChannel();
+			FileChannel envChannel = envOut.getChannel();
+			channel.position(headerBytes);
+			ByteBuffer recordBuffer = ByteBuffer.allocateDirect(2048 * PointStore.RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			ByteBuffer envelopeBuffer = ByteBuffer.allocateDirect(2048 * ENVELOPE_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+			String[] cols = timeColumn == null ? new String[] { idColumn, layer.getSpatialColumn() }
+					: new String[] { idColumn, layer.getSpatialColumn(), timeColumn };
+			SeQuery query = new SeQuery(conn, cols, new SeSqlConstruct(tableName));
+			try {
+				query.prepareQuery();
+				query.execute();
+				SeRow row = query.fetch();
+				while (row != null) {
+					Object idValue = row.getObject(0);
+					SeShape shape = row.getShape(1);
+					if (idValue != null && shape != null && !shape.isNil()) {
+						SeExtent extent = shape.getExtent();
+						if (!recordBuffer.hasRemaining()) {
+							flush(recordBuffer, channel);
+							flush(envelopeBuffer, envChannel);
+						}
+						long id = ((Number)idValue).longValue();
+						long time = timeColumn == null ? 0 : PointStore.toMillis(row.getObject(2));
+						recordBuffer.putLong(id);
+						recordBuffer.putDouble((extent.getMinX() + extent.getMaxX()) / 2);
+						recordBuffer.putDouble((extent.getMinY() + extent.getMaxY()) / 2);
+						recordBuffer.putLong(time);
+						envelopeBuffer.putDouble(extent.getMinX());
+						envelopeBuffer.putDouble(extent.getMinY());
+						envelopeBuffer.putDouble(extent.getMaxX());
+						envelopeBuffer.putDouble(extent.getMaxY());
+						if (++count == Integer.MAX_VALUE / (PointStore.RECORD_BYTES + ENVELOPE_BYTES)) {
+							throw new IllegalStateException(tableName + "Ҫع࣬ճ2GB");
+						}
+					}
+					row = query.fetch();
+				}
+			} finally {
+				query.close();
+			}
+			flush(recordBuffer, channel);
+			flush(envelopeBuffer, envChannel);
+
+			//νڵ¼
+			long envBytes = envChannel.size();
+			long copied = 0;
+			while (copied < envBytes) {
+				copied += envChannel.transferTo(copied, envBytes - copied, channel);
+			}
+
+			ByteBuffer header = ByteBuffer.allocate(headerBytes).order(ByteOrder.LITTLE_ENDIAN);
+			header.putLong(MAGIC);
+			header.putInt(FORMAT_VERSION);
+			header.putInt(headerBytes);
+			header.putInt(count);
+			header.putInt(0);
+			header.putLong(marker[0]);
+			header.putLong(marker[1]);
+			header.putLong(marker[2]);
+			header.putLong(System.currentTimeMillis());
+			header.putDouble(cref.getFalseX());
+			header.putDouble(cref.getFalseY());
+			header.putDouble(cref.getXYUnits());
+			header.putLong(cref.getSrid() == null ? -1 : cref.getSrid().longValue());
+			header.putLong(marker[3]);
+			header.position(FIXED_HEADER_BYTES);
+			for (int i = 0; i < strings.length; i++) {
+				header.putInt(strings[i].length);
+				header.put(strings[i]);
+			}
+			header.clear();
+			channel.position(0);
+			while (header.hasRemaining()) {
+				channel.write(header);
+			}
+			channel.force(true);
+			written = true;
+		} finally {
+			out.close();
+			envOut.close();
+			envelopeTmp.delete();
+			if (!written) {
+				tmp.delete();
+			}
+		}
+		//һļǰڣɾԱӳľļ
+		long next = latestGeneration(file) + 1;
+		File data = generation(file, next);
+		if (!tmp.renameTo(data)) {
+			tmp.delete();
+			throw new IOException("ܰ" + tmp + "Ϊ" + data);
+		}
+		deleteOldGenerations(file, next);
+		return map(data);
+	}
+
+	private static void flush(ByteBuffer buffer, FileChannel channel) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	private static byte[] bytes(String s) {
+		return s == null ? new byte[0] : s.getBytes(UTF8);
+	}
+
+	private static String getString(ByteBuffer buffer) {
+		byte[] b = new byte[buffer.getInt()];
+		buffer.get(b);
+		return b.length == 0 ? null : new String(b, UTF8);
+	}
+
+	/**
+	 * ͼİ汾ǣĬϰ汾state idIDһ仯Ϊչڣ
+	 * ⲻǰ汾ͼϵԭUPDATE
+	 * @param conn
+	 * @param tableName
+	 * @param idColumn
+	 * @return {stateId, rowCount, maxId}
+	 * @throws SeException
+	 */
+	public static long[] marker(SeConnection conn, String tableName, String idColumn) throws SeException {
+		long[] marker = marker(conn, tableName, idColumn, null);
+		return new long[] { marker[0], marker[1], marker[2] };
+	}
+
+	/**
+	 * ͼİ汾ǣλʱеֵܼ⵽˶λʱԭUPDATE
+	 * @param conn
+	 * @param tableName
+	 * @param idColumn
+	 * @param timeColumn ÿθ¶дʱУΪnull
+	 * @return {stateId, rowCount, maxId, maxTime}maxTimeΪֵdoubleλģʽtimeColumnΪnullΪʱΪ0
+	 * @throws SeException
+	 */
+	public static long[] marker(SeConnection conn, String tableName, String idColumn, String timeColumn) throws SeException {
+		SeVersion version = new SeVersion(conn, SeVersion.SE_QUALIFIED_DEFAULT_VERSION_NAME);
+		SeObjectId state = version.getStateId();
+		SeQueryInfo queryInfo = new SeQueryInfo();
+		queryInfo.setColumns(new String[] { idColumn });
+		queryInfo.setConstruct(new SeSqlConstruct(tableName));
+		SeQuery query = new SeQuery(conn);
+		try {
+			SeTable.SeTableStats stats = query.calculateTableStatistics(idColumn,
+					SeTable.SeTableStats.SE_COUNT_STATS | SeTable.SeTableStats.SE_MAX_STATS, queryInfo, 0);
+			long maxTime = 0;
+			if (timeColumn != null && stats.getCount() > 0) {
+				queryInfo.setColumns(new String[] { timeColumn });
+				SeTable.SeTableStats timeStats = query.calculateTableStatistics(timeColumn,
+						SeTable.SeTableStats.SE_MAX_STATS, queryInfo, 0);
+				maxTime = Double.doubleToLongBits(timeStats.getMax());
+			}
+			return new long[] { state == null ? -1 : state.longValue(), stats.getCount(),
+					stats.getCount() == 0 ? 0 : (long)stats.getMax(), maxTime };
+		} finally {
+			query.close();
+		}
+	}
+
+	/**
+	 * ˱Ƚϰ汾ǣжλʱʱһȽֵ汾1Ŀûм¼ֵǹ
+	 * @param conn
+	 * @return ͼڵǷб仯
+	 * @throws SeException
+	 */
+	public boolean isStale(SeConnection conn) throws SeException {
+		long[] current = marker(conn, tableName, idColumn, timeColumn);
+		return current[0] != stateId || current[1] != rowCount || current[2] != maxId
+				|| (timeColumn != null && current[3] != maxTime);
+	}
+
+	/**
+	 * ɿеĲؽϵ
+	 * @return
+	 * @throws SeException
+	 */
+	public SeCoordinateReference getCoordRef() throws SeException {
+		SeCoordinateReference cref = new SeCoordinateReference();
+		if (coordSysDescription != null) {
+			cref.setCoordSysByDescription(coordSysDescription);
+		}
+		cref.setXY(falseX, falseY, xyUnits);
+		return cref;
+	}
+
+	/**
+	 * @return ¼ֱӳļݣֻҪ޸ʱcopy()
+	 */
+	public PointStore getPoints() {
+		return points;
+	}
+
+	/**
+	 * @return Ҫظ
+	 */
+	public int size() {
+		return count;
+	}
+
+	public long getId(int i) {
+		return points.getId(i);
+	}
+
+	public double getMinX(int i) {
+		return envelopes.getDouble(i * ENVELOPE_BYTES);
+	}
+
+	public double getMinY(int i) {
+		return envelopes.getDouble(i * ENVELOPE_BYTES + 8);
+	}
+
+	public double getMaxX(int i) {
+		return envelopes.getDouble(i * ENVELOPE_BYTES + 16);
+	}
+
+	public double getMaxY(int i) {
+		return envelopes.getDouble(i * ENVELOPE_BYTES + 24);
+	}
+
+	/**
+	 * ɿչRҪҲν
+	 * @return
+	 */
+	public RTreeIndex toRTreeIndex() {
+		double[] minXs = new double[count];
+		double[] minYs = new double[count];
+		double[] maxXs = new double[count];
+		double[] maxYs = new double[count];
+		long[] ids = new long[count];
+		for (int i = 0; i < count; i++) {
+			minXs[i] = getMinX(i);
+			minYs[i] = getMinY(i);
+			maxXs[i] = getMaxX(i);
+			maxYs[i] = getMaxY(i);
+			ids[i] = getId(i);
+		}
+		return RTreeIndex.build(minXs, minYs, maxXs, maxYs, ids, RTreeIndex.DEFAULT_NODE_CAPACITY);
+	}
+
+	/**
+	 * @return ʵӳĴļ
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	public String getTableName() {
+		return tableName;
+	}
+
+	public String getIdColumn() {
+		return idColumn;
+	}
+
+	public String getTimeColumn() {
+		return timeColumn;
+	}
+
+	/**
+	 * @return ʱĬϰ汾state id
+	 */
+	public long getStateId() {
+		return stateId;
+	}
+
+	/**
+	 * @return ʱ
+	 */
+	public long getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * @return ʱID
+	 */
+	public long getMaxId() {
+		return maxId;
+	}
+
+	/**
+	 * @return ʱλʱֵdoubleλģʽmarker
+	 */
+	public long getMaxTime() {
+		return maxTime;
+	}
+
+	/**
+	 * @return ʱ䣬λ
+	 */
+	public long getCreated() {
+		return created;
+	}
+
+	public long getSrid() {
+		return srid;
+	}
+
+	public String toString() {
+		return "LayerSnapshot[" + tableName + ", size=" + count + ", state=" + stateId + ", rows=" + rowCount
+				+ ", maxId=" + maxId + ", created=" + new Date(created) + "]";
+	}
+}
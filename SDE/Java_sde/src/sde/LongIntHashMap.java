@@ -0,0 +1,169 @@
+package sde;
+
+import java.util.Arrays;
+
+/**
+ * longintĹϣŶַ̽⣬ֵڻУput/get
+ * ҪIDŵlongĲң̰߳ȫ
+ * @author Administrator
+ *
+ */
+public class LongIntHashMap {
+
+	/**
+	 * ʱgetصֵ
+	 */
+	public static final int NO_VALUE = -1;
+
+	private long[] keys;
+	private int[] values;
+	private boolean[] used;
+	private int size = 0;
+	private int mask;
+
+	public LongIntHashMap() {
+		this(16);
+	}
+
+	/**
+	 * @param expected ԤƵļ
+	 */
+	public LongIntHashMap(int expected) {
+		int capacity = 16;
+		while (capacity * 3 / 4 < expected) {
+			capacity <<= 1;
+		}
+		allocate(capacity);
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		values = new int[capacity];
+		used = new boolean[capacity];
+		mask = capacity - 1;
+	}
+
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int)(h ^ (h >>> 32));
+	}
+
+	private int find(long key) {
+		int i = hash(key) & mask;
+		while (used[i]) {
+			if (keys[i] == key) {
+				return i;
+			}
+			i = (i + 1) & mask;
+		}
+		return -1 - i;
+	}
+
+	/**
+	 * @return ӦֵʱΪNO_VALUE
+	 */
+	public int get(long key) {
+		int i = find(key);
+		return i < 0 ? NO_VALUE : values[i];
+	}
+
+	public boolean containsKey(long key) {
+		return find(key) >= 0;
+	}
+
+	/**
+	 * @return ԭֵʱΪNO_VALUE
+	 */
+	public int put(long key, int value) {
+		int i = find(key);
+		if (i >= 0) {
+			int old = values[i];
+			values[i] = value;
+			return old;
+		}
+		if ((size + 1) * 4 > keys.length * 3) {
+			rehash(keys.length * 2);
+			i = find(key);
+		}
+		i = -1 - i;
+		used[i] = true;
+		keys[i] = key;
+		values[i] = value;
+		size++;
+		return NO_VALUE;
+	}
+
+	/**
+	 * @return ɾֵʱΪNO_VALUE
+	 */
+	public int remove(long key) {
+		int i = find(key);
+		if (i < 0) {
+			return NO_VALUE;
+		}
+		int old = values[i];
+		//ɾ̽Ϻļǰƣ֤Ҳڿλǰж
+		int hole = i;
+		int j = (i + 1) & mask;
+		while (used[j]) {
+			int home = hash(keys[j]) & mask;
+			if (((j - home) & mask) >= ((j - hole) & mask)) {
+				keys[hole] = keys[j];
+				values[hole] = values[j];
+				hole = j;
+			}
+			j = (j + 1) & mask;
+		}
+		used[hole] = false;
+		size--;
+		return old;
+	}
+
+	private void rehash(int capacity) {
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+		boolean[] oldUsed = used;
+		allocate(capacity);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldUsed[i]) {
+				int j = -1 - find(oldKeys[i]);
+				used[j] = true;
+				keys[j] = oldKeys[i];
+				values[j] = oldValues[i];
+			}
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public void clear() {
+		Arrays.fill(used, false);
+		size = 0;
+	}
+
+	/**
+	 * λisUsed/keyAt/valueAtϱȫֵ
+	 * <pre>
+	 * for (int i = 0; i < map.capacity(); i++) {
+	 *     if (map.isUsed(i)) { ... map.keyAt(i) ... map.valueAt(i) ... }
+	 * }
+	 * </pre>
+	 */
+	public int capacity() {
+		return keys.length;
+	}
+
+	public boolean isUsed(int slot) {
+		return used[slot];
+	}
+
+	public long keyAt(int slot) {
+		return keys[slot];
+	}
+
+	public int valueAt(int slot) {
+		return values[slot];
+	}
+}
@@ -0,0 +1,198 @@
+package sde;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.esri.sde.sdk.client.SeColumnDefinition;
+import com.esri.sde.sdk.client.SeCoordinateReference;
+import com.esri.sde.sdk.client.SeException;
+
+/**
+ * ڵSpatialDataSourceÿͼһGridIndexУڶPointStoreУ
+ * <pre>
+ * MemoryDataSource source = new MemoryDataSource();
+ * source.createTable("taxi_point_cloud", "OBJECTID", coordRef, 30.6);
+ * source.insert("taxi_point_cloud", lons, lats);
+ * NearestNeighbors.search(source, "taxi_point_cloud", "OBJECTID", lon, lat, 10, 5000);
+ * </pre>
+ * ҲLayerSnapshotװݡṹ̶ΪIDУͣlonlatSHAPE
+ * ѯMETHOD_ENVPһ£statsֻ֧IDlonlatС
+ * д룬ɶ߳ͬʱѯ
+ * @author Administrator
+ *
+ */
+public class MemoryDataSource implements SpatialDataSource {
+
+	private static final String LON = "lon";
+	private static final String LAT = "lat";
+	private static final String SHAPE = "SHAPE";
+
+	private static class Table {
+		final String idColumn;
+		final SeCoordinateReference cref;
+		final SeColumnDefinition[] columns;
+		final GridIndex index;
+		final ReadWriteLock lock = new ReentrantReadWriteLock();
+		long nextId = 1;
+
+		Table(String idColumn, SeCoordinateReference cref, GridIndex index) throws SeException {
+			this.idColumn = idColumn;
+			this.cref = cref;
+			this.index = index;
+			this.columns = new SeColumnDefinition[] {
+					new SeColumnDefinition(idColumn, SeColumnDefinition.TYPE_INT32, 10, 0, false),
+					new SeColumnDefinition(LON, SeColumnDefinition.TYPE_FLOAT64, 38, 8, true),
+					new SeColumnDefinition(LAT, SeColumnDefinition.TYPE_FLOAT64, 38, 8, true),
+					new SeColumnDefinition(SHAPE, SeColumnDefinition.TYPE_SHAPE, 0, 0, true) };
+		}
+	}
+
+	private final ConcurrentMap<String, Table> tables = new ConcurrentHashMap<String, Table>();
+	private final double cellMeters;
+
+	public MemoryDataSource() {
+		this(GridIndex.DEFAULT_CELL_METERS);
+	}
+
+	/**
+	 * @param cellMeters GridIndex߳λ
+	 */
+	public MemoryDataSource(double cellMeters) {
+		this.cellMeters = cellMeters;
+	}
+
+	/**
+	 * ձѴʱ滻
+	 * @param tableName
+	 * @param idColumn ҪID
+	 * @param cref ͼϵ
+	 * @param refLat ογȣڻ񾭶ȷı߳
+	 * @throws SeException
+	 */
+	public void createTable(String tableName, String idColumn, SeCoordinateReference cref, double refLat) throws SeException {
+		tables.put(key(tableName), new Table(idColumn, cref, new GridIndex(cellMeters, refLat)));
+	}
+
+	/**
+	 * ɿսеĵ㸴ƵµĴ洢У֮Լ
+	 * @param snapshot
+	 * @throws SeException
+	 */
+	public void createTable(LayerSnapshot snapshot) throws SeException {
+		PointStore points = snapshot.getPoints().copy();
+		Table table = new Table(snapshot.getIdColumn(), snapshot.getCoordRef(), GridIndex.index(points, cellMeters));
+		table.nextId = snapshot.getMaxId() + 1;
+		tables.put(key(snapshot.getTableName()), table);
+	}
+
+	public void dropTable(String tableName) {
+		tables.remove(key(tableName));
+	}
+
+	private static String key(String tableName) {
+		return tableName.toUpperCase();
+	}
+
+	private Table table(String tableName) {
+		Table table = tables.get(key(tableName));
+		if (table == null) {
+			throw new IllegalArgumentException("ڣ" + tableName);
+		}
+		return table;
+	}
+
+	public SeColumnDefinition[] describe(String tableName) {
+		return table(tableName).columns;
+	}
+
+	public SeCoordinateReference getCoordRef(String tableName) {
+		return table(tableName).cref;
+	}
+
+	public int envelopeQuery(String tableName, String idColumn, double minX, double minY, double maxX, double maxY,
+			final FeatureVisitor visitor) {
+		Table table = table(tableName);
+		final GridIndex index = table.index;
+		table.lock.readLock().lock();
+		try {
+			return index.search(minX, minY, maxX, maxY, new PointIndex.Visitor() {
+				public void visit(int item) {
+					visitor.visit(index.getId(item), index.getX(item), index.getY(item));
+				}
+			});
+		} finally {
+			table.lock.readLock().unlock();
+		}
+	}
+
+	public long insert(String tableName, double[] lons, double[] lats) {
+		Table table = table(tableName);
+		table.lock.writeLock().lock();
+		try {
+			for (int i = 0; i < lons.length; i++) {
+				table.index.put(table.nextId++, lons[i], lats[i]);
+			}
+			return lons.length;
+		} finally {
+			table.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * ɾһҪ
+	 * @return Ƿ
+	 */
+	public boolean delete(String tableName, long id) {
+		Table table = table(tableName);
+		table.lock.writeLock().lock();
+		try {
+			return table.index.remove(id);
+		} finally {
+			table.lock.writeLock().unlock();
+		}
+	}
+
+	public TableStats stats(String tableName, String column) {
+		Table table = table(tableName);
+		int field;
+		if (column.equalsIgnoreCase(table.idColumn)) {
+			field = 0;
+		} else if (column.equalsIgnoreCase(LON)) {
+			field = 1;
+		} else if (column.equalsIgnoreCase(LAT)) {
+			field = 2;
+		} else {
+			throw new IllegalArgumentException("֧ͳƵУ" + column);
+		}
+		table.lock.readLock().lock();
+		try {
+			GridIndex index = table.index;
+			PointStore store = index.getStore();
+			long count = 0;
+			double min = Double.NaN;
+			double max = Double.NaN;
+			double sum = 0;
+			for (int i = 0; i < store.size(); i++) {
+				long id = store.getId(i);
+				//ɾļ¼ڴ洢УIDӳ䵽ļ¼Ϊ׼
+				if (index.slotOf(id) != i) {
+					continue;
+				}
+				double v = field == 0 ? id : field == 1 ? store.getX(i) : store.getY(i);
+				min = count == 0 ? v : Math.min(min, v);
+				max = count == 0 ? v : Math.max(max, v);
+				sum += v;
+				count++;
+			}
+			return new TableStats(count, min, max, count == 0 ? Double.NaN : sum / count);
+		} finally {
+			table.lock.readLock().unlock();
+		}
+	}
+
+	public String toString() {
+		return "MemoryDataSource[tables=" + tables.keySet() + "]";
+	}
+}
@@ -0,0 +1,209 @@
+package sde;
+
+import com.esri.sde.sdk.client.SeConnection;
+import com.esri.sde.sdk.client.SeException;
+
+/**
+ * kڲѯ硰˿10⳵
+ * Գʼ뾶ηΧѯѡΪkѣ
+ * ֻվ벻ǰ뾶ĺѡһkԲҪض
+ * δʱ뾶뾶²ѯﵽ뾶δʱҵġ
+ * ȿԲѯͼ㣨SpatialDataSourceҲԲѯڴеPointIndexRTreeIndexGridIndex
+ * <pre>
+ * NearestNeighbors result = NearestNeighbors.search(index, lon, lat, 10, 5000);
+ * for (int i = 0; i < result.size(); i++) {
+ *     dispatch(result.getId(i), result.getDistance(i));
+ * }
+ * </pre>
+ * LatLngUtil.sphereDistancegps2mͬһʽȡ׾벢У
+ * @author Administrator
+ *
+ */
+public class NearestNeighbors {
+
+	/**
+	 * Ĭϳʼ뾶λ
+	 */
+	public static final double DEFAULT_INITIAL_RADIUS = 500;
+
+	private final long[] ids;
+	private final double[] distances;
+	private final int size;
+	private final double radius;
+	private final int rounds;
+
+	private NearestNeighbors(NeighborHeap heap, double radius, int rounds) {
+		this.ids = new long[heap.size()];
+		this.distances = new double[heap.size()];
+		this.size = heap.drain(ids, distances);
+		this.radius = radius;
+		this.rounds = rounds;
+	}
+
+	/**
+	 * ѯڴ
+	 * @param index
+	 * @param lon
+	 * @param lat
+	 * @param k
+	 * @param maxMeters 뾶λף˾Ҫز
+	 * @return
+	 */
+	public static NearestNeighbors search(PointIndex index, double lon, double lat, int k, double maxMeters) {
+		return search(index, lon, lat, k, DEFAULT_INITIAL_RADIUS, maxMeters);
+	}
+
+	/**
+	 * ѯڴ
+	 * @param index
+	 * @param lon
+	 * @param lat
+	 * @param k
+	 * @param initialMeters ʼ뾶λ
+	 * @param maxMeters 뾶λ
+	 * @return
+	 */
+	public static NearestNeighbors search(final PointIndex index, final double lon, final double lat, int k,
+			double initialMeters, double maxMeters) {
+		final NeighborHeap heap = new NeighborHeap(k);
+		double radius = Math.min(initialMeters, maxMeters);
+		int rounds = 0;
+		while (true) {
+			heap.clear();
+			rounds++;
+			final double limit = radius;
+			double[] box = LatLngUtil.envelope(lon, lat, radius);
+			index.search(box[0], box[1], box[2], box[3], new PointIndex.Visitor() {
+				public void visit(int item) {
+					double d = LatLngUtil.sphereDistance(lon, lat, index.getX(item), index.getY(item));
+					if (d <= limit) {
+						heap.offer(index.getId(item), d);
+					}
+				}
+			});
+			double next = nextRadius(heap, radius, maxMeters);
+			if (next < 0) {
+				return new NearestNeighbors(heap, radius, rounds);
+			}
+			radius = next;
+		}
+	}
+
+	/**
+	 * ѯ˵ͼ㣬ÿַһMETHOD_ENVPβѯ
+	 * @param conn
+	 * @param tableName ͼ"taxi_point_cloud"
+	 * @param idColumn ҪIDУΪ
+	 * @param lon
+	 * @param lat
+	 * @param k
+	 * @param maxMeters 뾶λ
+	 * @return
+	 * @throws SeException
+	 */
+	public static NearestNeighbors search(SeConnection conn, String tableName, String idColumn, double lon, double lat,
+			int k, double maxMeters) throws SeException {
+		return search(new JsdeDataSource(conn), tableName, idColumn, lon, lat, k, maxMeters);
+	}
+
+	/**
+	 * ͨSpatialDataSourceѯͼ㣬ÿһξβѯ
+	 * @param source ˣJsdeDataSourceMemoryDataSource
+	 * @param tableName ͼ
+	 * @param idColumn ҪIDУΪ
+	 * @param lon
+	 * @param lat
+	 * @param k
+	 * @param maxMeters 뾶λ
+	 * @return
+	 * @throws SeException
+	 */
+	public static NearestNeighbors search(SpatialDataSource source, String tableName, String idColumn, final double lon,
+			final double lat, int k, double maxMeters) throws SeException {
+		final NeighborHeap heap = new NeighborHeap(k);
+		double radius = Math.min(DEFAULT_INITIAL_RADIUS, maxMeters);
+		int rounds = 0;
+		while (true) {
+			heap.clear();
+			rounds++;
+			final double limit = radius;
+			double[] box = LatLngUtil.envelope(lon, lat, radius);
+			source.envelopeQuery(tableName, idColumn, box[0], box[1], box[2], box[3], new SpatialDataSource.FeatureVisitor() {
+				public void visit(long id, double x, double y) {
+					double d = LatLngUtil.sphereDistance(lon, lat, x, y);
+					if (d <= limit) {
+						heap.offer(id, d);
+					}
+				}
+			});
+			double next = nextRadius(heap, radius, maxMeters);
+			if (next < 0) {
+				return new NearestNeighbors(heap, radius, rounds);
+			}
+			radius = next;
+		}
+	}
+
+	/**
+	 * @return һֵ뾶-1ʾ
+	 */
+	private static double nextRadius(NeighborHeap heap, double radius, double maxMeters) {
+		//kԲڵĺѡȫȽϹ׼ȷ
+		if (heap.isFull()) {
+			return -1;
+		}
+		if (radius >= maxMeters) {
+			return -1;
+		}
+		return Math.min(radius * 2, maxMeters);
+	}
+
+	/**
+	 * @return ҵĽڸk
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param i 
+	 * @return
+	 */
+	public long getId(int i) {
+		return ids[i];
+	}
+
+	/**
+	 * @param i 
+	 * @return 룬λ
+	 */
+	public double getDistance(int i) {
+		return distances[i];
+	}
+
+	public long[] getIds() {
+		return ids.clone();
+	}
+
+	public double[] getDistances() {
+		return distances.clone();
+	}
+
+	/**
+	 * @return һֵ뾶λ
+	 */
+	public double getRadius() {
+		return radius;
+	}
+
+	/**
+	 * @return ѯ
+	 */
+	public int getRounds() {
+		return rounds;
+	}
+
+	public String toString() {
+		return "NearestNeighbors[size=" + size + ", radius=" + radius + ", rounds=" + rounds + "]";
+	}
+}
@@ -0,0 +1,121 @@
+package sde;
+
+/**
+ * ̶ѣСkѡҪID룩ѶΪǰkľ
+ * ȫûţoffer
+ * @author Administrator
+ *
+ */
+public class NeighborHeap {
+
+	private final int k;
+	private final long[] ids;
+	private final double[] distances;
+	private int size = 0;
+
+	/**
+	 * @param k ౣĺѡ0
+	 */
+	public NeighborHeap(int k) {
+		if (k < 1) {
+			throw new IllegalArgumentException("k0" + k);
+		}
+		this.k = k;
+		this.ids = new long[k];
+		this.distances = new double[k];
+	}
+
+	/**
+	 * һѡʱֻбȶѶĺѡŻ滻Ѷ
+	 * @param id
+	 * @param distance
+	 * @return Ƿ񱻱
+	 */
+	public boolean offer(long id, double distance) {
+		if (size < k) {
+			int i = size++;
+			//ϸ
+			while (i > 0) {
+				int parent = (i - 1) >>> 1;
+				if (distances[parent] >= distance) {
+					break;
+				}
+				ids[i] = ids[parent];
+				distances[i] = distances[parent];
+				i = parent;
+			}
+			ids[i] = id;
+			distances[i] = distance;
+			return true;
+		}
+		if (distance >= distances[0]) {
+			return false;
+		}
+		siftDown(id, distance);
+		return true;
+	}
+
+	/**
+	 * (id, distance)滻Ѷ³
+	 */
+	private void siftDown(long id, double distance) {
+		int i = 0;
+		int half = size >>> 1;
+		while (i < half) {
+			int child = 2 * i + 1;
+			if (child + 1 < size && distances[child + 1] > distances[child]) {
+				child++;
+			}
+			if (distances[child] <= distance) {
+				break;
+			}
+			ids[i] = ids[child];
+			distances[i] = distances[child];
+			i = child;
+		}
+		ids[i] = id;
+		distances[i] = distance;
+	}
+
+	/**
+	 * @return ʱΪkľ룬Ϊ
+	 */
+	public double worst() {
+		return size < k ? Double.POSITIVE_INFINITY : distances[0];
+	}
+
+	public boolean isFull() {
+		return size == k;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int capacity() {
+		return k;
+	}
+
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * ȡȫѡѱ
+	 * @param outIds IDȲСsize()
+	 * @param outDistances 룬ȲСsize()
+	 * @return ѡ
+	 */
+	public int drain(long[] outIds, double[] outDistances) {
+		int n = size;
+		for (int i = n - 1; i >= 0; i--) {
+			outIds[i] = ids[0];
+			outDistances[i] = distances[0];
+			size--;
+			if (size > 0) {
+				siftDown(ids[size], distances[size]);
+			}
+		}
+		return n;
+	}
+}
@@ -0,0 +1,40 @@
+package sde;
+
+/**
+ * ͻ˵ĹӿڣkNNȲѯãRTreeIndexʵ
+ * Ҫ±itemʾ굥λΪ
+ * @author Administrator
+ *
+ */
+public interface PointIndex {
+
+	/**
+	 * ѯصitemΪҪе±
+	 */
+	interface Visitor {
+		void visit(int item);
+	}
+
+	/**
+	 * ѯཻҪ
+	 * @return и
+	 */
+	int search(double minX, double minY, double maxX, double maxY, Visitor visitor);
+
+	/**
+	 * @return Ҫظ
+	 */
+	int size();
+
+	long getId(int item);
+
+	/**
+	 * @return ҪصĴXȣ
+	 */
+	double getX(int item);
+
+	/**
+	 * @return ҪصĴYγȣ
+	 */
+	double getY(int item);
+}
@@ -0,0 +1,390 @@
+package sde;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Calendar;
+import java.util.Date;
+
+import com.esri.sde.sdk.client.SeConnection;
+import com.esri.sde.sdk.client.SeException;
+import com.esri.sde.sdk.client.SeExtent;
+import com.esri.sde.sdk.client.SeLayer;
+import com.esri.sde.sdk.client.SeQuery;
+import com.esri.sde.sdk.client.SeRow;
+import com.esri.sde.sdk.client.SeShape;
+import com.esri.sde.sdk.client.SeSqlConstruct;
+
+/**
+ * 洢ÿΪ32ֽڶ¼IDȡγȡʱֱڴByteBufferУ
+ * ǧ򼶳⳵λٲSeShape/MPointȶѶGCɨ衣
+ * ¼±ʣֱΪGridIndexȿͻĵײ洢
+ * <pre>
+ * PointStore store = PointStore.load(conn, "taxi_point_cloud", "OBJECTID", "GPSTIME");
+ * PointStore.Record r = store.record();
+ * while (r.next()) {
+ *     process(r.getId(), r.getX(), r.getY(), r.getTime());
+ * }
+ * </pre>
+ * ¼ֿţÿCHUNK_RECORDS̰߳ȫֻʱɶ̷߳ʣÿ߳ԼRecord
+ * wrapֱӰװļӳⲿڴ棨LayerSnapshotʱ׷Ӽ¼Ҫ޸ʱcopy()
+ * @author Administrator
+ *
+ */
+public class PointStore {
+
+	/**
+	 * ¼ȣλֽ
+	 */
+	public static final int RECORD_BYTES = 32;
+
+	private static final int OFFSET_ID = 0;
+	private static final int OFFSET_X = 8;
+	private static final int OFFSET_Y = 16;
+	private static final int OFFSET_TIME = 24;
+
+	private static final int CHUNK_SHIFT = 16;
+	/**
+	 * ÿ¼
+	 */
+	public static final int CHUNK_RECORDS = 1 << CHUNK_SHIFT;
+	private static final int CHUNK_MASK = CHUNK_RECORDS - 1;
+
+	private ByteBuffer[] chunks = new ByteBuffer[0];
+	private int size = 0;
+	/**
+	 * Ƿװⲿڴ
+	 */
+	private boolean wrapped = false;
+
+	public PointStore() {
+	}
+
+	/**
+	 * @param expected ԤƼ¼Ԥȷ
+	 */
+	public PointStore(int expected) {
+		ensureCapacity(expected);
+	}
+
+	/**
+	 * װеļ¼ƣ¼ʽ뱾ֽͬȡbufferֽ
+	 * @param buffer positionʼcount¼
+	 * @param count ¼
+	 * @return ׷Ӽ¼Ĵ洢
+	 */
+	public static PointStore wrap(ByteBuffer buffer, int count) {
+		if ((long)count * RECORD_BYTES > buffer.remaining()) {
+			throw new IllegalArgumentException("" + count + "¼" + buffer.remaining() + "ֽ");
+		}
+		ByteOrder order = buffer.order();
+		int start = buffer.position();
+		PointStore store = new PointStore();
+		store.chunks = new ByteBuffer[(count + CHUNK_MASK) >>> CHUNK_SHIFT];
+		for (int c = 0; c < store.chunks.length; c++) {
+			int records = Math.min(CHUNK_RECORDS, count - c * CHUNK_RECORDS);
+			ByteBuffer chunk = buffer.duplicate();
+			chunk.position(start + c * CHUNK_RECORDS * RECORD_BYTES);
+			chunk.limit(chunk.position() + records * RECORD_BYTES);
+			//duplicatesliceֽΪBIG_ENDIAN
+			store.chunks[c] = chunk.slice().order(order);
+		}
+		store.size = count;
+		store.wrapped = true;
+		return store;
+	}
+
+	/**
+	 * Ƶ·ֱڴУصĴ洢޸ĺ׷
+	 * @return
+	 */
+	public PointStore copy() {
+		PointStore store = new PointStore(size);
+		for (int c = 0; c < chunks.length && c * CHUNK_RECORDS < size; c++) {
+			int records = Math.min(CHUNK_RECORDS, size - c * CHUNK_RECORDS);
+			if (chunks[c].order() == ByteOrder.nativeOrder()) {
+				ByteBuffer src = chunks[c].duplicate();
+				src.position(0);
+				src.limit(records * RECORD_BYTES);
+				ByteBuffer dst = store.chunks[c].duplicate();
+				dst.position(0);
+				dst.put(src);
+			} else {
+				for (int i = c * CHUNK_RECORDS; i < c * CHUNK_RECORDS + records; i++) {
+					store.set(i, getId(i), getX(i), getY(i), getTime(i));
+				}
+			}
+		}
+		store.size = size;
+		return store;
+	}
+
+	/**
+	 * ͼȫɨװ
+	 * @param conn
+	 * @param tableName ͼ"taxi_point_cloud"
+	 * @param idColumn ҪIDУΪͣ"OBJECTID"Ϊյ
+	 * @param timeColumn λʱУڻͺ룩ΪnullʱʱΪ0
+	 * @return
+	 * @throws SeException
+	 */
+	public static PointStore load(SeConnection conn, String tableName, String idColumn, String timeColumn) throws SeException {
+		return load(conn, tableName, idColumn, timeColumn, SdeMetadataCache.forConnection(conn));
+	}
+
+	/**
+	 * ͼȫɨװأͼԪȡmetadata
+	 * @param conn
+	 * @param tableName ͼ"taxi_point_cloud"
+	 * @param idColumn ҪIDУΪͣ"OBJECTID"Ϊյ
+	 * @param timeColumn λʱУڻͺ룩ΪnullʱʱΪ0
+	 * @param metadata Ԫݻ棬ӳصgetMetadataCache()
+	 * @return
+	 * @throws SeException
+	 */
+	public static PointStore load(SeConnection conn, String tableName, String idColumn, String timeColumn, SdeMetadataCache metadata)
+			throws SeException {
+		SeLayer layer = metadata.getLayer(conn, tableName);
+		String[] cols = timeColumn == null ? new String[] { idColumn, layer.getSpatialColumn() }
+				: new String[] { idColumn, layer.getSpatialColumn(), timeColumn };
+		SeQuery query = new SeQuery(conn, cols, new SeSqlConstruct(tableName));
+		PointStore store = new PointStore();
+		try {
+			query.prepareQuery();
+			query.execute();
+			store.append(query, 0, 1, timeColumn == null ? -1 : 2);
+		} finally {
+			query.close();
+		}
+		return store;
+	}
+
+	/**
+	 * ȡִвѯȫ׷ӵĩβͼλIDΪյѯɵ÷ر
+	 * @param query ִеĲѯ
+	 * @param idIndex IDڲѯе±꣬Ϊ
+	 * @param shapeIndex ͼ±꣬ȡ
+	 * @param timeIndex ʱ±꣬-1ʾû
+	 * @return ׷ӵļ¼
+	 * @throws SeException
+	 */
+	public int append(SeQuery query, int idIndex, int shapeIndex, int timeIndex) throws SeException {
+		int before = size;
+		SeRow row = query.fetch();
+		while (row != null) {
+			Object idValue = row.getObject(idIndex);
+			SeShape shape = row.getShape(shapeIndex);
+			if (idValue != null && shape != null && !shape.isNil()) {
+				SeExtent extent = shape.getExtent();
+				long id = ((Number)idValue).longValue();
+				long time = timeIndex < 0 ? 0 : toMillis(row.getObject(timeIndex));
+				add(id, (extent.getMinX() + extent.getMaxX()) / 2, (extent.getMinY() + extent.getMaxY()) / 2, time);
+			}
+			row = query.fetch();
+		}
+		return size - before;
+	}
+
+	/**
+	 * ʱеֵCalendarDateͺ룩תΪ
+	 */
+	static long toMillis(Object value) {
+		if (value instanceof Calendar) {
+			return ((Calendar)value).getTimeInMillis();
+		}
+		if (value instanceof Date) {
+			return ((Date)value).getTime();
+		}
+		if (value instanceof Number) {
+			return ((Number)value).longValue();
+		}
+		return 0;
+	}
+
+	/**
+	 * ֤capacity¼
+	 * @param capacity
+	 */
+	public void ensureCapacity(int capacity) {
+		if (wrapped && capacity > size) {
+			throw new IllegalStateException("װⲿڴPointStore׷Ӽ¼copy()");
+		}
+		int needed = (capacity + CHUNK_MASK) >>> CHUNK_SHIFT;
+		if (needed <= chunks.length) {
+			return;
+		}
+		ByteBuffer[] t = new ByteBuffer[needed];
+		System.arraycopy(chunks, 0, t, 0, chunks.length);
+		for (int i = chunks.length; i < needed; i++) {
+			t[i] = ByteBuffer.allocateDirect(CHUNK_RECORDS * RECORD_BYTES).order(ByteOrder.nativeOrder());
+		}
+		chunks = t;
+	}
+
+	/**
+	 * ׷һ¼
+	 * @return ¼±
+	 */
+	public int add(long id, double x, double y, long time) {
+		if (size == Integer.MAX_VALUE) {
+			throw new IllegalStateException("¼Ѵ");
+		}
+		ensureCapacity(size + 1);
+		set(size, id, x, y, time);
+		return size++;
+	}
+
+	/**
+	 * м¼
+	 */
+	public void set(int i, long id, double x, double y, long time) {
+		ByteBuffer chunk = chunks[i >>> CHUNK_SHIFT];
+		int offset = (i & CHUNK_MASK) * RECORD_BYTES;
+		chunk.putLong(offset + OFFSET_ID, id);
+		chunk.putDouble(offset + OFFSET_X, x);
+		chunk.putDouble(offset + OFFSET_Y, y);
+		chunk.putLong(offset + OFFSET_TIME, time);
+	}
+
+	/**
+	 * ޸ļ¼λúʱ䣬ID
+	 */
+	public void move(int i, double x, double y, long time) {
+		ByteBuffer chunk = chunks[i >>> CHUNK_SHIFT];
+		int offset = (i & CHUNK_MASK) * RECORD_BYTES;
+		chunk.putDouble(offset + OFFSET_X, x);
+		chunk.putDouble(offset + OFFSET_Y, y);
+		chunk.putLong(offset + OFFSET_TIME, time);
+	}
+
+	public long getId(int i) {
+		return chunks[i >>> CHUNK_SHIFT].getLong((i & CHUNK_MASK) * RECORD_BYTES + OFFSET_ID);
+	}
+
+	/**
+	 * @return 
+	 */
+	public double getX(int i) {
+		return chunks[i >>> CHUNK_SHIFT].getDouble((i & CHUNK_MASK) * RECORD_BYTES + OFFSET_X);
+	}
+
+	/**
+	 * @return γ
+	 */
+	public double getY(int i) {
+		return chunks[i >>> CHUNK_SHIFT].getDouble((i & CHUNK_MASK) * RECORD_BYTES + OFFSET_Y);
+	}
+
+	/**
+	 * @return ʱλ
+	 */
+	public long getTime(int i) {
+		return chunks[i >>> CHUNK_SHIFT].getLong((i & CHUNK_MASK) * RECORD_BYTES + OFFSET_TIME);
+	}
+
+	/**
+	 * @return ¼
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * ռ¼ѷڴ汣
+	 */
+	public void clear() {
+		if (wrapped) {
+			throw new IllegalStateException("װⲿڴPointStore");
+		}
+		size = 0;
+	}
+
+	/**
+	 * @return Ķڴ棬λֽڣװⲿڴʱΪ0
+	 */
+	public long getAllocatedBytes() {
+		return wrapped ? 0 : (long)chunks.length * CHUNK_RECORDS * RECORD_BYTES;
+	}
+
+	public boolean isWrapped() {
+		return wrapped;
+	}
+
+	/**
+	 * @return ָһ¼֮ǰķnext()
+	 */
+	public Record record() {
+		return new Record();
+	}
+
+	public String toString() {
+		return "PointStore[size=" + size + ", allocated=" + getAllocatedBytes() / 1024 + "KB]";
+	}
+
+	/**
+	 * ԪһͨmoveTo/nextڼ¼ƶʱ
+	 */
+	public class Record {
+
+		private int index = -1;
+		private ByteBuffer chunk;
+		private int offset;
+
+		/**
+		 * Ƶһ¼
+		 * @return Ƿм¼
+		 */
+		public boolean next() {
+			if (index + 1 >= size) {
+				return false;
+			}
+			moveTo(index + 1);
+			return true;
+		}
+
+		/**
+		 * Ƶָ¼
+		 * @param i ¼±
+		 * @return this
+		 */
+		public Record moveTo(int i) {
+			if (i < 0 || i >= size) {
+				throw new IndexOutOfBoundsException("¼±Խ磺" + i + "¼" + size);
+			}
+			index = i;
+			chunk = chunks[i >>> CHUNK_SHIFT];
+			offset = (i & CHUNK_MASK) * RECORD_BYTES;
+			return this;
+		}
+
+		/**
+		 * صһ¼֮ǰ
+		 */
+		public void reset() {
+			index = -1;
+		}
+
+		public int getIndex() {
+			return index;
+		}
+
+		public long getId() {
+			return chunk.getLong(offset + OFFSET_ID);
+		}
+
+		public double getX() {
+			return chunk.getDouble(offset + OFFSET_X);
+		}
+
+		public double getY() {
+			return chunk.getDouble(offset + OFFSET_Y);
+		}
+
+		public long getTime() {
+			return chunk.getLong(offset + OFFSET_TIME);
+		}
+
+		public String toString() {
+			return "[" + getId() + ", " + getX() + ", " + getY() + ", " + getTime() + "]";
+		}
+	}
+}
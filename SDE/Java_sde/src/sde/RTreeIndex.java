@@ -0,0 +1,484 @@
+package sde;
+
+import com.esri.sde.sdk.client.SeColumnDefinition;
+import com.esri.sde.sdk.client.SeConnection;
+import com.esri.sde.sdk.client.SeException;
+import com.esri.sde.sdk.client.SeExtent;
+import com.esri.sde.sdk.client.SeLayer;
+import com.esri.sde.sdk.client.SeQuery;
+import com.esri.sde.sdk.client.SeRow;
+import com.esri.sde.sdk.client.SeShape;
+import com.esri.sde.sdk.client.SeSqlConstruct;
+
+/**
+ * ͻֻRSTRSort-Tile-Recursiveװأȫݴڻ
+ * Ա仯ͼ㣨taxi_point_cloudķ˻ѯ
+ * 	envelopeQueryཻѯ
+ * 	querySdeDao.generateFiltersͬȼMETHOD_ENVP
+ * 	degreeRadiusQueryԶΪλƽԲηΧѯ룻
+ * ׵뾶ѯsearchLatLngUtil.sphereDistanceɸѡͬGridIndex.radiusQuery
+ * ɺ󲻿޸ģɱ߳ͬʱѯ
+ * @author Administrator
+ *
+ */
+public class RTreeIndex implements PointIndex {
+
+	/**
+	 * ڵĬ
+	 */
+	public static final int DEFAULT_NODE_CAPACITY = 16;
+
+	/**
+	 * ѯصitemΪҪе±꣬ͨgetId/getMinXȷȡֵ
+	 */
+	public interface Visitor extends PointIndex.Visitor {
+	}
+
+	private final int size;
+	private final int nodeCapacity;
+	/**
+	 * ҪΣminX,minY,maxX,maxY˳ţѰSTR˳
+	 */
+	private final double[] itemBoxes;
+	private final long[] ids;
+	/**
+	 * ڲڵΣҶӲǰڵ
+	 */
+	private final double[] nodeBoxes;
+	/**
+	 * ڵΧ[childStart, childEnd)ҶӲָҪ±ָ꣬ڵ±
+	 */
+	private final int[] childStart;
+	private final int[] childEnd;
+	/**
+	 * һҶӽڵ±
+	 */
+	private final int firstInnerNode;
+	private final int height;
+
+	private RTreeIndex(int size, int nodeCapacity, double[] itemBoxes, long[] ids, double[] nodeBoxes,
+			int[] childStart, int[] childEnd, int firstInnerNode, int height) {
+		this.size = size;
+		this.nodeCapacity = nodeCapacity;
+		this.itemBoxes = itemBoxes;
+		this.ids = ids;
+		this.nodeBoxes = nodeBoxes;
+		this.childStart = childStart;
+		this.childEnd = childEnd;
+		this.firstInnerNode = firstInnerNode;
+		this.height = height;
+	}
+
+	/**
+	 * ɵ깹
+	 * @param xs 
+	 * @param ys γ
+	 * @param ids ҪID
+	 * @return
+	 */
+	public static RTreeIndex build(double[] xs, double[] ys, long[] ids) {
+		return build(xs, ys, xs, ys, ids, DEFAULT_NODE_CAPACITY);
+	}
+
+	/**
+	 * ι鲻ᱻ޸
+	 * @param minXs
+	 * @param minYs
+	 * @param maxXs
+	 * @param maxYs
+	 * @param ids
+	 * @param nodeCapacity ڵС2
+	 * @return
+	 */
+	public static RTreeIndex build(double[] minXs, double[] minYs, double[] maxXs, double[] maxYs, long[] ids, int nodeCapacity) {
+		int n = ids.length;
+		if (minXs.length != n || minYs.length != n || maxXs.length != n || maxYs.length != n) {
+			throw new IllegalArgumentException("ID鳤Ȳһ");
+		}
+		if (nodeCapacity < 2) {
+			throw new IllegalArgumentException("ڵС2" + nodeCapacity);
+		}
+
+		//ҪذSTR˳
+		double[] boxes = new double[4 * n];
+		for (int i = 0; i < n; i++) {
+			boxes[4 * i] = minXs[i];
+			boxes[4 * i + 1] = minYs[i];
+			boxes[4 * i + 2] = maxXs[i];
+			boxes[4 * i + 3] = maxYs[i];
+		}
+		int[] order = strOrder(boxes, n, nodeCapacity);
+		double[] itemBoxes = new double[4 * n];
+		long[] sortedIds = new long[n];
+		for (int i = 0; i < n; i++) {
+			System.arraycopy(boxes, 4 * order[i], itemBoxes, 4 * i, 4);
+			sortedIds[i] = ids[order[i]];
+		}
+
+		//ڵ
+		int total = 0;
+		int count = n;
+		do {
+			count = Math.max(1, (count + nodeCapacity - 1) / nodeCapacity);
+			total += count;
+		} while (count > 1);
+		double[] nodeBoxes = new double[4 * total];
+		int[] childStart = new int[total];
+		int[] childEnd = new int[total];
+
+		//ҶӲ㣺nodeCapacityҪһڵ
+		int levelStart = 0;
+		int levelCount = group(itemBoxes, n, 0, nodeCapacity, nodeBoxes, childStart, childEnd, 0);
+		int firstInnerNode = levelCount;
+		int height = 1;
+
+		//ϣԱڵ㰴STRźٷ
+		while (levelCount > 1) {
+			reorderLevel(nodeBoxes, childStart, childEnd, levelStart, levelCount, nodeCapacity);
+			int next = levelStart + levelCount;
+			int nextCount = group(nodeBoxes, levelCount, levelStart, nodeCapacity, nodeBoxes, childStart, childEnd, next);
+			levelStart = next;
+			levelCount = nextCount;
+			height++;
+		}
+		return new RTreeIndex(n, nodeCapacity, itemBoxes, sortedIds, nodeBoxes, childStart, childEnd,
+				firstInnerNode, height);
+	}
+
+	/**
+	 * srcдsrcOffsetʼcountΣcapacityһϲڵ
+	 * @return ɵĽڵ
+	 */
+	private static int group(double[] src, int count, int srcOffset, int capacity,
+			double[] nodeBoxes, int[] childStart, int[] childEnd, int dstOffset) {
+		int nodes = 0;
+		for (int start = 0; start < count || nodes == 0; start += capacity) {
+			int end = Math.min(start + capacity, count);
+			int node = dstOffset + nodes;
+			double minX = Double.POSITIVE_INFINITY;
+			double minY = Double.POSITIVE_INFINITY;
+			double maxX = Double.NEGATIVE_INFINITY;
+			double maxY = Double.NEGATIVE_INFINITY;
+			for (int i = srcOffset + start; i < srcOffset + end; i++) {
+				minX = Math.min(minX, src[4 * i]);
+				minY = Math.min(minY, src[4 * i + 1]);
+				maxX = Math.max(maxX, src[4 * i + 2]);
+				maxY = Math.max(maxY, src[4 * i + 3]);
+			}
+			nodeBoxes[4 * node] = minX;
+			nodeBoxes[4 * node + 1] = minY;
+			nodeBoxes[4 * node + 2] = maxX;
+			nodeBoxes[4 * node + 3] = maxY;
+			childStart[node] = srcOffset + start;
+			childEnd[node] = srcOffset + end;
+			nodes++;
+		}
+		return nodes;
+	}
+
+	/**
+	 * STR˳ԭһڵ㣨ͬΧ
+	 */
+	private static void reorderLevel(double[] nodeBoxes, int[] childStart, int[] childEnd,
+			int levelStart, int levelCount, int capacity) {
+		double[] boxes = new double[4 * levelCount];
+		System.arraycopy(nodeBoxes, 4 * levelStart, boxes, 0, 4 * levelCount);
+		int[] starts = new int[levelCount];
+		int[] ends = new int[levelCount];
+		System.arraycopy(childStart, levelStart, starts, 0, levelCount);
+		System.arraycopy(childEnd, levelStart, ends, 0, levelCount);
+		int[] order = strOrder(boxes, levelCount, capacity);
+		for (int i = 0; i < levelCount; i++) {
+			int node = levelStart + i;
+			System.arraycopy(boxes, 4 * order[i], nodeBoxes, 4 * node, 4);
+			childStart[node] = starts[order[i]];
+			childEnd[node] = ends[order[i]];
+		}
+	}
+
+	/**
+	 * STRУȰXзΪsqrt(P)ÿٰY
+	 * @return order[i]Ϊڵiλԭ±
+	 */
+	private static int[] strOrder(double[] boxes, int count, int capacity) {
+		int[] order = new int[count];
+		double[] cx = new double[count];
+		double[] cy = new double[count];
+		for (int i = 0; i < count; i++) {
+			order[i] = i;
+			cx[i] = (boxes[4 * i] + boxes[4 * i + 2]) / 2;
+			cy[i] = (boxes[4 * i + 1] + boxes[4 * i + 3]) / 2;
+		}
+		int leaves = (count + capacity - 1) / capacity;
+		int slices = (int)Math.ceil(Math.sqrt(leaves));
+		int sliceSize = slices * capacity;
+		sortByKey(cx, order, 0, count);
+		for (int start = 0; start < count; start += sliceSize) {
+			sortByKey(cy, order, start, Math.min(start + sliceSize, count));
+		}
+		return order;
+	}
+
+	/**
+	 * key[idx[i]]idx[from, to)򣨿С
+	 */
+	private static void sortByKey(double[] key, int[] idx, int from, int to) {
+		while (to - from > 16) {
+			int mid = (from + to) >>> 1;
+			double pivot = key[idx[mid]];
+			int i = from;
+			int j = to - 1;
+			while (i <= j) {
+				while (key[idx[i]] < pivot) {
+					i++;
+				}
+				while (key[idx[j]] > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					int t = idx[i];
+					idx[i] = idx[j];
+					idx[j] = t;
+					i++;
+					j--;
+				}
+			}
+			//ȵݹ϶̵һ࣬ջ
+			if (j - from < to - i) {
+				sortByKey(key, idx, from, j + 1);
+				from = i;
+			} else {
+				sortByKey(key, idx, i, to);
+				to = j + 1;
+			}
+		}
+		for (int i = from + 1; i < to; i++) {
+			int v = idx[i];
+			double k = key[v];
+			int j = i - 1;
+			while (j >= from && key[idx[j]] > k) {
+				idx[j + 1] = idx[j];
+				j--;
+			}
+			idx[j + 1] = v;
+		}
+	}
+
+	/**
+	 * ͼȫɨװ
+	 * @param conn
+	 * @param tableName ͼ"taxi_point_cloud"
+	 * @param idColumn ҪIDУΪͣ"OBJECTID"Ϊյ
+	 * @return
+	 * @throws SeException
+	 */
+	public static RTreeIndex load(SeConnection conn, String tableName, String idColumn) throws SeException {
+		return load(conn, tableName, idColumn, SdeMetadataCache.forConnection(conn));
+	}
+
+	/**
+	 * ͼȫɨװͼԪȡmetadata
+	 * @param conn
+	 * @param tableName ͼ"taxi_point_cloud"
+	 * @param idColumn ҪIDУΪͣ"OBJECTID"Ϊյ
+	 * @param metadata Ԫݻ棬ӳصgetMetadataCache()
+	 * @return
+	 * @throws SeException
+	 */
+	public static RTreeIndex load(SeConnection conn, String tableName, String idColumn, SdeMetadataCache metadata) throws SeException {
+		SeLayer layer = metadata.getLayer(conn, tableName);
+		String[] cols = new String[] { idColumn, layer.getSpatialColumn() };
+		SeQuery query = new SeQuery(conn, cols, new SeSqlConstruct(tableName));
+		int n = 0;
+		double[] minXs = new double[1024];
+		double[] minYs = new double[1024];
+		double[] maxXs = new double[1024];
+		double[] maxYs = new double[1024];
+		long[] ids = new long[1024];
+		try {
+			query.prepareQuery();
+			query.execute();
+			SeRow row = query.fetch();
+			boolean isLong = row != null && row.getColumnDef(0).getType() == SeColumnDefinition.TYPE_INT64;
+			while (row != null) {
+				Number id = isLong ? (Number)row.getLong(0) : row.getInteger(0);
+				SeShape shape = row.getShape(1);
+				if (id != null && shape != null && !shape.isNil()) {
+					if (n == ids.length) {
+						int cap = n * 2;
+						minXs = grow(minXs, cap);
+						minYs = grow(minYs, cap);
+						maxXs = grow(maxXs, cap);
+						maxYs = grow(maxYs, cap);
+						long[] t = new long[cap];
+						System.arraycopy(ids, 0, t, 0, n);
+						ids = t;
+					}
+					SeExtent extent = shape.getExtent();
+					minXs[n] = extent.getMinX();
+					minYs[n] = extent.getMinY();
+					maxXs[n] = extent.getMaxX();
+					maxYs[n] = extent.getMaxY();
+					ids[n] = id.longValue();
+					n++;
+				}
+				row = query.fetch();
+			}
+		} finally {
+			query.close();
+		}
+		long[] t = new long[n];
+		System.arraycopy(ids, 0, t, 0, n);
+		return build(grow(minXs, n), grow(minYs, n), grow(maxXs, n), grow(maxYs, n), t, DEFAULT_NODE_CAPACITY);
+	}
+
+	private static double[] grow(double[] a, int length) {
+		double[] t = new double[length];
+		System.arraycopy(a, 0, t, 0, Math.min(a.length, length));
+		return t;
+	}
+
+	/**
+	 * ѯཻҪ
+	 * @return и
+	 */
+	public int search(double minX, double minY, double maxX, double maxY, PointIndex.Visitor visitor) {
+		if (size == 0) {
+			return 0;
+		}
+		int hits = 0;
+		int[] stack = new int[height * nodeCapacity + 1];
+		int top = 0;
+		stack[top++] = childStart.length - 1;
+		while (top > 0) {
+			int node = stack[--top];
+			if (!intersects(nodeBoxes, node, minX, minY, maxX, maxY)) {
+				continue;
+			}
+			if (node < firstInnerNode) {
+				for (int i = childStart[node]; i < childEnd[node]; i++) {
+					if (intersects(itemBoxes, i, minX, minY, maxX, maxY)) {
+						visitor.visit(i);
+						hits++;
+					}
+				}
+			} else {
+				for (int c = childStart[node]; c < childEnd[node]; c++) {
+					stack[top++] = c;
+				}
+			}
+		}
+		return hits;
+	}
+
+	private static boolean intersects(double[] boxes, int i, double minX, double minY, double maxX, double maxY) {
+		return boxes[4 * i] <= maxX && boxes[4 * i + 2] >= minX
+				&& boxes[4 * i + 1] <= maxY && boxes[4 * i + 3] >= minY;
+	}
+
+	/**
+	 * ཻѯ
+	 * @return ҪID
+	 */
+	public long[] envelopeQuery(double minX, double minY, double maxX, double maxY) {
+		IdCollector collector = new IdCollector();
+		search(minX, minY, maxX, maxY, collector);
+		return collector.toArray();
+	}
+
+	/**
+	 * SdeDao.generateFilters(scr, lon, lat, distance, ...)ͬĲ
+	 * ȼԻMETHOD_ENVP
+	 * @param lon
+	 * @param lat
+	 * @param distance 굥λȣͨLatLngUtil.m2gps
+	 * @return ҪID
+	 */
+	public long[] query(double lon, double lat, double distance) {
+		return envelopeQuery(lon - distance, lat - distance, lon + distance, lat + distance);
+	}
+
+	/**
+	 * ƽԲηΧѯҪεԲĵƽ루γֱλȣdistanceУ
+	 * ȷδγGridIndex.radiusQuery벻ͬ
+	 * @param lon
+	 * @param lat
+	 * @param distance 굥λȣ
+	 * @return ҪID
+	 */
+	public long[] degreeRadiusQuery(final double lon, final double lat, double distance) {
+		final double d2 = distance * distance;
+		final IdCollector collector = new IdCollector();
+		search(lon - distance, lat - distance, lon + distance, lat + distance, new Visitor() {
+			public void visit(int item) {
+				double dx = Math.max(Math.max(itemBoxes[4 * item] - lon, 0), lon - itemBoxes[4 * item + 2]);
+				double dy = Math.max(Math.max(itemBoxes[4 * item + 1] - lat, 0), lat - itemBoxes[4 * item + 3]);
+				if (dx * dx + dy * dy <= d2) {
+					collector.visit(item);
+				}
+			}
+		});
+		return collector.toArray();
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public long getId(int item) {
+		return ids[item];
+	}
+
+	public double getMinX(int item) {
+		return itemBoxes[4 * item];
+	}
+
+	public double getMinY(int item) {
+		return itemBoxes[4 * item + 1];
+	}
+
+	public double getMaxX(int item) {
+		return itemBoxes[4 * item + 2];
+	}
+
+	public double getMaxY(int item) {
+		return itemBoxes[4 * item + 3];
+	}
+
+	/**
+	 * @return XҪؼ
+	 */
+	public double getX(int item) {
+		return (itemBoxes[4 * item] + itemBoxes[4 * item + 2]) / 2;
+	}
+
+	/**
+	 * @return YҪؼγ
+	 */
+	public double getY(int item) {
+		return (itemBoxes[4 * item + 1] + itemBoxes[4 * item + 3]) / 2;
+	}
+
+	/**
+	 * ռҪIDĿ
+	 */
+	private class IdCollector implements Visitor {
+		private long[] buffer = new long[64];
+		private int count;
+
+		public void visit(int item) {
+			if (count == buffer.length) {
+				long[] t = new long[count * 2];
+				System.arraycopy(buffer, 0, t, 0, count);
+				buffer = t;
+			}
+			buffer[count++] = ids[item];
+		}
+
+		long[] toArray() {
+			long[] result = new long[count];
+			System.arraycopy(buffer, 0, result, 0, count);
+			return result;
+		}
+	}
+}
@@ -0,0 +1,247 @@
+package sde;
+
+import com.esri.sde.sdk.client.SDEPoint;
+import com.esri.sde.sdk.client.SeConnection;
+import com.esri.sde.sdk.client.SeCoordinateReference;
+import com.esri.sde.sdk.client.SeException;
+import com.esri.sde.sdk.client.SeInsert;
+import com.esri.sde.sdk.client.SeLayer;
+import com.esri.sde.sdk.client.SeRow;
+import com.esri.sde.sdk.client.SeShape;
+
+/**
+ * ͼ룺ֻһSeInsertgetRowToSet()صSeRow
+ * ͼοÿbatchSizeˢ»岢ύһ
+ * ÷
+ * <pre>
+ * SdeBulkInserter inserter = new SdeBulkInserter(conn, "taxi_point_cloud", 1000);
+ * try {
+ *     inserter.add(lon, lat);
+ *     ...
+ * } finally {
+ *     inserter.close();
+ * }
+ * </pre>
+ * һͬһʱֻһSdeBulkInserter
+ * @author Administrator
+ *
+ */
+public class SdeBulkInserter {
+
+	private final SeConnection conn;
+	private final int batchSize;
+	private final SeCoordinateReference scr;
+	private final SeInsert insert;
+	private final SeRow row;
+	private final SDEPoint[] pnts = new SDEPoint[1];
+	private final int previousAutoCommit;
+
+	private int pending = 0;
+	private long committed = 0;
+	private long batches = 0;
+	private final long startTime;
+	private boolean closed = false;
+	/**
+	 * Ƿбδ
+	 */
+	private boolean inTransaction = false;
+
+	/**
+	 * @param conn
+	 * @param layerName ͼlonlatֵ
+	 * @param batchSize ÿÿύһ
+	 * @throws SeException
+	 */
+	public SdeBulkInserter(SeConnection conn, String layerName, int batchSize) throws SeException {
+		this(conn, layerName, batchSize, SdeMetadataCache.forConnection(conn));
+	}
+
+	/**
+	 * @param conn
+	 * @param layerName ͼlonlatֵ
+	 * @param batchSize ÿÿύһ
+	 * @param metadata ͼԪݻ棬ӳصgetMetadataCache()
+	 * @throws SeException
+	 */
+	public SdeBulkInserter(SeConnection conn, String layerName, int batchSize, SdeMetadataCache metadata) throws SeException {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("С0" + batchSize);
+		}
+		this.conn = conn;
+		this.batchSize = batchSize;
+
+		SeLayer layer = metadata.getLayer(conn, layerName);
+		this.scr = layer.getCoordRef();
+		String[] cols = new String[] { "lon", "lat", layer.getSpatialColumn() };
+
+		this.previousAutoCommit = conn.setTransactionAutoCommit(0);
+		SeInsert stream = null;
+		try {
+			conn.startTransaction();
+			inTransaction = true;
+			stream = new SeInsert(conn);
+			stream.intoTable(layer.getName(), cols);
+			stream.setWriteMode(true);
+			this.row = stream.getRowToSet();
+		} catch (SeException e) {
+			abort(stream);
+			throw e;
+		} catch (RuntimeException e) {
+			abort(stream);
+			throw e;
+		}
+		this.insert = stream;
+		this.startTime = System.currentTimeMillis();
+	}
+
+	/**
+	 * ʧʱع񡢹رղָԶύãӿ黹ӳأ
+	 * е쳣ֻӡԭʼ쳣
+	 * @param stream ѴĲΪnull
+	 */
+	private void abort(SeInsert stream) {
+		try {
+			if (inTransaction) {
+				inTransaction = false;
+				conn.rollbackTransaction();
+			}
+		} catch (SeException e) {
+			e.printStackTrace();
+		}
+		try {
+			if (stream != null) {
+				stream.close();
+			}
+		} catch (SeException e) {
+			e.printStackTrace();
+		}
+		try {
+			conn.setTransactionAutoCommit(previousAutoCommit);
+		} catch (SeException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * дһ㣬ﵽСʱԶύ
+	 * @param lon
+	 * @param lat
+	 * @throws SeException
+	 */
+	public void add(double lon, double lat) throws SeException {
+		row.setDouble(0, lon);
+		row.setDouble(1, lat);
+		SeShape shape = new SeShape(scr);
+		pnts[0] = new SDEPoint(lon, lat);
+		shape.generatePoint(1, pnts);
+		row.setShape(2, shape);
+		insert.execute();
+		pending++;
+		if (pending >= batchSize) {
+			flush();
+		}
+	}
+
+	/**
+	 * д
+	 * @param lons
+	 * @param lats
+	 * @throws SeException
+	 */
+	public void addAll(double[] lons, double[] lats) throws SeException {
+		if (lons.length != lats.length) {
+			throw new IllegalArgumentException("γ鳤Ȳһ£" + lons.length + " != " + lats.length);
+		}
+		for (int i = 0; i < lons.length; i++) {
+			add(lons[i], lats[i]);
+		}
+	}
+
+	/**
+	 * ˢ»ύǰΣʱعǰβ֮Կɼд
+	 * @throws SeException
+	 */
+	public void flush() throws SeException {
+		if (pending == 0) {
+			return;
+		}
+		try {
+			insert.flushBufferedWrites();
+			conn.commitTransaction();
+			inTransaction = false;
+		} catch (SeException e) {
+			pending = 0;
+			try {
+				inTransaction = false;
+				conn.rollbackTransaction();
+				conn.startTransaction();
+				inTransaction = true;
+			} catch (SeException re) {
+				re.printStackTrace();
+			}
+			throw e;
+		}
+		committed += pending;
+		batches++;
+		pending = 0;
+		conn.startTransaction();
+		inTransaction = true;
+	}
+
+	/**
+	 * ύʣݣرղָԭԶύ
+	 * @throws SeException
+	 */
+	public void close() throws SeException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			flush();
+			if (inTransaction) {
+				conn.commitTransaction();
+				inTransaction = false;
+			}
+		} finally {
+			if (inTransaction) {
+				//flushʧܺµĿ
+				inTransaction = false;
+				try {
+					conn.rollbackTransaction();
+				} catch (SeException e) {
+					e.printStackTrace();
+				}
+			}
+			try {
+				insert.close();
+			} finally {
+				conn.setTransactionAutoCommit(previousAutoCommit);
+			}
+		}
+	}
+
+	/**
+	 * @return ύ
+	 */
+	public long getCommittedRows() {
+		return committed;
+	}
+
+	public long getBatches() {
+		return batches;
+	}
+
+	/**
+	 * @return Ӵڵƽдٶȣλ/
+	 */
+	public double getRowsPerSecond() {
+		long elapsed = Math.max(1, System.currentTimeMillis() - startTime);
+		return committed * 1000.0 / elapsed;
+	}
+
+	public String toString() {
+		return "SdeBulkInserter[rows=" + committed + ", batches=" + batches + ", pending=" + pending
+				+ ", rows/s=" + String.format("%.1f", getRowsPerSecond()) + "]";
+	}
+}
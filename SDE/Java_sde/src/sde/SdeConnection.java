@@ -2,8 +2,11 @@ package sde;
 
 import com.esri.sde.sdk.client.SeConnection;
 import com.esri.sde.sdk.client.SeException;
+import com.esri.sde.sdk.client.SeInstance;
 
 public class SdeConnection {
+	private static ConnectionPool<SeConnection> pool = null;
+	
 	public static void print(Object obj){
 		System.out.println(obj);
 	}
@@ -42,6 +45,50 @@ public class SdeConnection {
         System.out.println("success");
         return conn;
 	}
+	/**
+	 * ȡӳأ״εʱȡmaxSizeеĽСֵ
+	 * pool.release(conn)黹
+	 * @return
+	 */
+	public static synchronized ConnectionPool<SeConnection> getPool(){
+		if(pool == null){
+			SeConnectionFactory factory = new SeConnectionFactory("3c4e53a46eaf4e3", 5151, "orcl", "sde", "liulin");
+			pool = createPool(factory, 2, 16);
+		}
+		return pool;
+	}
+	/**
+	 * ӳأmaxSize
+	 * @param factory
+	 * @param minSize
+	 * @param maxSize
+	 * @return
+	 */
+	public static ConnectionPool<SeConnection> createPool(SeConnectionFactory factory, int minSize, int maxSize){
+		int serverMax = getMaxConnections(factory.getServer(), factory.getInstance());
+		if(serverMax > 0 && serverMax < maxSize){
+			maxSize = serverMax;
+			minSize = Math.min(minSize, maxSize);
+		}
+		ConnectionPool<SeConnection> p = new ConnectionPool<SeConnection>(factory, minSize, maxSize, 30000);
+		p.setLeakThreshold(10 * 60 * 1000);
+		return p;
+	}
+	/**
+	 * ѯ
+	 * @param server
+	 * @param instance
+	 * @return ѯʧܷ-1
+	 */
+	public static int getMaxConnections(String server, int instance){
+		try {
+			SeInstance seInstance = new SeInstance(server, instance);
+			return seInstance.getConfiguration().getMaxConnections();
+		}catch (SeException e) {
+			e.printStackTrace();
+			return -1;
+		}
+	}
 	/**
 	 * @param args
 	 */
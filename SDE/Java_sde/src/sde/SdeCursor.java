@@ -0,0 +1,165 @@
+package sde;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.esri.sde.devhelp.RowDecoder;
+import com.esri.sde.sdk.client.SeColumnDefinition;
+import com.esri.sde.sdk.client.SeException;
+import com.esri.sde.sdk.client.SeQuery;
+import com.esri.sde.sdk.client.SeRow;
+import com.esri.sde.sdk.client.SeShape;
+
+/**
+ * ѯα꣺SeQuery.fetch()ȡ
+ * ֵֻڵgetXxxʱŴӵǰнһлclose()رղѯ
+ * ǰʱclose()
+ * <pre>
+ * SdeCursor cursor = SdeDao.openSpatialQuery(conn, tableName, filters);
+ * try {
+ *     while (cursor.hasNext()) {
+ *         SeRow row = cursor.next();
+ *         ...
+ *     }
+ * } finally {
+ *     cursor.close();
+ * }
+ * </pre>
+ * ̰߳ȫ
+ * @author Administrator
+ *
+ */
+public class SdeCursor implements Iterator<SeRow> {
+
+	private final SeQuery query;
+	private SeRow current;
+	private SeRow next;
+	private boolean fetched = false;
+	private boolean closed = false;
+	private long count = 0;
+	private RowDecoder decoder;
+	private ColumnBatch batch;
+
+	/**
+	 * @param query ִУexecuteĲѯα긺ر
+	 */
+	public SdeCursor(SeQuery query) {
+		this.query = query;
+	}
+
+	/**
+	 * ǷһУҪʱȡһ
+	 * @throws IllegalStateException ȡѯѹر
+	 */
+	public boolean hasNext() {
+		if (!fetched && !closed) {
+			try {
+				next = query.fetch();
+			} catch (SeException e) {
+				close();
+				throw new IllegalStateException("ȡʧܣ" + e.getSeError().getErrDesc(), e);
+			}
+			fetched = true;
+			if (next == null) {
+				close();
+			}
+		}
+		return next != null;
+	}
+
+	public SeRow next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		current = next;
+		next = null;
+		fetched = false;
+		count++;
+		return current;
+	}
+
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * رղѯظ
+	 */
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		next = null;
+		try {
+			query.close();
+		} catch (SeException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * ȡһȡcapacityеõColumnBatchУnext()
+	 * @param capacity ÿ״εʱȷ
+	 * @return ȡ귵null
+	 * @throws SeException
+	 */
+	public ColumnBatch nextBatch(int capacity) throws SeException {
+		if (!hasNext()) {
+			return null;
+		}
+		if (batch == null) {
+			SeColumnDefinition[] colDefs = next.getColumns();
+			decoder = RowDecoder.compile(colDefs);
+			batch = new ColumnBatch(colDefs, capacity);
+		}
+		batch.clear();
+		while (!batch.isFull() && hasNext()) {
+			decoder.decode(next());
+			batch.add(decoder);
+		}
+		return batch;
+	}
+
+	public boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * @return Ѿͨnext()ص
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	private SeRow row() {
+		if (current == null) {
+			throw new IllegalStateException("ȵnext()");
+		}
+		return current;
+	}
+
+	public Object getObject(int index) throws SeException {
+		return row().getObject(index);
+	}
+
+	public Integer getInteger(int index) throws SeException {
+		return row().getInteger(index);
+	}
+
+	public Long getLong(int index) throws SeException {
+		return row().getLong(index);
+	}
+
+	public Double getDouble(int index) throws SeException {
+		return row().getDouble(index);
+	}
+
+	public String getString(int index) throws SeException {
+		return row().getString(index);
+	}
+
+	public SeShape getShape(int index) throws SeException {
+		return row().getShape(index);
+	}
+}
@@ -5,15 +5,13 @@ import com.esri.sde.sdk.client.SeColumnDefinition;
 import com.esri.sde.sdk.client.SeConnection;
 import com.esri.sde.sdk.client.SeCoordinateReference;
 import com.esri.sde.sdk.client.SeException;
+import com.esri.sde.sdk.client.SeExtent;
 import com.esri.sde.sdk.client.SeFilter;
 import com.esri.sde.sdk.client.SeInsert;
 import com.esri.sde.sdk.client.SeLayer;
-import com.esri.sde.sdk.client.SeQuery;
 import com.esri.sde.sdk.client.SeRow;
 import com.esri.sde.sdk.client.SeShape;
 import com.esri.sde.sdk.client.SeShapeFilter;
-import com.esri.sde.sdk.client.SeSqlConstruct;
-import com.esri.sde.sdk.client.SeTable;
 import com.esri.sde.sdk.geom.SeCoordRef;
 import com.esri.sde.sdk.geom.SeGeometryException;
 import com.esri.sde.sdk.geom.SePoint;
@@ -25,26 +23,34 @@ public class SdeDao {
 	 */
 	public static void main(String[] args) {
 		// TODO Auto-generated method stub
+		ConnectionPool<SeConnection> pool = SdeConnection.getPool();
+		SeConnection conn = null;
 		try {
 //			distance();
-			SeConnection conn = SdeConnection.getSeConnection();
+			conn = pool.borrow();
 //			if(conn!=null){
 //				insert(conn,"taxi_point_cloud",118.90, 30.23);
 //			}
 			String tableName = "taxi_point_cloud";
 			String spatialColumn = "shape";
 			
-			SeCoordinateReference cr = getLayerSeCoordinateReference(conn,tableName);
+			SeCoordinateReference cr = getLayerSeCoordinateReference(conn,tableName,pool.getMetadataCache());
 			double lon=118.9;
 			double lat=31.23;
-			double distance=LatLngUtil.m2gps(1000);
-			SeFilter[] filters = generateFilters(cr, lon, lat, distance, tableName, spatialColumn);
+			double[] box = LatLngUtil.envelope(lon, lat, 1000);
+			SeShape envelope = generateEnvelopeSeShape(cr, box[0], box[1], box[2], box[3]);
+			SeFilter[] filters = generateFilters(envelope, tableName, spatialColumn);
 			
 			spatialQuery(conn,tableName,filters);
 			
-		} catch (SeException e) {
+		} catch (Exception e) {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
+		} finally {
+			if(conn!=null){
+				pool.release(conn);
+			}
+			pool.close();
 		}
 	}
 	
@@ -92,8 +98,19 @@ public class SdeDao {
 	 * @throws SeException 
 	 */
 	public static void insert(SeConnection conn, String layerName, double lon, double lat) throws SeException{
+		insert(conn, layerName, lon, lat, SdeMetadataCache.forConnection(conn));
+	}
+	/**
+	 * @param conn
+	 * @param layerName, FOR INTANCE: "taxi_point_cloud"
+	 * @param lon
+	 * @param lat
+	 * @param metadata Ԫݻ棬ӳصgetMetadataCache()
+	 * @throws SeException 
+	 */
+	public static void insert(SeConnection conn, String layerName, double lon, double lat, SdeMetadataCache metadata) throws SeException{
 		
-		SeLayer layer = new SeLayer( conn, layerName, "SHAPE" );
+		SeLayer layer = metadata.getLayer(conn, layerName);
 		
 		String[] cols = new String[3];
 
@@ -134,6 +151,61 @@ public class SdeDao {
 
         insert.close();
 	}
+	/**
+	 * 㣬һSeInsertÿbatchSizeύһ
+	 * @param conn
+	 * @param layerName, FOR INTANCE: "taxi_point_cloud"
+	 * @param lons
+	 * @param lats
+	 * @param batchSize ÿ
+	 * @return ٶȣλ/
+	 * @throws SeException
+	 */
+	public static double insert(SeConnection conn, String layerName, double[] lons, double[] lats, int batchSize) throws SeException{
+		return insert(conn, layerName, lons, lats, batchSize, false);
+	}
+	/**
+	 * 㣬ȰHilbertʹͬһڵĵڿռϼУ
+	 * ٿռҳд
+	 * @param conn
+	 * @param layerName
+	 * @param lons
+	 * @param lats
+	 * @param batchSize ÿ
+	 * @param hilbertOrder ǷHilbert˳
+	 * @return ٶȣλ/
+	 * @throws SeException
+	 */
+	public static double insert(SeConnection conn, String layerName, double[] lons, double[] lats, int batchSize, boolean hilbertOrder) throws SeException{
+		return insert(conn, layerName, lons, lats, batchSize, hilbertOrder, SdeMetadataCache.forConnection(conn));
+	}
+	/**
+	 * 㣬ͬinsert(conn, layerName, lons, lats, batchSize, hilbertOrder)ͼԪȡmetadata
+	 * @param conn
+	 * @param layerName
+	 * @param lons
+	 * @param lats
+	 * @param batchSize ÿ
+	 * @param hilbertOrder ǷHilbert˳
+	 * @param metadata Ԫݻ棬ӳصgetMetadataCache()
+	 * @return ٶȣλ/
+	 * @throws SeException
+	 */
+	public static double insert(SeConnection conn, String layerName, double[] lons, double[] lats, int batchSize, boolean hilbertOrder,
+			SdeMetadataCache metadata) throws SeException{
+		if (hilbertOrder) {
+			int[] order = SpatialOrder.hilbertOrder(lons, lats, Runtime.getRuntime().availableProcessors());
+			lons = SpatialOrder.permute(lons, order);
+			lats = SpatialOrder.permute(lats, order);
+		}
+		SdeBulkInserter inserter = new SdeBulkInserter(conn, layerName, batchSize, metadata);
+		try {
+			inserter.addAll(lons, lats);
+		} finally {
+			inserter.close();
+		}
+		return inserter.getRowsPerSecond();
+	}
 	/**
 	 * 
 	 * @param scr
@@ -164,6 +236,36 @@ public class SdeDao {
 		return buffer;
 	}
 	
+	/**
+	 * (lon, lat)Ϊġ߳ΪdistanceľΣMETHOD_ENVPֹʹã
+	 * METHOD_ENVPֻȽΣͬ뾶һ£ɻ
+	 * @param scr
+	 * @param lon
+	 * @param lat
+	 * @param distance 굥λȣ
+	 * @return
+	 * @throws SeException
+	 */
+	public static SeShape generateEnvelopeSeShape(SeCoordinateReference scr, double lon, double lat, double distance) throws SeException{
+		return generateEnvelopeSeShape(scr, lon - distance, lat - distance, lon + distance, lat + distance);
+	}
+	
+	/**
+	 * ɾ
+	 * @param scr
+	 * @param minX
+	 * @param minY
+	 * @param maxX
+	 * @param maxY
+	 * @return
+	 * @throws SeException
+	 */
+	public static SeShape generateEnvelopeSeShape(SeCoordinateReference scr, double minX, double minY, double maxX, double maxY) throws SeException{
+		SeShape shape = new SeShape(scr);
+		shape.generateRectangle(new SeExtent(minX, minY, maxX, maxY));
+		return shape;
+	}
+	
 	/**
 	 * ɿռ
 	 * @param shape
@@ -196,7 +298,7 @@ public class SdeDao {
 		SeFilter[] filters = null;
 		SeShape shape;
 		try {
-			shape = generateBufferSeShape(scr, lon, lat, distance);
+			shape = generateEnvelopeSeShape(scr, lon, lat, distance);
 			filters = generateFilters(shape,layerName,spatialColumn);
 		} catch (SeException e) {
 			// TODO Auto-generated catch block
@@ -206,6 +308,73 @@ public class SdeDao {
 		return filters;		
 	}
 	
+	/**
+	 * ȷ뾶ѯþMETHOD_ENVPֹˣڿͻ˰뾫ȷɸѡ
+	 * LatLngUtil.envelopeγȴȿȣ֤Բ
+	 * @param conn
+	 * @param tableName ͼ
+	 * @param idColumn ҪIDУΪͣΪյ
+	 * @param lon
+	 * @param lat
+	 * @param meters 뾶λ
+	 * @return 벻metersҪID
+	 * @throws SeException
+	 */
+	public static long[] radiusQuery(SeConnection conn, String tableName, String idColumn, double lon, double lat, double meters) throws SeException{
+		return radiusQuery(conn, tableName, idColumn, lon, lat, meters, SdeMetadataCache.forConnection(conn));
+	}
+
+	/**
+	 * ȷ뾶ѯͬradiusQuery(conn, tableName, idColumn, lon, lat, meters)ͼԪȡmetadata
+	 * @param conn
+	 * @param tableName ͼ
+	 * @param idColumn ҪIDУΪͣΪյ
+	 * @param lon
+	 * @param lat
+	 * @param meters 뾶λ
+	 * @param metadata Ԫݻ棬ӳصgetMetadataCache()
+	 * @return 벻metersҪID
+	 * @throws SeException
+	 */
+	public static long[] radiusQuery(SeConnection conn, String tableName, String idColumn, double lon, double lat, double meters,
+			SdeMetadataCache metadata) throws SeException{
+		SeLayer layer = metadata.getLayer(conn, tableName);
+		double[] box = LatLngUtil.envelope(lon, lat, meters);
+		SeShape envelope = generateEnvelopeSeShape(layer.getCoordRef(), box[0], box[1], box[2], box[3]);
+		SeFilter[] filters = generateFilters(envelope, layer.getName(), layer.getSpatialColumn());
+
+		long[] ids = new long[64];
+		int n = 0;
+		SdeCursor cursor = new SdeQueryBuilder(conn, tableName).metadata(metadata).columns(idColumn).withShape(true).filters(filters).open();
+		try {
+			while (cursor.hasNext()) {
+				SeRow row = cursor.next();
+				Object id = row.getObject(0);
+				SeShape shape = row.getShape(1);
+				if (id == null || shape == null || shape.isNil()) {
+					continue;
+				}
+				SeExtent extent = shape.getExtent();
+				double x = (extent.getMinX() + extent.getMaxX()) / 2;
+				double y = (extent.getMinY() + extent.getMaxY()) / 2;
+				if (LatLngUtil.sphereDistance(lon, lat, x, y) > meters) {
+					continue;
+				}
+				if (n == ids.length) {
+					long[] t = new long[n * 2];
+					System.arraycopy(ids, 0, t, 0, n);
+					ids = t;
+				}
+				ids[n++] = ((Number)id).longValue();
+			}
+		} finally {
+			cursor.close();
+		}
+		long[] result = new long[n];
+		System.arraycopy(ids, 0, result, 0, n);
+		return result;
+	}
+	
 	/**
 	 * ȡͼĿռϵ
 	 * @param conn
@@ -214,53 +383,132 @@ public class SdeDao {
 	 * @throws SeException
 	 */
 	public static SeCoordinateReference getLayerSeCoordinateReference(SeConnection conn,String tableName) throws SeException{
-		SeLayer layer = new SeLayer(conn,tableName,"SHAPE");
-		return layer.getCoordRef();
+		return getLayerSeCoordinateReference(conn, tableName, SdeMetadataCache.forConnection(conn));
+	}
+
+	/**
+	 * ȡͼĿռϵ
+	 * @param conn
+	 * @param tableName
+	 * @param metadata Ԫݻ棬ӳصgetMetadataCache()
+	 * @return SeCoordinateReference(ռϵ)
+	 * @throws SeException
+	 */
+	public static SeCoordinateReference getLayerSeCoordinateReference(SeConnection conn,String tableName,SdeMetadataCache metadata) throws SeException{
+		return metadata.getCoordRef(conn, tableName);
 	}
 
 	/**
-	 * ռѯ
+	 * ռѯдӡһ
 	 * @param conn
 	 * @param tableName
 	 * @param filters
 	 */
 	public static void spatialQuery(SeConnection conn,String tableName,SeFilter[] filters)
 	{
+		if(conn==null){
+			System.err.print("\nӶȡʧ\n");
+			return ;
+		}
+		SdeCursor cursor = null;
 		try {
-			
-			if(conn==null){
-				System.err.print("\nӶȡʧ\n");
-				return ;
-			}
-			SeLayer layer = new SeLayer(conn,tableName,"SHAPE");
-
-			SeTable table = new SeTable(conn, tableName);
-			SeColumnDefinition[] tableDef = table.describe();
-			String[] cols = new String[tableDef.length];
-			for (int j = 0; j < cols.length; j++)
+			cursor = openSpatialQuery(conn, tableName, filters);
+			while(cursor.hasNext())
 			{
-				cols[j] = tableDef[j].getName();
+				cursor.next();
+				System.out.println(cursor.getObject(0).toString());
 			}
-
-			SeSqlConstruct sqlCons = new SeSqlConstruct(layer.getName());
-			SeQuery query = new SeQuery(conn, cols, sqlCons);
-			query.prepareQuery();
-			query.setSpatialConstraints(SeQuery.SE_OPTIMIZE, false,filters);
-			query.execute();
-			
-			SeRow row =query.fetch();
-			while(row!=null)
-			{
-				System.out.println(row.getObject(0).toString());
-				
-				row =query.fetch();
-			}
-			
-			query.close();
 		}
 		catch (Exception ex) {
 			
 			ex.printStackTrace();
 		}
+		finally {
+			if(cursor!=null){
+				cursor.close();
+			}
+		}
+	}
+	
+	/**
+	 * ռѯȡһֵƽ
+	 * @param conn
+	 * @param tableName
+	 * @param filters
+	 * @param column ֵ
+	 * @return ƽֵûзǿֵʱNaN
+	 * @throws SeException
+	 */
+	public static double average(SeConnection conn,String tableName,SeFilter[] filters,String column) throws SeException
+	{
+		double sum = 0;
+		long n = 0;
+		SdeCursor cursor = openSpatialQuery(conn, tableName, filters, column);
+		try {
+			ColumnBatch batch;
+			while ((batch = cursor.nextBatch(ColumnBatch.DEFAULT_CAPACITY)) != null) {
+				int size = batch.size();
+				boolean[] nulls = batch.getNulls(0);
+				switch (batch.getColumns()[0].getType()) {
+				case SeColumnDefinition.TYPE_INT16:
+				case SeColumnDefinition.TYPE_INT32:
+					int[] ints = batch.getInts(0);
+					for (int i = 0; i < size; i++) {
+						if (!nulls[i]) {
+							sum += ints[i];
+							n++;
+						}
+					}
+					break;
+				case SeColumnDefinition.TYPE_INT64:
+					long[] longs = batch.getLongs(0);
+					for (int i = 0; i < size; i++) {
+						if (!nulls[i]) {
+							sum += longs[i];
+							n++;
+						}
+					}
+					break;
+				default:
+					double[] doubles = batch.getDoubles(0);
+					for (int i = 0; i < size; i++) {
+						if (!nulls[i]) {
+							sum += doubles[i];
+							n++;
+						}
+					}
+				}
+			}
+		} finally {
+			cursor.close();
+		}
+		return n == 0 ? Double.NaN : sum / n;
+	}
+	
+	/**
+	 * ռѯذȡα꣨ȫУ״У÷close()
+	 * @param conn
+	 * @param tableName
+	 * @param filters
+	 * @return
+	 * @throws SeException
+	 */
+	public static SdeCursor openSpatialQuery(SeConnection conn,String tableName,SeFilter[] filters) throws SeException
+	{
+		return new SdeQueryBuilder(conn, tableName).withShape(true).filters(filters).open();
+	}
+	
+	/**
+	 * ռѯֻȡָУȡ״УֻȡID뾶
+	 * @param conn
+	 * @param tableName
+	 * @param filters
+	 * @param columns
+	 * @return α꣬÷close()
+	 * @throws SeException
+	 */
+	public static SdeCursor openSpatialQuery(SeConnection conn,String tableName,SeFilter[] filters,String... columns) throws SeException
+	{
+		return new SdeQueryBuilder(conn, tableName).columns(columns).filters(filters).open();
 	}
 }
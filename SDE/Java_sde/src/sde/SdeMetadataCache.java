@@ -0,0 +1,260 @@
+package sde;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.esri.sde.sdk.client.SeColumnDefinition;
+import com.esri.sde.sdk.client.SeConnection;
+import com.esri.sde.sdk.client.SeCoordinateReference;
+import com.esri.sde.sdk.client.SeException;
+import com.esri.sde.sdk.client.SeLayer;
+import com.esri.sde.sdk.client.SeRegistration;
+import com.esri.sde.sdk.client.SeTable;
+
+/**
+ * ͼԪݻ棬SeLayerSeCoordinateReferenceSeColumnDefinition[]SeRegistration
+ * ÿβ󼸺Ԫ
+ * 	ÿӳسһʵConnectionPool.getMetadataCache()ӹã
+ * ӳصforConnection(conn)ͬһʵûӹһʵ
+ * 	ڻʵţʹͬݿͬһʵҲȡԷԪ
+ * 	SeLayerSeRegistrationüӣӹرգ类ӳػգΪڲ¼أ
+ * Լֻãÿ򻺴SeLayerSeRegistrationסһμص
+ * 	ܻttl¼أṹɵinvalidateʧЧ
+ * 	getHits/getMissesͳ
+ * صĶΪݣ÷Ҫ޸
+ * @author Administrator
+ *
+ */
+public class SdeMetadataCache {
+
+	/**
+	 * ĬЧڣλ
+	 */
+	public static final long DEFAULT_TTL = 10 * 60 * 1000;
+
+	/**
+	 * ӳصӵĻ棬Ϊ:ʵ:ûΪSeLayerӣüᱻ
+	 */
+	private static final Map<String, SdeMetadataCache> byDatabase = new HashMap<String, SdeMetadataCache>();
+
+	/**
+	 * Ԫݣ
+	 */
+	private static class Entry {
+		volatile SeLayer layer;
+		volatile WeakReference<SeConnection> layerConn;
+		volatile long layerTime;
+		volatile SeColumnDefinition[] columns;
+		volatile long columnsTime;
+		volatile SeRegistration registration;
+		volatile WeakReference<SeConnection> registrationConn;
+		volatile long registrationTime;
+	}
+
+	private final long ttl;
+	private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * @param ttl Чڣλ룬0ʾ
+	 */
+	public SdeMetadataCache(long ttl) {
+		this.ttl = ttl;
+	}
+
+	/**
+	 * ӳصõĻʵͬһʵûӹ
+	 * @param conn
+	 * @return
+	 */
+	public static SdeMetadataCache forConnection(SeConnection conn) {
+		String database;
+		try {
+			database = conn.getServer() + ":" + conn.getInstance() + ":" + conn.getUser().toUpperCase();
+		} catch (SeException e) {
+			throw new IllegalStateException("ܶȡӵûӿѹر", e);
+		}
+		synchronized (byDatabase) {
+			SdeMetadataCache cache = byDatabase.get(database);
+			if (cache == null) {
+				cache = new SdeMetadataCache(DEFAULT_TTL);
+				byDatabase.put(database, cache);
+			}
+			return cache;
+		}
+	}
+
+	/**
+	 * @return ѱջѹر
+	 */
+	private static boolean closed(WeakReference<SeConnection> loader) {
+		SeConnection conn = loader == null ? null : loader.get();
+		return conn == null || conn.isClosed();
+	}
+
+	/**
+	 * ݾɽӿڣforConnectionĻȡж
+	 * @param conn
+	 * @param tableName
+	 * @return
+	 * @throws SeException
+	 */
+	public static SeColumnDefinition[] describe(SeConnection conn, String tableName) throws SeException {
+		return forConnection(conn).getColumns(conn, tableName);
+	}
+
+	/**
+	 * :ʵ/
+	 */
+	private static String key(SeConnection conn, String tableName) {
+		return conn.getServer() + ":" + conn.getInstance() + "/" + tableName.toUpperCase();
+	}
+
+	private Entry entry(SeConnection conn, String tableName) {
+		String key = key(conn, tableName);
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			Entry created = new Entry();
+			entry = entries.putIfAbsent(key, created);
+			if (entry == null) {
+				entry = created;
+			}
+		}
+		return entry;
+	}
+
+	private boolean fresh(Object value, long loadedAt, long now) {
+		return value != null && (ttl <= 0 || now - loadedAt < ttl);
+	}
+
+	/**
+	 * ȡͼ󣨿ռΪSHAPE
+	 * @param conn δʱڼص
+	 * @param tableName
+	 * @return
+	 * @throws SeException
+	 */
+	public SeLayer getLayer(SeConnection conn, String tableName) throws SeException {
+		Entry entry = entry(conn, tableName);
+		long now = System.currentTimeMillis();
+		SeLayer layer = entry.layer;
+		if (fresh(layer, entry.layerTime, now) && !closed(entry.layerConn)) {
+			hits.incrementAndGet();
+			return layer;
+		}
+		misses.incrementAndGet();
+		layer = new SeLayer(conn, tableName, "SHAPE");
+		entry.layerTime = now;
+		entry.layerConn = new WeakReference<SeConnection>(conn);
+		entry.layer = layer;
+		return layer;
+	}
+
+	/**
+	 * ȡͼĿռϵ
+	 * @param conn
+	 * @param tableName
+	 * @return
+	 * @throws SeException
+	 */
+	public SeCoordinateReference getCoordRef(SeConnection conn, String tableName) throws SeException {
+		return getLayer(conn, tableName).getCoordRef();
+	}
+
+	/**
+	 * ȡж
+	 * @param conn
+	 * @param tableName
+	 * @return
+	 * @throws SeException
+	 */
+	public SeColumnDefinition[] getColumns(SeConnection conn, String tableName) throws SeException {
+		Entry entry = entry(conn, tableName);
+		long now = System.currentTimeMillis();
+		SeColumnDefinition[] columns = entry.columns;
+		if (fresh(columns, entry.columnsTime, now)) {
+			hits.incrementAndGet();
+			return columns;
+		}
+		misses.incrementAndGet();
+		columns = new SeTable(conn, tableName).describe();
+		entry.columnsTime = now;
+		entry.columns = columns;
+		return columns;
+	}
+
+	/**
+	 * ȡעϢIDеȣ
+	 * @param conn
+	 * @param tableName
+	 * @return
+	 * @throws SeException
+	 */
+	public SeRegistration getRegistration(SeConnection conn, String tableName) throws SeException {
+		Entry entry = entry(conn, tableName);
+		long now = System.currentTimeMillis();
+		SeRegistration registration = entry.registration;
+		if (fresh(registration, entry.registrationTime, now) && !closed(entry.registrationConn)) {
+			hits.incrementAndGet();
+			return registration;
+		}
+		misses.incrementAndGet();
+		registration = new SeRegistration(conn, tableName);
+		entry.registrationTime = now;
+		entry.registrationConn = new WeakReference<SeConnection>(conn);
+		entry.registration = registration;
+		return registration;
+	}
+
+	/**
+	 * ʹĳȫʧЧ
+	 * @param tableName
+	 */
+	public void invalidate(String tableName) {
+		String suffix = "/" + tableName.toUpperCase();
+		for (Iterator<String> it = entries.keySet().iterator(); it.hasNext();) {
+			if (it.next().endsWith(suffix)) {
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * ݾɽӿڣʹforConnectionĻĳʧЧӰӳصĻ
+	 * @param conn
+	 * @param tableName
+	 */
+	public static void invalidate(SeConnection conn, String tableName) {
+		forConnection(conn).invalidate(tableName);
+	}
+
+	public void invalidateAll() {
+		entries.clear();
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	public void resetStats() {
+		hits.set(0);
+		misses.set(0);
+	}
+
+	public String toString() {
+		long h = hits.get();
+		long m = misses.get();
+		return "SdeMetadataCache[tables=" + entries.size() + ", hits=" + h + ", misses=" + m
+				+ ", hitRate=" + (h + m == 0 ? "-" : String.format("%.1f%%", h * 100.0 / (h + m))) + "]";
+	}
+}
@@ -0,0 +1,156 @@
+package sde;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.esri.sde.sdk.client.SeColumnDefinition;
+import com.esri.sde.sdk.client.SeConnection;
+import com.esri.sde.sdk.client.SeException;
+import com.esri.sde.sdk.client.SeFilter;
+import com.esri.sde.sdk.client.SeQuery;
+import com.esri.sde.sdk.client.SeSqlConstruct;
+
+/**
+ * ͶӰĲѯֻȡҪУ״Ĭϲȡ
+ * <pre>
+ * SdeCursor cursor = new SdeQueryBuilder(conn, "taxi_point_cloud")
+ *         .columns("OBJECTID")
+ *         .filters(filters)
+ *         .open();
+ * </pre>
+ * δָcolumnsʱȡȫУṹͨSdeMetadataCache
+ * @author Administrator
+ *
+ */
+public class SdeQueryBuilder {
+
+	private final SeConnection conn;
+	private final String tableName;
+	private String[] columns = null;
+	private boolean withShape = false;
+	private SeFilter[] filters = null;
+	private String where = null;
+	private SdeMetadataCache metadata = null;
+
+	public SdeQueryBuilder(SeConnection conn, String tableName) {
+		this.conn = conn;
+		this.tableName = tableName;
+	}
+
+	/**
+	 * ָȡṹõĻ棬ӳصgetMetadataCache()ĬʹSdeMetadataCache.forConnection
+	 * @param metadata
+	 * @return
+	 */
+	public SdeQueryBuilder metadata(SdeMetadataCache metadata) {
+		this.metadata = metadata;
+		return this;
+	}
+
+	/**
+	 * ָҪȡУ˳򼴽˳
+	 * @param columns
+	 * @return
+	 */
+	public SdeQueryBuilder columns(String... columns) {
+		this.columns = columns;
+		return this;
+	}
+
+	/**
+	 * Ƿڽĩβ״
+	 * @param withShape
+	 * @return
+	 */
+	public SdeQueryBuilder withShape(boolean withShape) {
+		this.withShape = withShape;
+		return this;
+	}
+
+	/**
+	 * ռSdeDao.generateFiltersķֵ
+	 * @param filters
+	 * @return
+	 */
+	public SdeQueryBuilder filters(SeFilter[] filters) {
+		this.filters = filters;
+		return this;
+	}
+
+	/**
+	 * ԹSQL WHEREӾ䣬WHEREؼ֣
+	 * @param where
+	 * @return
+	 */
+	public SdeQueryBuilder where(String where) {
+		this.where = where;
+		return this;
+	}
+
+	/**
+	 * ʵʲѯ
+	 * @return
+	 * @throws SeException
+	 */
+	public String[] resolveColumns() throws SeException {
+		SeColumnDefinition[] defs = metadata != null ? metadata.getColumns(conn, tableName)
+				: SdeMetadataCache.describe(conn, tableName);
+		List<String> cols = new ArrayList<String>();
+		String shapeColumn = null;
+		for (int i = 0; i < defs.length; i++) {
+			if (defs[i].getType() == SeColumnDefinition.TYPE_SHAPE) {
+				shapeColumn = defs[i].getName();
+			} else if (columns == null) {
+				cols.add(defs[i].getName());
+			}
+		}
+		if (columns != null) {
+			for (int i = 0; i < columns.length; i++) {
+				cols.add(columns[i]);
+			}
+		}
+		if (withShape) {
+			if (shapeColumn == null) {
+				throw new IllegalArgumentException(tableName + "û״");
+			}
+			if (!containsIgnoreCase(cols, shapeColumn)) {
+				cols.add(shapeColumn);
+			}
+		}
+		if (cols.isEmpty()) {
+			throw new IllegalArgumentException("ѯΪգ" + tableName);
+		}
+		return cols.toArray(new String[cols.size()]);
+	}
+
+	private static boolean containsIgnoreCase(List<String> cols, String name) {
+		for (String col : cols) {
+			if (col.equalsIgnoreCase(name)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * ִвѯ
+	 * @return α꣬÷close()
+	 * @throws SeException
+	 */
+	public SdeCursor open() throws SeException {
+		String[] cols = resolveColumns();
+		SeSqlConstruct sqlCons = where == null ? new SeSqlConstruct(tableName) : new SeSqlConstruct(tableName, where);
+		SeQuery query = new SeQuery(conn, cols, sqlCons);
+		try {
+			query.prepareQuery();
+			if (filters != null) {
+				query.setSpatialConstraints(SeQuery.SE_OPTIMIZE, false, filters);
+			}
+			query.execute();
+		} catch (SeException e) {
+			query.close();
+			throw e;
+		}
+		return new SdeCursor(query);
+	}
+}
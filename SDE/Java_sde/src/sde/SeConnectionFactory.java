@@ -0,0 +1,57 @@
+package sde;
+
+import com.esri.sde.sdk.client.SeConnection;
+import com.esri.sde.sdk.client.SeException;
+
+/**
+ * jsde_sdkӹ
+ * @author Administrator
+ *
+ */
+public class SeConnectionFactory implements ConnectionFactory<SeConnection> {
+
+	private final String server;
+	private final int instance;
+	private final String database;
+	private final String user;
+	private final String password;
+
+	public SeConnectionFactory(String server, int instance, String database, String user, String password) {
+		this.server = server;
+		this.instance = instance;
+		this.database = database;
+		this.user = user;
+		this.password = password;
+	}
+
+	public SeConnection create() throws SeException {
+		return new SeConnection(server, instance, database, user, password);
+	}
+
+	/**
+	 * ȡһηʱ䣬ܷؼΪӿ
+	 */
+	public boolean isValid(SeConnection conn) {
+		try {
+			return !conn.isClosed() && conn.getServerTime() != null;
+		} catch (SeException e) {
+			return false;
+		}
+	}
+
+	public void close(SeConnection conn) {
+		try {
+			conn.close();
+		} catch (SeException e) {
+			e.printStackTrace();
+		}
+	}
+
+	public String getServer() {
+		return server;
+	}
+
+	public int getInstance() {
+		return instance;
+	}
+}
@@ -0,0 +1,88 @@
+package sde;
+
+import com.esri.sde.sdk.client.SeColumnDefinition;
+import com.esri.sde.sdk.client.SeCoordinateReference;
+import com.esri.sde.sdk.client.SeException;
+
+/**
+ * ͼݷʽӿڣֻʵõĲṹηΧѯ㡢ͳ
+ * 	JsdeDataSourceͨjsde_sdk.jarArcSDE
+ * 	MemoryDataSourceݷGridIndexУ˼عԺ
+ * ͼıṹtaxi_point_cloudͬҪIDСlonlatֵк״
+ * @author Administrator
+ *
+ */
+public interface SpatialDataSource {
+
+	/**
+	 * ѯصxyΪҪ
+	 */
+	interface FeatureVisitor {
+		void visit(long id, double x, double y);
+	}
+
+	/**
+	 * ֵͳƽ
+	 */
+	class TableStats {
+		public final long count;
+		public final double min;
+		public final double max;
+		public final double average;
+
+		public TableStats(long count, double min, double max, double average) {
+			this.count = count;
+			this.min = min;
+			this.max = max;
+			this.average = average;
+		}
+
+		public String toString() {
+			return "count=" + count + ", min=" + min + ", max=" + max + ", average=" + average;
+		}
+	}
+
+	/**
+	 * @param tableName
+	 * @return ж
+	 * @throws SeException
+	 */
+	SeColumnDefinition[] describe(String tableName) throws SeException;
+
+	/**
+	 * @param tableName
+	 * @return ͼϵ
+	 * @throws SeException
+	 */
+	SeCoordinateReference getCoordRef(String tableName) throws SeException;
+
+	/**
+	 * ѯཻҪأȼԾ״METHOD_ENVPSeShapeFilterѯ
+	 * @param tableName
+	 * @param idColumn ҪIDУΪͣΪյ
+	 * @param visitor
+	 * @return и
+	 * @throws SeException
+	 */
+	int envelopeQuery(String tableName, String idColumn, double minX, double minY, double maxX, double maxY,
+			FeatureVisitor visitor) throws SeException;
+
+	/**
+	 * 
+	 * @param tableName
+	 * @param lons
+	 * @param lats
+	 * @return 
+	 * @throws SeException
+	 */
+	long insert(String tableName, double[] lons, double[] lats) throws SeException;
+
+	/**
+	 * ֵеСֵֵƽֵ
+	 * @param tableName
+	 * @param column
+	 * @return
+	 * @throws SeException
+	 */
+	TableStats stats(String tableName, String column) throws SeException;
+}
@@ -0,0 +1,252 @@
+package sde;
+
+import com.esri.sde.devhelp.RadixSort;
+import com.esri.sde.sdk.client.SeException;
+import com.esri.sde.sdk.client.SeExtent;
+import com.esri.sde.sdk.client.SeShape;
+
+/**
+ * ռ򣺰ҪĵHilbertZ-orderMorton룬ٰ
+ * ʹռڵҪڽҲڣƬȾкдľֲԡ
+ * RadixSort.parallelSortнУ±꣺
+ * <pre>
+ * int[] order = SpatialOrder.hilbertOrder(lons, lats, 4);
+ * for (int i = 0; i < order.length; i++) {
+ *     render(lons[order[i]], lats[order[i]]);
+ * }
+ * </pre>
+ * ǰȰ갴ݷΧһ2^order2^order
+ * @author Administrator
+ *
+ */
+public class SpatialOrder {
+
+	/**
+	 * Ĭ6553665536人зΧһԼ3
+	 */
+	public static final int DEFAULT_ORDER = 16;
+
+	/**
+	 * Hilbert(x, y)ţŵĸڿռһ
+	 * @param x кţ0  x < 2^order
+	 * @param y кţ0  y < 2^order
+	 * @param order 131
+	 * @return
+	 */
+	public static long hilbert(int x, int y, int order) {
+		long d = 0;
+		int n = 1 << order;
+		for (int s = n >>> 1; s > 0; s >>>= 1) {
+			int rx = (x & s) != 0 ? 1 : 0;
+			int ry = (y & s) != 0 ? 1 : 0;
+			d += (long) s * s * ((3 * rx) ^ ry);
+			//ת
+			if (ry == 0) {
+				if (rx == 1) {
+					x = n - 1 - x;
+					y = n - 1 - y;
+				}
+				int t = x;
+				x = y;
+				y = t;
+			}
+		}
+		return d;
+	}
+
+	/**
+	 * Z-orderMorton룺xyĶλHilbert죬ֲԲ
+	 * @param x к
+	 * @param y к
+	 * @return
+	 */
+	public static long morton(int x, int y) {
+		return spread(x) | (spread(y) << 1);
+	}
+
+	/**
+	 * ѵ32λչżλ
+	 */
+	private static long spread(int v) {
+		long x = v & 0xFFFFFFFFL;
+		x = (x | (x << 16)) & 0x0000FFFF0000FFFFL;
+		x = (x | (x << 8)) & 0x00FF00FF00FF00FFL;
+		x = (x | (x << 4)) & 0x0F0F0F0F0F0F0F0FL;
+		x = (x | (x << 2)) & 0x3333333333333333L;
+		x = (x | (x << 1)) & 0x5555555555555555L;
+		return x;
+	}
+
+	/**
+	 * һHilbert
+	 * @param xs
+	 * @param ys
+	 * @param extent һΧnullʾõ㼯Χ
+	 * @param order 
+	 * @return
+	 */
+	public static long[] hilbertKeys(double[] xs, double[] ys, SeExtent extent, int order) {
+		return keys(xs, ys, extent, order, true);
+	}
+
+	/**
+	 * һZ-order
+	 * @param xs
+	 * @param ys
+	 * @param extent һΧnullʾõ㼯Χ
+	 * @param order 
+	 * @return
+	 */
+	public static long[] mortonKeys(double[] xs, double[] ys, SeExtent extent, int order) {
+		return keys(xs, ys, extent, order, false);
+	}
+
+	private static long[] keys(double[] xs, double[] ys, SeExtent extent, int order, boolean hilbert) {
+		if (xs.length != ys.length) {
+			throw new IllegalArgumentException("鳤Ȳһ£" + xs.length + " != " + ys.length);
+		}
+		if (order < 1 || order > 31) {
+			throw new IllegalArgumentException("131֮䣺" + order);
+		}
+		if (extent == null) {
+			extent = extent(xs, ys);
+		}
+		int n = xs.length;
+		int max = (1 << order) - 1;
+		double minX = extent.getMinX();
+		double minY = extent.getMinY();
+		double width = extent.getMaxX() - minX;
+		double height = extent.getMaxY() - minY;
+		double sx = width > 0 ? max / width : 0;
+		double sy = height > 0 ? max / height : 0;
+		long[] keys = new long[n];
+		for (int i = 0; i < n; i++) {
+			int cx = cell((xs[i] - minX) * sx, max);
+			int cy = cell((ys[i] - minY) * sy, max);
+			keys[i] = hilbert ? hilbert(cx, cy, order) : morton(cx, cy);
+		}
+		return keys;
+	}
+
+	private static int cell(double v, int max) {
+		if (!(v > 0)) {
+			return 0;
+		}
+		return v >= max ? max : (int) v;
+	}
+
+	/**
+	 * 㼯ΣNaN꣬ûЧʱ(0,0,0,0)
+	 * @param xs
+	 * @param ys
+	 * @return
+	 */
+	public static SeExtent extent(double[] xs, double[] ys) {
+		double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+		double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+		for (int i = 0; i < xs.length; i++) {
+			double x = xs[i];
+			double y = ys[i];
+			if (Double.isNaN(x) || Double.isNaN(y)) {
+				continue;
+			}
+			if (x < minX) minX = x;
+			if (x > maxX) maxX = x;
+			if (y < minY) minY = y;
+			if (y > maxY) maxY = y;
+		}
+		if (minX > maxX) {
+			return new SeExtent(0, 0, 0, 0);
+		}
+		return new SeExtent(minX, minY, maxX, maxY);
+	}
+
+	/**
+	 * Hilbert
+	 * @param xs
+	 * @param ys
+	 * @param threads ߳
+	 * @return ±
+	 */
+	public static int[] hilbertOrder(double[] xs, double[] ys, int threads) {
+		return RadixSort.parallelSort(hilbertKeys(xs, ys, null, DEFAULT_ORDER), threads);
+	}
+
+	/**
+	 * Z-order
+	 * @param xs
+	 * @param ys
+	 * @param threads ߳
+	 * @return ±
+	 */
+	public static int[] mortonOrder(double[] xs, double[] ys, int threads) {
+		return RadixSort.parallelSort(mortonKeys(xs, ys, null, DEFAULT_ORDER), threads);
+	}
+
+	/**
+	 * ĵHilbert״򣬿״ǰ
+	 * @param shapes ѯ״
+	 * @param threads ߳
+	 * @return ±
+	 * @throws SeException
+	 */
+	public static int[] hilbertOrder(SeShape[] shapes, int threads) throws SeException {
+		int n = shapes.length;
+		double[] xs = new double[n];
+		double[] ys = new double[n];
+		boolean[] nil = new boolean[n];
+		double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+		double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+		for (int i = 0; i < n; i++) {
+			SeShape shape = shapes[i];
+			if (shape == null || shape.isNil()) {
+				nil[i] = true;
+				continue;
+			}
+			SeExtent e = shape.getExtent();
+			xs[i] = (e.getMinX() + e.getMaxX()) / 2;
+			ys[i] = (e.getMinY() + e.getMaxY()) / 2;
+			minX = Math.min(minX, xs[i]);
+			minY = Math.min(minY, ys[i]);
+			maxX = Math.max(maxX, xs[i]);
+			maxY = Math.max(maxY, ys[i]);
+		}
+		SeExtent extent = minX <= maxX ? new SeExtent(minX, minY, maxX, maxY) : new SeExtent(0, 0, 0, 0);
+		long[] keys = hilbertKeys(xs, ys, extent, DEFAULT_ORDER);
+		for (int i = 0; i < n; i++) {
+			keys[i] = nil[i] ? -1 : keys[i];
+		}
+		return RadixSort.parallelSort(keys, threads);
+	}
+
+	/**
+	 * ColumnBatchÿеһHilbert򣬵ͼ㼴
+	 * @param batch
+	 * @param threads ߳
+	 * @return к
+	 */
+	public static int[] hilbertOrder(ColumnBatch batch, int threads) {
+		int n = batch.size();
+		double[] xs = new double[n];
+		double[] ys = new double[n];
+		for (int i = 0; i < n; i++) {
+			xs[i] = batch.getX(i);
+			ys[i] = batch.getY(i);
+		}
+		return hilbertOrder(xs, ys, threads);
+	}
+
+	/**
+	 * ±
+	 * @param values
+	 * @param order ±
+	 * @return 
+	 */
+	public static double[] permute(double[] values, int[] order) {
+		double[] result = new double[order.length];
+		for (int i = 0; i < order.length; i++) {
+			result[i] = values[order[i]];
+		}
+		return result;
+	}
+}